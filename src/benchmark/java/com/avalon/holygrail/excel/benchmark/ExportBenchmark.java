@@ -0,0 +1,82 @@
+package com.avalon.holygrail.excel.benchmark;
+
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.DataType;
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.ExportMode;
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.TitleType;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导出JMH基准测试
+ * 每次调用完整导出一个工作簿,结果为单次导出耗时,行数/耗时即为每秒导出行数;
+ * 加上 -prof gc 可以得到每次导出的内存分配
+ * <p>
+ * mvn -Pbenchmark package
+ * java -jar target/holygrail-benchmarks.jar ExportBenchmark -p rows=100000 -p mode=SXSSF,CSV -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ExportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"10", "20"})
+    public int columns;
+
+    @Param({"SXSSF", "SXSSF_GZIP", "CSV"})
+    public ExportMode mode;
+
+    @Param({"100", "1000", "10000"})
+    public int windowSize;
+
+    @Param({"MAP", "BEAN"})
+    public DataType dataType;
+
+    @Param({"FLAT", "MERGED"})
+    public TitleType titleType;
+
+    @Param({"false", "true"})
+    public boolean combobox;
+
+    @Param({"false"})
+    public boolean styled;
+
+    protected List<?> records;
+
+    protected String titlesJson;
+
+    protected File outFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        this.records = ExportBenchmarkSupport.buildRecords(this.dataType, this.rows, this.columns);
+        this.titlesJson = ExportBenchmarkSupport.buildTitlesJson(this.titleType, this.columns, this.combobox);
+        this.outFile = File.createTempFile("export-benchmark", "." + (this.mode == ExportMode.CSV ? "csv" : "xlsx"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.outFile.delete();
+    }
+
+    /**
+     * @return 输出文件大小
+     */
+    @Benchmark
+    public long export() throws Exception {
+        ExcelWorkBookExport workBook = ExportBenchmarkSupport.buildWorkBook(this.mode, this.windowSize);
+        ExportBenchmarkSupport.writeRecords(workBook, this.titlesJson, this.records, this.styled);
+        ExportBenchmarkSupport.export(workBook, this.outFile);
+        return this.outFile.length();
+    }
+}
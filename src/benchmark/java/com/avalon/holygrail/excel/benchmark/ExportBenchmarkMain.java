@@ -0,0 +1,156 @@
+package com.avalon.holygrail.excel.benchmark;
+
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.DataType;
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.ExportMode;
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.TitleType;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+
+/**
+ * 导出端到端基准测试
+ * 按参数组合依次完整导出,输出每秒导出行数、峰值堆内存、临时文件大小和输出文件大小
+ * <p>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=com.avalon.holygrail.excel.benchmark.ExportBenchmarkMain
+ * -Dexec.args="rows=200000 columns=20 windows=100,1000,10000 modes=SXSSF,CSV"
+ * <p>
+ * 参数(均可省略): rows 行数, columns 列数, windows SXSSF内存行数, modes 导出方式, dataTypes 数据类型,
+ * titles 表头类型, combobox 是否有下拉框, styled 是否隔行加粗, repeat 每种组合重复次数(取最快一次)
+ */
+public class ExportBenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index > 0) {
+                params.put(arg.substring(0, index), arg.substring(index + 1));
+            }
+        }
+        int rows = Integer.parseInt(params.getOrDefault("rows", "100000"));
+        int columns = Integer.parseInt(params.getOrDefault("columns", "20"));
+        int repeat = Integer.parseInt(params.getOrDefault("repeat", "3"));
+        List<String> windows = split(params.getOrDefault("windows", "100,1000,10000"));
+        List<String> modes = split(params.getOrDefault("modes", "SXSSF,SXSSF_GZIP,CSV"));
+        List<String> dataTypes = split(params.getOrDefault("dataTypes", "MAP,BEAN"));
+        List<String> titles = split(params.getOrDefault("titles", "FLAT,MERGED"));
+        List<String> comboboxes = split(params.getOrDefault("combobox", "false,true"));
+        List<String> styles = split(params.getOrDefault("styled", "false"));
+
+        System.out.println("mode\twindow\tdata\ttitle\tcombobox\tstyled\trows/s\tpeakHeapMB\ttempKB\toutputKB");
+        for (String dataTypeName : dataTypes) {
+            DataType dataType = DataType.valueOf(dataTypeName);
+            List<?> records = ExportBenchmarkSupport.buildRecords(dataType, rows, columns);
+            for (String modeName : modes) {
+                ExportMode mode = ExportMode.valueOf(modeName);
+                //CSV不区分内存行数
+                List<String> modeWindows = mode == ExportMode.CSV ? windows.subList(0, 1) : windows;
+                for (String window : modeWindows) {
+                    for (String titleName : titles) {
+                        for (String combobox : comboboxes) {
+                            for (String styled : styles) {
+                                String titlesJson = ExportBenchmarkSupport.buildTitlesJson(TitleType.valueOf(titleName), columns, Boolean.parseBoolean(combobox));
+                                Result best = null;
+                                for (int i = 0; i < repeat; i++) {
+                                    Result result = run(mode, Integer.parseInt(window), titlesJson, records, Boolean.parseBoolean(styled));
+                                    if (best == null || result.nanos < best.nanos) {
+                                        best = result;
+                                    }
+                                }
+                                System.out.printf("%s\t%s\t%s\t%s\t%s\t%s\t%.0f\t%.1f\t%d\t%d%n",
+                                        mode, mode == ExportMode.CSV ? "-" : window, dataType, titleName, combobox, styled,
+                                        rows * 1e9 / best.nanos, best.peakHeap / 1048576.0, best.tempBytes / 1024, best.outputBytes / 1024);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 单次导出结果
+     */
+    protected static class Result {
+
+        long nanos;//导出耗时
+
+        long peakHeap;//峰值堆内存
+
+        long tempBytes;//导出前临时文件大小
+
+        long outputBytes;//输出文件大小
+    }
+
+    protected static Result run(ExportMode mode, int window, String titlesJson, List<?> records, boolean styled) throws Exception {
+        File outFile = File.createTempFile("export-benchmark", "." + (mode == ExportMode.CSV ? "csv" : "xlsx"));
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        System.gc();
+        long baseHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+            baseHeap += pool.getUsage().getUsed();
+        }
+        Set<String> existing = new HashSet<>();
+        for (File file : tempFiles()) {
+            existing.add(file.getName());
+        }
+        Result result = new Result();
+        long start = System.nanoTime();
+        ExcelWorkBookExport workBook = ExportBenchmarkSupport.buildWorkBook(mode, window);
+        try {
+            ExportBenchmarkSupport.writeRecords(workBook, titlesJson, records, styled);
+            result.tempBytes = tempFileBytes(existing);
+            workBook.export(outFile);
+            result.nanos = System.nanoTime() - start;
+        } finally {
+            ExportBenchmarkSupport.dispose(workBook);
+        }
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        //数据集合本身不计入
+        result.peakHeap = Math.max(0, peakHeap - baseHeap);
+        result.outputBytes = outFile.length();
+        outFile.delete();
+        return result;
+    }
+
+    /**
+     * 临时目录下SXSSF与CSV的临时文件
+     */
+    protected static File[] tempFiles() {
+        File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles((dir, name) ->
+                name.startsWith("poi-sxssf-sheet") || name.startsWith("sheet") && (name.endsWith(".csv") || name.endsWith(".tsv")));
+        return files == null ? new File[0] : files;
+    }
+
+    /**
+     * 本次导出新建的临时文件大小
+     *
+     * @param existing 导出前已经存在的临时文件名
+     */
+    protected static long tempFileBytes(Set<String> existing) {
+        long size = 0;
+        for (File file : tempFiles()) {
+            if (!existing.contains(file.getName())) {
+                size += file.length();
+            }
+        }
+        return size;
+    }
+
+    protected static List<String> split(String value) {
+        return Arrays.asList(value.split(","));
+    }
+}
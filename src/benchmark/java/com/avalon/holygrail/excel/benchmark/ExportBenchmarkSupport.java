@@ -0,0 +1,342 @@
+package com.avalon.holygrail.excel.benchmark;
+
+import com.avalon.holygrail.excel.bean.CSVExcelWorkBookExport;
+import com.avalon.holygrail.excel.bean.SXSSFExcelSheetExport;
+import com.avalon.holygrail.excel.bean.SXSSFExcelWorkBookExport;
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.norm.ExcelSheetExport;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
+import com.avalon.holygrail.util.Export;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 导出基准测试公共部分
+ * 生成指定行数×列数的Map或对象数据、平铺或合并表头,并按导出方式执行一次完整导出
+ */
+public class ExportBenchmarkSupport {
+
+    /**
+     * 对象数据最大列数
+     */
+    public static final int MAX_BEAN_COLUMNS = 20;
+
+    /**
+     * 导出方式
+     */
+    public enum ExportMode {
+        /**
+         * SXSSF,临时文件不压缩
+         */
+        SXSSF,
+        /**
+         * SXSSF,临时文件gzip压缩
+         */
+        SXSSF_GZIP,
+        /**
+         * CSV
+         */
+        CSV
+    }
+
+    /**
+     * 数据类型
+     */
+    public enum DataType {
+        MAP, BEAN
+    }
+
+    /**
+     * 表头类型
+     */
+    public enum TitleType {
+        /**
+         * 一行表头
+         */
+        FLAT,
+        /**
+         * 两行表头,每两列合并一个上级表头
+         */
+        MERGED
+    }
+
+    /**
+     * 数据对象,列数固定为MAX_BEAN_COLUMNS,超出的列读取为空
+     */
+    public static class Record {
+        private int c0;
+        private String c1;
+        private double c2;
+        private long c3;
+        private String c4;
+        private boolean c5;
+        private int c6;
+        private String c7;
+        private double c8;
+        private long c9;
+        private String c10;
+        private boolean c11;
+        private int c12;
+        private String c13;
+        private double c14;
+        private long c15;
+        private String c16;
+        private boolean c17;
+        private int c18;
+        private String c19;
+
+        public Record(int i) {
+            this.c0 = i;
+            this.c1 = "name" + i;
+            this.c2 = i * 0.25;
+            this.c3 = i * 1000L;
+            this.c4 = OPTIONS[i % OPTIONS.length];
+            this.c5 = (i & 1) == 0;
+            this.c6 = i % 97;
+            this.c7 = "备注" + (i % 1000);
+            this.c8 = i / 7.0;
+            this.c9 = i + 1L;
+            this.c10 = "code-" + (i % 10000);
+            this.c11 = (i & 2) == 0;
+            this.c12 = i % 12;
+            this.c13 = "地址" + (i % 500);
+            this.c14 = i % 100 / 100.0;
+            this.c15 = -i;
+            this.c16 = OPTIONS[(i + 1) % OPTIONS.length];
+            this.c17 = (i & 4) == 0;
+            this.c18 = i % 31;
+            this.c19 = "x" + i;
+        }
+
+        public int getC0() {
+            return c0;
+        }
+
+        public String getC1() {
+            return c1;
+        }
+
+        public double getC2() {
+            return c2;
+        }
+
+        public long getC3() {
+            return c3;
+        }
+
+        public String getC4() {
+            return c4;
+        }
+
+        public boolean isC5() {
+            return c5;
+        }
+
+        public int getC6() {
+            return c6;
+        }
+
+        public String getC7() {
+            return c7;
+        }
+
+        public double getC8() {
+            return c8;
+        }
+
+        public long getC9() {
+            return c9;
+        }
+
+        public String getC10() {
+            return c10;
+        }
+
+        public boolean isC11() {
+            return c11;
+        }
+
+        public int getC12() {
+            return c12;
+        }
+
+        public String getC13() {
+            return c13;
+        }
+
+        public double getC14() {
+            return c14;
+        }
+
+        public long getC15() {
+            return c15;
+        }
+
+        public String getC16() {
+            return c16;
+        }
+
+        public boolean isC17() {
+            return c17;
+        }
+
+        public int getC18() {
+            return c18;
+        }
+
+        public String getC19() {
+            return c19;
+        }
+    }
+
+    /**
+     * 下拉框选项
+     */
+    public static final String[] OPTIONS = {"优秀", "良好", "及格", "不及格"};
+
+    /**
+     * 生成数据
+     *
+     * @param dataType 数据类型
+     * @param rows     行数
+     * @param columns  列数
+     */
+    public static List<?> buildRecords(DataType dataType, int rows, int columns) {
+        if (dataType == DataType.BEAN) {
+            List<Record> records = new ArrayList<>(rows);
+            for (int i = 0; i < rows; i++) {
+                records.add(new Record(i));
+            }
+            return records;
+        }
+        List<Map<String, Object>> records = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            Map<String, Object> record = new HashMap<>(columns * 2);
+            for (int j = 0; j < columns; j++) {
+                switch (j % 4) {
+                    case 0:
+                        record.put("c" + j, i + j);
+                        break;
+                    case 1:
+                        record.put("c" + j, "name" + i);
+                        break;
+                    case 2:
+                        record.put("c" + j, i * 0.25);
+                        break;
+                    default:
+                        record.put("c" + j, OPTIONS[(i + j) % OPTIONS.length]);
+                }
+            }
+            records.add(record);
+        }
+        return records;
+    }
+
+    /**
+     * 生成表头json
+     *
+     * @param titleType 表头类型
+     * @param columns   列数
+     * @param combobox  是否给第4、8...列设置下拉框
+     */
+    public static String buildTitlesJson(TitleType titleType, int columns, boolean combobox) {
+        StringBuilder data = new StringBuilder("[");
+        for (int j = 0; j < columns; j++) {
+            if (j > 0) {
+                data.append(',');
+            }
+            data.append("{title:'列").append(j).append("',field:'c").append(j).append("',width:12");
+            if (combobox && j % 4 == 3) {
+                data.append(",options:['优秀','良好','及格','不及格']");
+            }
+            data.append('}');
+        }
+        data.append(']');
+        if (titleType == TitleType.FLAT) {
+            return "[" + data + "]";
+        }
+        StringBuilder group = new StringBuilder("[");
+        for (int j = 0; j < columns; j += 2) {
+            if (j > 0) {
+                group.append(',');
+            }
+            group.append("{title:'分组").append(j / 2).append("',colSpan:").append(Math.min(2, columns - j)).append('}');
+        }
+        group.append(']');
+        return "[" + group + "," + data + "]";
+    }
+
+    /**
+     * 创建工作簿
+     *
+     * @param mode                导出方式
+     * @param rowAccessWindowSize SXSSF内存中保留的行数
+     */
+    public static ExcelWorkBookExport buildWorkBook(ExportMode mode, int rowAccessWindowSize) {
+        switch (mode) {
+            case CSV:
+                return Export.buildCSVExportExcelWorkBook();
+            case SXSSF_GZIP:
+                SXSSFWorkbook workbook = new SXSSFWorkbook(rowAccessWindowSize);
+                workbook.setCompressTempFiles(true);
+                return Export.buildSXSSFExportExcelWorkBook(workbook);
+            default:
+                return Export.buildSXSSFExportExcelWorkBook(rowAccessWindowSize);
+        }
+    }
+
+    /**
+     * 写入数据
+     *
+     * @param workBook   工作簿
+     * @param titlesJson 表头json
+     * @param records    数据
+     * @param styled     是否通过格式化函数隔行加粗,用于衡量样式缓存
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> void writeRecords(ExcelWorkBookExport workBook, String titlesJson, List<T> records, boolean styled) throws ExcelException {
+        ExcelSheetExport sheet = workBook.createSheet().parseTitlesJson(titlesJson, true);
+        if (!styled) {
+            sheet.importData(records);
+            return;
+        }
+        SXSSFExcelSheetExport.FormatterCell<T> formatter = (value, record, cellHandler, field, rowCursor, index) -> {
+            cellHandler.setBoldWeight((index & 1) == 0);
+            return value;
+        };
+        sheet.importData(records, formatter);
+    }
+
+    /**
+     * 导出并释放临时文件
+     *
+     * @param workBook 工作簿
+     * @param outFile  输出文件
+     */
+    public static void export(ExcelWorkBookExport workBook, File outFile) throws IOException {
+        try {
+            workBook.export(outFile);
+        } finally {
+            dispose(workBook);
+        }
+    }
+
+    /**
+     * 释放临时文件
+     *
+     * @param workBook 工作簿
+     */
+    public static void dispose(ExcelWorkBookExport workBook) {
+        if (workBook instanceof SXSSFExcelWorkBookExport) {
+            ((SXSSFExcelWorkBookExport) workBook).dispose();
+        } else if (workBook instanceof CSVExcelWorkBookExport) {
+            ((CSVExcelWorkBookExport) workBook).dispose();
+        }
+    }
+}
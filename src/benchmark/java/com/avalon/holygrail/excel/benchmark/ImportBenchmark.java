@@ -0,0 +1,70 @@
+package com.avalon.holygrail.excel.benchmark;
+
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.TitleType;
+import com.avalon.holygrail.excel.benchmark.ImportBenchmarkSupport.ImportMode;
+import com.avalon.holygrail.excel.benchmark.ImportBenchmarkSupport.TargetType;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 导入JMH基准测试
+ * 每次调用完整读取一个文件,结果为单次读取耗时,行数/耗时即为每秒读取行数;
+ * 加上 -prof gc 可以得到每次读取的内存分配和GC耗时
+ * <p>
+ * mvn -Pbenchmark package
+ * java -jar target/holygrail-benchmarks.jar ImportBenchmark -p rows=100000 -p mode=XSSF,SAX -prof gc
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms1g", "-Xmx1g"})
+public class ImportBenchmark {
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    @Param({"10", "20"})
+    public int columns;
+
+    @Param({"XSSF", "SAX", "SAX_PARALLEL"})
+    public ImportMode mode;
+
+    @Param({"MAP", "LIST", "BEAN"})
+    public TargetType target;
+
+    @Param({"FLAT", "MERGED"})
+    public TitleType titleType;
+
+    protected String titlesJson;
+
+    protected File inFile;
+
+    protected ExecutorService executor;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        this.titlesJson = ExportBenchmarkSupport.buildTitlesJson(this.titleType, this.columns, false);
+        this.inFile = ImportBenchmarkSupport.buildFile(this.rows, this.columns, this.titleType);
+        this.executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.executor.shutdown();
+        this.inFile.delete();
+    }
+
+    /**
+     * @return 读取的行数
+     */
+    @Benchmark
+    public long read() throws Exception {
+        return ImportBenchmarkSupport.read(this.mode, this.target, this.titlesJson, this.inFile, this.executor);
+    }
+}
@@ -0,0 +1,133 @@
+package com.avalon.holygrail.excel.benchmark;
+
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.TitleType;
+import com.avalon.holygrail.excel.benchmark.ImportBenchmarkSupport.ImportMode;
+import com.avalon.holygrail.excel.benchmark.ImportBenchmarkSupport.TargetType;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 导入端到端基准测试
+ * 按参数组合生成文件并依次完整读取,输出每秒读取行数、峰值堆内存、GC耗时和次数
+ * <p>
+ * mvn -Pbenchmark test-compile exec:java -Dexec.mainClass=com.avalon.holygrail.excel.benchmark.ImportBenchmarkMain
+ * -Dexec.args="rows=200000 columns=20 modes=XSSF,SAX,SAX_PARALLEL targets=MAP,BEAN"
+ * <p>
+ * 参数(均可省略): rows 行数, columns 列数, modes 导入方式, targets 数据装载类型, titles 表头类型,
+ * threads SAX_PARALLEL线程数, repeat 每种组合重复次数(取最快一次)
+ */
+public class ImportBenchmarkMain {
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> params = new HashMap<>();
+        for (String arg : args) {
+            int index = arg.indexOf('=');
+            if (index > 0) {
+                params.put(arg.substring(0, index), arg.substring(index + 1));
+            }
+        }
+        int rows = Integer.parseInt(params.getOrDefault("rows", "100000"));
+        int columns = Integer.parseInt(params.getOrDefault("columns", "20"));
+        int repeat = Integer.parseInt(params.getOrDefault("repeat", "3"));
+        int threads = Integer.parseInt(params.getOrDefault("threads", String.valueOf(Runtime.getRuntime().availableProcessors())));
+        List<String> modes = ExportBenchmarkMain.split(params.getOrDefault("modes", "XSSF,SAX,SAX_PARALLEL"));
+        List<String> targets = ExportBenchmarkMain.split(params.getOrDefault("targets", "MAP,LIST,BEAN"));
+        List<String> titles = ExportBenchmarkMain.split(params.getOrDefault("titles", "FLAT,MERGED"));
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            System.out.println("mode\ttarget\ttitle\trows/s\tpeakHeapMB\tgcMs\tgcCount\tfileKB");
+            for (String titleName : titles) {
+                TitleType titleType = TitleType.valueOf(titleName);
+                String titlesJson = ExportBenchmarkSupport.buildTitlesJson(titleType, columns, false);
+                File inFile = ImportBenchmarkSupport.buildFile(rows, columns, titleType);
+                try {
+                    for (String modeName : modes) {
+                        for (String targetName : targets) {
+                            ImportMode mode = ImportMode.valueOf(modeName);
+                            TargetType target = TargetType.valueOf(targetName);
+                            Result best = null;
+                            for (int i = 0; i < repeat; i++) {
+                                Result result = run(mode, target, titlesJson, inFile, executor);
+                                if (result.rows != rows) {
+                                    throw new IllegalStateException("读取行数" + result.rows + "与生成行数" + rows + "不一致");
+                                }
+                                if (best == null || result.nanos < best.nanos) {
+                                    best = result;
+                                }
+                            }
+                            System.out.printf("%s\t%s\t%s\t%.0f\t%.1f\t%d\t%d\t%d%n",
+                                    mode, target, titleName, rows * 1e9 / best.nanos, best.peakHeap / 1048576.0,
+                                    best.gcMillis, best.gcCount, inFile.length() / 1024);
+                        }
+                    }
+                } finally {
+                    inFile.delete();
+                }
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 单次读取结果
+     */
+    protected static class Result {
+
+        long rows;//读取行数
+
+        long nanos;//读取耗时
+
+        long peakHeap;//峰值堆内存
+
+        long gcMillis;//GC耗时
+
+        long gcCount;//GC次数
+    }
+
+    protected static Result run(ImportMode mode, TargetType target, String titlesJson, File inFile, ExecutorService executor) throws Exception {
+        List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                heapPools.add(pool);
+            }
+        }
+        List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+        System.gc();
+        long baseHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            pool.resetPeakUsage();
+            baseHeap += pool.getUsage().getUsed();
+        }
+        long gcMillis = 0;
+        long gcCount = 0;
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcMillis -= collector.getCollectionTime();
+            gcCount -= collector.getCollectionCount();
+        }
+        Result result = new Result();
+        long start = System.nanoTime();
+        result.rows = ImportBenchmarkSupport.read(mode, target, titlesJson, inFile, executor);
+        result.nanos = System.nanoTime() - start;
+        for (GarbageCollectorMXBean collector : collectors) {
+            gcMillis += collector.getCollectionTime();
+            gcCount += collector.getCollectionCount();
+        }
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : heapPools) {
+            peakHeap += pool.getPeakUsage().getUsed();
+        }
+        result.peakHeap = Math.max(0, peakHeap - baseHeap);
+        result.gcMillis = gcMillis;
+        result.gcCount = gcCount;
+        return result;
+    }
+}
@@ -0,0 +1,311 @@
+package com.avalon.holygrail.excel.benchmark;
+
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.DataType;
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.ExportMode;
+import com.avalon.holygrail.excel.benchmark.ExportBenchmarkSupport.TitleType;
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.norm.ExcelSheetImport;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookImport;
+import com.avalon.holygrail.util.Import;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.concurrent.Executor;
+
+/**
+ * 导入基准测试公共部分
+ * 用导出基准测试的对象数据生成行数×列数的xlsx文件(整数、字符串、小数、长整数、布尔列交替,可带合并表头),
+ * 并按导入方式读取为Map、List或对象
+ */
+public class ImportBenchmarkSupport {
+
+    /**
+     * 导入方式
+     */
+    public enum ImportMode {
+        /**
+         * XSSFWorkbook,整个工作簿解析到内存
+         */
+        XSSF,
+        /**
+         * XSSFReader流式解析
+         */
+        SAX,
+        /**
+         * XSSFReader流式解析,行数据在线程池中转换
+         */
+        SAX_PARALLEL
+    }
+
+    /**
+     * 数据装载类型
+     */
+    public enum TargetType {
+        MAP, LIST, BEAN
+    }
+
+    /**
+     * 导入数据对象,属性与ExportBenchmarkSupport.Record一致
+     */
+    public static class Record {
+        private int c0;
+        private String c1;
+        private double c2;
+        private long c3;
+        private String c4;
+        private boolean c5;
+        private int c6;
+        private String c7;
+        private double c8;
+        private long c9;
+        private String c10;
+        private boolean c11;
+        private int c12;
+        private String c13;
+        private double c14;
+        private long c15;
+        private String c16;
+        private boolean c17;
+        private int c18;
+        private String c19;
+
+        public int getC0() {
+            return c0;
+        }
+
+        public void setC0(int c0) {
+            this.c0 = c0;
+        }
+
+        public String getC1() {
+            return c1;
+        }
+
+        public void setC1(String c1) {
+            this.c1 = c1;
+        }
+
+        public double getC2() {
+            return c2;
+        }
+
+        public void setC2(double c2) {
+            this.c2 = c2;
+        }
+
+        public long getC3() {
+            return c3;
+        }
+
+        public void setC3(long c3) {
+            this.c3 = c3;
+        }
+
+        public String getC4() {
+            return c4;
+        }
+
+        public void setC4(String c4) {
+            this.c4 = c4;
+        }
+
+        public boolean isC5() {
+            return c5;
+        }
+
+        public void setC5(boolean c5) {
+            this.c5 = c5;
+        }
+
+        public int getC6() {
+            return c6;
+        }
+
+        public void setC6(int c6) {
+            this.c6 = c6;
+        }
+
+        public String getC7() {
+            return c7;
+        }
+
+        public void setC7(String c7) {
+            this.c7 = c7;
+        }
+
+        public double getC8() {
+            return c8;
+        }
+
+        public void setC8(double c8) {
+            this.c8 = c8;
+        }
+
+        public long getC9() {
+            return c9;
+        }
+
+        public void setC9(long c9) {
+            this.c9 = c9;
+        }
+
+        public String getC10() {
+            return c10;
+        }
+
+        public void setC10(String c10) {
+            this.c10 = c10;
+        }
+
+        public boolean isC11() {
+            return c11;
+        }
+
+        public void setC11(boolean c11) {
+            this.c11 = c11;
+        }
+
+        public int getC12() {
+            return c12;
+        }
+
+        public void setC12(int c12) {
+            this.c12 = c12;
+        }
+
+        public String getC13() {
+            return c13;
+        }
+
+        public void setC13(String c13) {
+            this.c13 = c13;
+        }
+
+        public double getC14() {
+            return c14;
+        }
+
+        public void setC14(double c14) {
+            this.c14 = c14;
+        }
+
+        public long getC15() {
+            return c15;
+        }
+
+        public void setC15(long c15) {
+            this.c15 = c15;
+        }
+
+        public String getC16() {
+            return c16;
+        }
+
+        public void setC16(String c16) {
+            this.c16 = c16;
+        }
+
+        public boolean isC17() {
+            return c17;
+        }
+
+        public void setC17(boolean c17) {
+            this.c17 = c17;
+        }
+
+        public int getC18() {
+            return c18;
+        }
+
+        public void setC18(int c18) {
+            this.c18 = c18;
+        }
+
+        public String getC19() {
+            return c19;
+        }
+
+        public void setC19(String c19) {
+            this.c19 = c19;
+        }
+    }
+
+    /**
+     * 生成xlsx文件,列数超过MAX_BEAN_COLUMNS的部分为空单元格
+     *
+     * @param rows      行数
+     * @param columns   列数
+     * @param titleType 表头类型
+     * @return 临时文件, 由调用方删除
+     */
+    public static File buildFile(int rows, int columns, TitleType titleType) throws IOException, ExcelException {
+        File file = File.createTempFile("import-benchmark", ".xlsx");
+        ExcelWorkBookExport workBook = ExportBenchmarkSupport.buildWorkBook(ExportMode.SXSSF, 1000);
+        ExportBenchmarkSupport.writeRecords(workBook, ExportBenchmarkSupport.buildTitlesJson(titleType, columns, false),
+                ExportBenchmarkSupport.buildRecords(DataType.BEAN, rows, columns), false);
+        ExportBenchmarkSupport.export(workBook, file);
+        return file;
+    }
+
+    /**
+     * 创建导入工作簿
+     *
+     * @param mode 导入方式
+     */
+    public static ExcelWorkBookImport buildWorkBook(ImportMode mode) {
+        return mode == ImportMode.XSSF ? Import.buildXSSFImportExcelWorkBook() : Import.buildSAXImportExcelWorkBook();
+    }
+
+    /**
+     * 数据装载类型对应的类
+     *
+     * @param target 数据装载类型
+     */
+    public static Class<?> getTargetClass(TargetType target) {
+        switch (target) {
+            case LIST:
+                return ArrayList.class;
+            case BEAN:
+                return Record.class;
+            default:
+                return HashMap.class;
+        }
+    }
+
+    /**
+     * 完整读取一次文件,数据不保留
+     *
+     * @param mode       导入方式
+     * @param target     数据装载类型
+     * @param titlesJson 表头json
+     * @param file       文件
+     * @param executor   线程池,只在SAX_PARALLEL时使用
+     * @return 读取的行数
+     */
+    public static long read(ImportMode mode, TargetType target, String titlesJson, File file, Executor executor) throws Exception {
+        ExcelWorkBookImport workBook = buildWorkBook(mode);
+        try {
+            ExcelSheetImport sheet = workBook.parseFile(file).getSheet(0);
+            Class<?> clazz = getTargetClass(target);
+            sheet.parseTitlesJson(titlesJson, clazz);
+            long[] count = {0};
+            if (mode == ImportMode.SAX_PARALLEL) {
+                sheet.parallelStreamRows(clazz, executor, (record, rowNum, index) -> {
+                    count[0]++;
+                    return true;
+                });
+            } else {
+                sheet.streamRows(clazz, (record, rowNum, index) -> {
+                    count[0]++;
+                    return true;
+                });
+            }
+            return count[0];
+        } finally {
+            workBook.dispose();
+        }
+    }
+}
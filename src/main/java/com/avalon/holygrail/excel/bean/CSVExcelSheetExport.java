@@ -0,0 +1,437 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.exception.ExportException;
+import com.avalon.holygrail.excel.model.ExcelTitleCellAbstract;
+import com.avalon.holygrail.excel.model.TitleLayout;
+import com.avalon.holygrail.excel.norm.ExcelSheetExport;
+import com.avalon.holygrail.excel.norm.ExcelWorkBook;
+import com.avalon.holygrail.excel.norm.MergeCell;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * CSV/TSV SheetExportHandler
+ * 每个与数据相关的表头对应一列;多行表头压平为一行,
+ * 列名为该列上方所有表头的标题按行顺序用"/"连接,例如"优秀率/小于"
+ */
+public class CSVExcelSheetExport extends CSVExcelWorkBookExport implements ExcelSheetExport {
+
+    /**
+     * 多行表头压平时标题之间的连接符
+     */
+    public static final String TITLE_SEPARATOR = "/";
+
+    protected String sheetName;//数据表名称
+
+    protected CSVExcelWorkBookExport ownerWorkBook;//所属工作簿对象
+
+    protected File file;//数据临时文件,第一次写入时创建,导出或释放后为null
+
+    protected CSVWriter writer;//数据写入器,第一次写入时创建
+
+    protected List<MergeCell> titleMergeCells;//表头合并单元格信息
+
+    protected LinkedList<MergeCell> dataTitleMergeCells;//与数据相关的表头信息
+
+    protected SXSSFMergeCell[] prototypes;//每列数据单元格原型
+
+    protected SXSSFMergeCell[] cells;//每列复用的数据单元格,提供给格式化函数
+
+    protected RecordFieldReader fieldReader;//字段读取器
+
+    protected int rowCursor = -1;//行游标,记录已经写入的行
+
+    protected int colCursor = -1;//列游标,CSV中不使用
+
+    protected int totalDataSize;//数据记录总数
+
+    protected ExcelAggregateCollector aggregates;//列汇总,没有设置为null
+
+    protected boolean finished;//是否已经结束
+
+    public CSVExcelSheetExport(String sheetName, CSVExcelWorkBookExport ownerWorkBook) throws ExportException {
+        super(ownerWorkBook.delimiter, ownerWorkBook.charset, ownerWorkBook.bom);
+        this.sheetName = sheetName;
+        this.ownerWorkBook = ownerWorkBook;
+    }
+
+    /**
+     * 获取数据写入器,第一次调用时创建;工作簿指定了输出流时直接写入该输出流,否则写入临时文件
+     */
+    protected CSVWriter getWriter() throws ExportException {
+        if (this.writer != null) {
+            return this.writer;
+        }
+        if (this.finished) {
+            throw new ExportException("CSVExcelSheetExport 已经导出,不能继续写入数据");
+        }
+        if (this.ownerWorkBook.target != null) {
+            this.writer = new CSVWriter(Channels.newChannel(this.ownerWorkBook.target), this.delimiter, this.charset);
+        } else {
+            try {
+                this.file = File.createTempFile("sheet", "." + this.ownerWorkBook.getSuffix());
+                this.writer = new CSVWriter(FileChannel.open(this.file.toPath(), StandardOpenOption.WRITE), this.delimiter, this.charset);
+            } catch (IOException e) {
+                if (this.file != null) {
+                    this.file.delete();
+                    this.file = null;
+                }
+                throw new ExportException("创建CSV临时文件失败", e);
+            }
+        }
+        if (this.bom) {
+            this.writer.writeBom();
+        }
+        return this.writer;
+    }
+
+    /**
+     * 取出已经写完的临时文件,之后由调用方负责删除
+     */
+    protected File takeFile() throws IOException {
+        File file = this.file;
+        if (file == null) {
+            throw new IOException("CSV已经导出或已经释放,临时文件已删除");
+        }
+        this.file = null;
+        return file;
+    }
+
+    /**
+     * 获取压平后的列名
+     *
+     * @param dataTitle 数据表头
+     */
+    protected String getFlatTitle(MergeCell dataTitle) {
+        StringBuilder sb = new StringBuilder();
+        for (MergeCell title : this.titleMergeCells) {
+            boolean ancestor = title.getEndRowNum() < dataTitle.getStartRowNum()
+                    && title.getStartColNum() <= dataTitle.getStartColNum()
+                    && title.getEndColNum() >= dataTitle.getStartColNum();
+            if (title != dataTitle && !ancestor) {
+                continue;
+            }
+            Object value = ((SXSSFMergeCell) title).getValue();
+            if (value == null || "".equals(value)) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(TITLE_SEPARATOR);
+            }
+            sb.append(value);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 写入表头行
+     */
+    protected void parseExportTitles() throws ExcelException {
+        CSVWriter writer = this.getWriter();
+        for (MergeCell dataTitle : this.dataTitleMergeCells) {
+            writer.writeField(this.getFlatTitle(dataTitle));
+        }
+        this.endLine();
+    }
+
+    protected void endLine() throws ExportException {
+        try {
+            this.getWriter().endLine();
+        } catch (IOException e) {
+            throw new ExportException("写入CSV数据失败", e);
+        }
+        this.rowCursor++;
+    }
+
+    /**
+     * 写入一条数据
+     *
+     * @param record    当前行数据
+     * @param index     当前数据在数据集合中的下标
+     * @param formatter 格式化函数,为null时不格式化
+     */
+    protected <T> void parseRecord(T record, int index, SXSSFExcelSheetExport.FormatterCell<T> formatter) throws ExcelException {
+        RecordFieldReader fieldReader = this.fieldReader;
+        if (fieldReader == null) {
+            throw new ExportException("CSVExcelSheetExport 请先设置表头");
+        }
+        if (this.finished) {
+            throw new ExportException("CSVExcelSheetExport 已经导出,不能继续写入数据");
+        }
+        CSVWriter writer = this.getWriter();
+        fieldReader.prepare(record);
+        int startRow = this.rowCursor + 2;
+        for (int i = 0; i < fieldReader.size(); i++) {
+            Object value = fieldReader.read(record, i);
+            if (value == RecordFieldReader.ABSENT) {
+                value = formatter == null ? null : "";
+            }
+            if (formatter != null) {
+                SXSSFMergeCell mergeCell = this.cells[i];
+                mergeCell.reset(this.prototypes[i], startRow);
+                //格式化
+                value = formatter.apply(value, record, mergeCell, mergeCell.getField(), this.rowCursor, index);
+            }
+            writer.writeField(value);
+            if (this.aggregates != null) {
+                this.aggregates.accept(i, value);
+            }
+        }
+        this.endLine();
+        if (this.aggregates != null) {
+            this.aggregates.row(startRow - 1, this.rowCursor);
+        }
+    }
+
+    /**
+     * 在数据之后写入汇总行,每种汇总类型一行,第一列不汇总时写入汇总类型标题;CSV不支持公式,始终写入计算好的值
+     */
+    protected void writeAggregates() throws ExcelException {
+        ExcelAggregateCollector aggregates = this.aggregates;
+        if (aggregates == null) {
+            return;
+        }
+        CSVWriter writer = this.getWriter();
+        for (int footer = 0; footer < aggregates.getFooterSize(); footer++) {
+            for (int i = 0; i < this.fieldReader.size(); i++) {
+                if (aggregates.getAggregate(footer, i) != null) {
+                    writer.writeField(aggregates.getValue(footer, i));
+                } else {
+                    writer.writeField(i == 0 ? aggregates.getType(footer).label : null);
+                }
+            }
+            this.endLine();
+        }
+    }
+
+    /**
+     * 解析数据
+     *
+     * @param records   数据集合
+     * @param formatter 格式化函数,为null时不格式化
+     */
+    protected <T> void parseExportData(Collection<T> records, SXSSFExcelSheetExport.FormatterCell<T> formatter) throws ExcelException {
+        this.totalDataSize += records.size();
+        int index = 0;
+        for (T record : records) {
+            this.ownerWorkBook.checkCancelled();
+            this.parseRecord(record, index, formatter);
+            this.ownerWorkBook.writtenDataSize++;
+            index++;
+        }
+    }
+
+    /**
+     * 结束Sheet,写入剩余数据并关闭临时文件;直接写入输出流时只刷新,不关闭输出流
+     */
+    protected void finishSheet() throws ExcelException {
+        if (this.finished) {
+            return;
+        }
+        CSVWriter writer = this.getWriter();
+        this.finished = true;
+        this.writeAggregates();
+        try {
+            if (this.ownerWorkBook.target != null) {
+                writer.flush();
+            } else {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new ExportException("写入CSV数据失败", e);
+        }
+    }
+
+    /**
+     * 关闭并删除还没有导出的临时文件,不再写入剩余数据和汇总行;直接写入的输出流由调用方关闭
+     */
+    @Override
+    public void dispose() {
+        this.finished = true;
+        if (this.writer != null && this.ownerWorkBook.target == null) {
+            try {
+                this.writer.discard();
+            } catch (IOException e) {
+                //临时文件随后删除,关闭失败不影响释放
+            }
+        }
+        if (this.file != null) {
+            this.file.delete();
+            this.file = null;
+        }
+    }
+
+    @Override
+    public ExcelSheetExport setRowCursor(Function<Integer, Integer> handler) {
+        this.rowCursor = handler.apply(this.rowCursor);
+        return this;
+    }
+
+    @Override
+    public ExcelSheetExport setColCursor(Function<Integer, Integer> handler) {
+        this.colCursor = handler.apply(this.colCursor);
+        return this;
+    }
+
+    @Override
+    public CSVExcelWorkBookExport getOwnerWorkBook() {
+        return this.ownerWorkBook;
+    }
+
+    @Override
+    public ExcelSheetExport parseTitlesJson(String titlesJson, boolean exportTitles) throws ExcelException {
+        return setTitles(this.getTitleLayout(titlesJson), exportTitles);
+    }
+
+    @Override
+    public ExcelSheetExport parseTitlesJson(InputStream inputStream, boolean exportTitles) throws IOException, ExcelException {
+        return setTitles(this.getTitleLayout(this.readTitlesJson(inputStream)), exportTitles);
+    }
+
+    @Override
+    public ExcelSheetExport parseTitlesJson(File file, boolean exportTitles) throws IOException, ExcelException {
+        return setTitles(this.getTitleLayout(file), exportTitles);
+    }
+
+    @Override
+    public ExcelSheetExport setTitles(ExcelTitleCellAbstract[][] excelTitles, boolean exportTitles) throws ExcelException {
+        if (!(excelTitles instanceof SXSSFExcelTitle[][])) {
+            throw new ExportException("CSVExcelSheetExport setTitles excelTitles类型应该为SXSSFExcelTitle[][]");
+        }
+        return setTitles(this.compileTitleLayout(excelTitles), exportTitles);
+    }
+
+    @Override
+    public ExcelSheetExport setTitles(TitleLayout titleLayout, boolean exportTitles) throws ExcelException {
+        this.titleMergeCells = titleLayout.buildTitleMergeCells(this);
+        this.dataTitleMergeCells = titleLayout.getDataTitleMergeCells(this.titleMergeCells);
+        int size = this.dataTitleMergeCells.size();
+        this.prototypes = new SXSSFMergeCell[size];
+        this.cells = new SXSSFMergeCell[size];
+        String[] fields = new String[size];
+        int i = 0;
+        for (MergeCell mergeCell : this.dataTitleMergeCells) {
+            SXSSFMergeCell tMergeCell = (SXSSFMergeCell) mergeCell;
+            SXSSFMergeCell prototype = new SXSSFMergeCell(0, tMergeCell.getStartColNum(), 1, tMergeCell.getColSpan());
+            prototype.setField(tMergeCell.getField());
+            prototype.setWriteEmpty(tMergeCell.isWriteEmpty());
+            this.prototypes[i] = prototype;
+            this.cells[i] = new SXSSFMergeCell(0, tMergeCell.getStartColNum(), 1, tMergeCell.getColSpan());
+            fields[i] = tMergeCell.getField();
+            i++;
+        }
+        this.fieldReader = new RecordFieldReader(fields);
+        if (exportTitles) {
+            parseExportTitles();
+        }
+        return this;
+    }
+
+    @Override
+    public ExcelSheetExport setColumnFields(List<String> fields) throws ExcelException {
+        SXSSFExcelTitle[][] excelTitles = new SXSSFExcelTitle[1][fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            excelTitles[0][i] = new SXSSFExcelTitle(fields.get(i));
+        }
+        return setTitles(excelTitles, false);
+    }
+
+    /**
+     * CSV不支持图片,抛出IOException
+     */
+    @Override
+    public ExcelSheetExport insertPicture(InputStream inputStream, ExcelWorkBook.PictureType pictureType, int dx1, int dy1, int dx2, int dy2, int col1, int row1, int col2, int row2) throws IOException {
+        throw new IOException("CSV不支持插入图片");
+    }
+
+    /**
+     * CSV不支持图片,抛出IOException
+     */
+    @Override
+    public ExcelSheetExport insertPicture(byte[] data, ExcelWorkBook.PictureType pictureType, int dx1, int dy1, int dx2, int dy2, int col1, int row1, int col2, int row2) throws IOException {
+        throw new IOException("CSV不支持插入图片");
+    }
+
+    /**
+     * CSV没有列宽,忽略
+     */
+    @Override
+    public void setColumnWidth(int columnIndex, int width) {
+    }
+
+    @Override
+    public <T> ExcelSheetExport importData(Collection<T> records) throws ExcelException {
+        this.parseExportData(records, null);
+        return this;
+    }
+
+    @Override
+    public <T> ExcelSheetExport importData(Collection<T> records, SXSSFExcelSheetExport.FormatterCell<T> formatter) throws ExcelException {
+        this.parseExportData(records, formatter);
+        return this;
+    }
+
+    @Override
+    public void export(File outFile) throws IOException {
+        this.ownerWorkBook.export(outFile);
+    }
+
+    @Override
+    public void export(String outPath) throws IOException {
+        super.export(outPath);
+    }
+
+    @Override
+    public void export(OutputStream outputStream) throws IOException {
+        this.ownerWorkBook.export(outputStream);
+    }
+
+    @Override
+    public ExcelSheetExport setAggregates(List<ExcelAggregate> aggregates) throws ExcelException {
+        if (this.fieldReader == null) {
+            throw new ExportException("CSVExcelSheetExport 请先设置表头");
+        }
+        this.aggregates = new ExcelAggregateCollector(aggregates, this.fieldReader.getFields());
+        return this;
+    }
+
+    /**
+     * CSV没有列宽,忽略
+     */
+    @Override
+    public ExcelSheetExport setAutoColumnWidth(boolean autoColumnWidth, int maxWidth) {
+        return this;
+    }
+
+    @Override
+    public int getTotalDataSize() {
+        return this.totalDataSize;
+    }
+
+    @Override
+    public int getWrittenDataSize() {
+        return this.ownerWorkBook.getWrittenDataSize();
+    }
+
+    @Override
+    public void cancel() {
+        this.ownerWorkBook.cancel();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.ownerWorkBook.isCancelled();
+    }
+
+}
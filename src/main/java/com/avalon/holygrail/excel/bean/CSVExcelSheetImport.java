@@ -0,0 +1,155 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.exception.ImportException;
+import com.avalon.holygrail.excel.model.ExcelSheetImportAbstract;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookImport;
+import com.avalon.holygrail.excel.norm.MergeCell;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * CSV/TSV 导入Sheet
+ * 表头在文件中只占一行,第n列对应第n个与数据相关的表头;
+ * 字段值均为字符串,装载对象时按setter参数类型转换
+ */
+public class CSVExcelSheetImport extends ExcelSheetImportAbstract {
+
+    private static final Logger log = LoggerFactory.getLogger(CSVExcelSheetImport.class);
+
+    protected File file;//数据文件,为null时从channel读取
+
+    protected FileChannel channel;//已经打开的数据文件通道,由所属工作簿关闭
+
+    protected CSVExcelWorkBookImport ownerWorkBook;//所属工作簿对象
+
+    protected CSVReader reader;
+
+    protected int physicalNumberOfRows = -1;//物理行数,完整读取一次后记录
+
+    protected List<MergeCell> dataTitleSource;//dataTitles对应的数据表头集合
+
+    protected MergeCell[] dataTitles;//列下标 => 数据表头
+
+    public CSVExcelSheetImport(File file, CSVExcelWorkBookImport ownerWorkBook) {
+        this.file = file;
+        this.ownerWorkBook = ownerWorkBook;
+        this.reader = new CSVReader(ownerWorkBook.delimiter, ownerWorkBook.charset);
+    }
+
+    public CSVExcelSheetImport(FileChannel channel, CSVExcelWorkBookImport ownerWorkBook) {
+        this.channel = channel;
+        this.ownerWorkBook = ownerWorkBook;
+        this.reader = new CSVReader(ownerWorkBook.delimiter, ownerWorkBook.charset);
+    }
+
+    /**
+     * 从文件或已经打开的文件通道读取记录
+     */
+    protected int read(int startRowIndex, CSVReader.RowHandler handler) throws IOException, ExcelException {
+        if (this.channel != null) {
+            return this.reader.read(this.channel, startRowIndex, handler);
+        }
+        return this.reader.read(this.file, startRowIndex, handler);
+    }
+
+    /**
+     * 读取到文件末尾时同时记录物理行数,之后获取行数不再解析
+     */
+    @Override
+    protected void readSheetRows(RowReceiver receiver) throws ExcelException {
+        boolean[] stopped = {false};
+        try {
+            int rowCount = this.read(this.rowCursor + 1, new CSVReader.RowHandler() {
+                @Override
+                public void startRow(int rowIndex) throws ExcelException {
+                    receiver.startRow(rowIndex);
+                }
+
+                @Override
+                public void field(int columnIndex, String value) throws ExcelException {
+                    receiver.cell(columnIndex, value);
+                }
+
+                @Override
+                public boolean endRow() throws ExcelException {
+                    if (receiver.endRow()) {
+                        return true;
+                    }
+                    stopped[0] = true;
+                    return false;
+                }
+            });
+            if (!stopped[0]) {
+                this.physicalNumberOfRows = rowCount;
+            }
+        } catch (IOException e) {
+            throw new ImportException("读取CSV文件失败", e);
+        }
+    }
+
+    /**
+     * 第n列对应第n个数据表头,自动识别表头后按识别结果
+     */
+    @Override
+    protected MergeCell getDataTitle(int columnIndex) {
+        if (this.detectedTitles != null) {
+            return super.getDataTitle(columnIndex);
+        }
+        if (this.dataTitleSource != this.dataTitleMergeCells) {
+            this.dataTitles = this.dataTitleMergeCells.toArray(new MergeCell[0]);
+            this.dataTitleSource = this.dataTitleMergeCells;
+        }
+        return columnIndex < this.dataTitles.length ? this.dataTitles[columnIndex] : null;
+    }
+
+    @Override
+    protected int getDataTitleColumnSize() {
+        return this.detectedTitles != null ? this.detectedTitles.length : this.dataTitleMergeCells.size();
+    }
+
+    /**
+     * 多行表头在CSV中压平为一行
+     */
+    @Override
+    protected void parseExportTitles(Collection<MergeCell> titles) throws ExcelException {
+        setRowCursor(idx -> Math.max(idx, 0));
+    }
+
+    /**
+     * 多行表头在CSV中压平为一行
+     */
+    @Override
+    protected void parseExportTitles(Collection<MergeCell> titles, int rowSpan) throws ExcelException {
+        setRowCursor(idx -> Math.max(idx, rowSpan - 1));
+    }
+
+    @Override
+    public ExcelWorkBookImport getOwnerWorkBook() {
+        return this.ownerWorkBook;
+    }
+
+    /**
+     * 已经完整读取过时直接返回记录的行数,否则解析一次只统计行数;
+     * 解析失败时返回0且不记录,同样的错误在读取数据时以ImportException抛出
+     */
+    @Override
+    public int getPhysicalNumberOfRows() {
+        if (this.physicalNumberOfRows < 0) {
+            try {
+                this.physicalNumberOfRows = this.read(Integer.MAX_VALUE, null);
+            } catch (IOException | ExcelException e) {
+                log.warn("统计CSV行数失败,返回0", e);
+                return 0;
+            }
+        }
+        return this.physicalNumberOfRows;
+    }
+
+}
@@ -0,0 +1,214 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.exception.ExportException;
+import com.avalon.holygrail.excel.model.SXSSFExcelParserAbstract;
+import com.avalon.holygrail.excel.norm.ExcelSheetExport;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * CSV/TSV 导出工作簿
+ * 表头沿用Excel表头json;创建时指定了输出流则数据直接写入该输出流,否则先写入临时文件,导出时移动或复制到目标后删除;
+ * 一个CSV文件只有一个Sheet,工作簿只能创建一个Sheet,多个Sheet需要分别创建工作簿
+ */
+public class CSVExcelWorkBookExport extends SXSSFExcelParserAbstract implements ExcelWorkBookExport {
+
+    /**
+     * 逗号分隔
+     */
+    public static final char CSV_DELIMITER = ',';
+
+    /**
+     * 制表符分隔
+     */
+    public static final char TSV_DELIMITER = '\t';
+
+    protected char delimiter;//分隔符
+
+    protected Charset charset;//字符集
+
+    protected boolean bom;//是否写入字节顺序标记,Excel打开UTF-8文件需要
+
+    protected OutputStream target;//数据直接写入的输出流,为null时先写入临时文件
+
+    protected ArrayList<CSVExcelSheetExport> sheets = new ArrayList<>();
+
+    protected volatile int writtenDataSize;//已经写入的数据总数,只由写入线程修改
+
+    protected volatile boolean cancelled;//是否已经取消导出
+
+    public CSVExcelWorkBookExport() {
+        this(CSV_DELIMITER, StandardCharsets.UTF_8);
+    }
+
+    public CSVExcelWorkBookExport(char delimiter, Charset charset) {
+        this(delimiter, charset, StandardCharsets.UTF_8.equals(charset));
+    }
+
+    public CSVExcelWorkBookExport(char delimiter, Charset charset, boolean bom) {
+        this.delimiter = delimiter;
+        this.charset = charset;
+        this.bom = bom;
+    }
+
+    /**
+     * 数据直接写入输出流,不使用临时文件;导出时只写入剩余数据并刷新,不关闭输出流
+     *
+     * @param target    输出流
+     * @param delimiter 分隔符
+     * @param charset   字符集
+     */
+    public CSVExcelWorkBookExport(OutputStream target, char delimiter, Charset charset) {
+        this(delimiter, charset);
+        this.target = target;
+    }
+
+    /**
+     * 文件后缀
+     */
+    public String getSuffix() {
+        return this.delimiter == TSV_DELIMITER ? "tsv" : "csv";
+    }
+
+    @Override
+    public ExcelSheetExport createSheet() throws ExportException {
+        return this.createSheet("sheet" + sheets.size());
+    }
+
+    @Override
+    public ExcelSheetExport createSheet(String sheetName) throws ExportException {
+        if (!this.sheets.isEmpty()) {
+            throw new ExportException("CSV只能包含一个Sheet,多个Sheet请分别创建工作簿");
+        }
+        CSVExcelSheetExport sheet = new CSVExcelSheetExport(sheetName, this);
+        this.sheets.add(sheet);
+        return sheet;
+    }
+
+    @Override
+    public ExcelSheetExport getSheet(int index) {
+        return this.sheets.get(index);
+    }
+
+    @Override
+    public int getSheetSize() {
+        return this.sheets.size();
+    }
+
+    @Override
+    public int getWrittenDataSize() {
+        return this.writtenDataSize;
+    }
+
+    @Override
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * 检查导出是否已经被取消或当前线程已经被中断
+     */
+    protected void checkCancelled() throws ExportException {
+        if (this.cancelled || Thread.currentThread().isInterrupted()) {
+            throw new ExportException("导出已取消");
+        }
+    }
+
+    /**
+     * 结束Sheet
+     *
+     * @return 唯一的Sheet
+     */
+    protected CSVExcelSheetExport finishOnlySheet() throws IOException {
+        if (this.cancelled) {
+            throw new IOException("导出已取消");
+        }
+        if (this.sheets.isEmpty()) {
+            throw new IOException("没有可以导出的Sheet,请先调用createSheet");
+        }
+        CSVExcelSheetExport sheet = this.sheets.get(0);
+        try {
+            sheet.finishSheet();
+        } catch (ExcelException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        return sheet;
+    }
+
+    /**
+     * 将临时文件移动到目标文件,同一文件系统内只是改名,不再复制数据
+     */
+    @Override
+    public void export(File outFile) throws IOException {
+        if (this.target != null) {
+            throw new IOException("数据已经直接写入创建工作簿时指定的输出流,不能再导出到文件");
+        }
+        File file = this.finishOnlySheet().takeFile();
+        try {
+            Files.move(file.toPath(), outFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+    }
+
+    /**
+     * 将临时文件写入输出流后删除;直接写入输出流时只结束Sheet并刷新
+     */
+    @Override
+    public void export(OutputStream outputStream) throws IOException {
+        if (this.target != null) {
+            if (outputStream != this.target) {
+                throw new IOException("数据已经直接写入创建工作簿时指定的输出流,不能再导出到其它输出流");
+            }
+            this.finishOnlySheet();
+            outputStream.flush();
+            return;
+        }
+        File file = this.finishOnlySheet().takeFile();
+        try {
+            transfer(file, outputStream);
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * 将文件内容写入输出流
+     */
+    protected static void transfer(File file, OutputStream outputStream) throws IOException {
+        try (FileChannel in = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            while (in.read(buffer) >= 0) {
+                outputStream.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+    }
+
+    /**
+     * 删除所有Sheet的临时文件
+     */
+    @Override
+    public void dispose() {
+        for (CSVExcelSheetExport sheet : this.sheets) {
+            sheet.dispose();
+        }
+    }
+
+}
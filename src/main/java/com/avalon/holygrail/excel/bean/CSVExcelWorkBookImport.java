@@ -0,0 +1,115 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.model.XSSFExcelParserAbstract;
+import com.avalon.holygrail.excel.norm.ExcelSheetImport;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookImport;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CSV/TSV 导入工作簿
+ * 文件只有一个Sheet,表头沿用Excel表头json,每个与数据相关的表头按顺序对应一列
+ */
+public class CSVExcelWorkBookImport extends XSSFExcelParserAbstract implements ExcelWorkBookImport {
+
+    protected char delimiter;//分隔符
+
+    protected Charset charset;//字符集
+
+    protected File tempFile;//从输入流复制且打开后没能立即删除的临时文件
+
+    protected FileInputStream tempInput;//从输入流复制的临时文件的输入流,释放时关闭
+
+    protected CSVExcelSheetImport sheet;
+
+    public CSVExcelWorkBookImport() {
+        this(CSVExcelWorkBookExport.CSV_DELIMITER, StandardCharsets.UTF_8);
+    }
+
+    public CSVExcelWorkBookImport(char delimiter, Charset charset) {
+        this.delimiter = delimiter;
+        this.charset = charset;
+    }
+
+    /**
+     * 输入流先复制到临时文件,读取时通过文件通道分块解析;
+     * 临时文件打开后立即删除,系统不允许删除已打开的文件时在释放或退出时删除
+     */
+    @Override
+    public ExcelWorkBookImport parseFile(InputStream inputStream) throws IOException {
+        this.dispose();
+        File file = File.createTempFile("import", ".csv");
+        FileInputStream tempInput;
+        try (ReadableByteChannel in = Channels.newChannel(inputStream);
+             FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (long count; (count = out.transferFrom(in, position, 64 * 1024)) > 0; ) {
+                position += count;
+            }
+            //FileInputStream没有关闭时随垃圾回收关闭,没有调用dispose也不会一直占用文件
+            tempInput = new FileInputStream(file);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        if (!file.delete()) {
+            file.deleteOnExit();
+            this.tempFile = file;
+        }
+        this.tempInput = tempInput;
+        this.sheet = new CSVExcelSheetImport(tempInput.getChannel(), this);
+        return this;
+    }
+
+    @Override
+    public ExcelWorkBookImport parseFile(File file) throws IOException {
+        if (!file.isFile()) {
+            throw new IOException("文件不存在:" + file.getPath());
+        }
+        this.dispose();
+        this.sheet = new CSVExcelSheetImport(file, this);
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport getSheet(int index) {
+        if (index != 0 || this.sheet == null) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + this.getSheetSize());
+        }
+        return this.sheet;
+    }
+
+    @Override
+    public int getSheetSize() {
+        return this.sheet == null ? 0 : 1;
+    }
+
+    /**
+     * 关闭并删除从输入流复制的临时文件
+     */
+    @Override
+    public void dispose() {
+        if (this.tempInput != null) {
+            try {
+                this.tempInput.close();
+            } catch (IOException e) {
+                //只读文件,关闭失败不影响释放
+            }
+            this.tempInput = null;
+        }
+        if (this.tempFile != null) {
+            this.tempFile.delete();
+            this.tempFile = null;
+        }
+    }
+
+}
@@ -0,0 +1,268 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExcelException;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * CSV读取器
+ * 通过文件通道按位置分块读取并解码,按RFC 4180解析引号字段,字段内允许换行;
+ * 空行不产生记录但占用行号,开始行之前的记录只解析不创建字段值
+ */
+public class CSVReader {
+
+    protected final char delimiter;
+
+    protected final Charset charset;
+
+    /**
+     * 行处理
+     */
+    public interface RowHandler {
+
+        /**
+         * 开始一行
+         *
+         * @param rowIndex 行下标
+         */
+        void startRow(int rowIndex) throws ExcelException;
+
+        /**
+         * 字段值
+         *
+         * @param columnIndex 列下标
+         * @param value       字段值
+         */
+        void field(int columnIndex, String value) throws ExcelException;
+
+        /**
+         * 结束一行
+         *
+         * @return 是否继续读取下一行
+         */
+        boolean endRow() throws ExcelException;
+    }
+
+    public CSVReader(char delimiter, Charset charset) {
+        this.delimiter = delimiter;
+        this.charset = charset;
+    }
+
+    /**
+     * 统计记录行数(不包含空行)
+     *
+     * @param file 文件
+     */
+    public int countRows(File file) throws IOException, ExcelException {
+        return this.read(file, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * 读取记录
+     *
+     * @param file          文件
+     * @param startRowIndex 从该行下标开始推送记录
+     * @param handler       行处理
+     * @return 读取的记录行数(不包含空行)
+     */
+    public int read(File file, int startRowIndex, RowHandler handler) throws IOException, ExcelException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return this.read(channel, startRowIndex, handler);
+        }
+    }
+
+    /**
+     * 从文件开头读取记录,不改变通道位置也不关闭通道
+     *
+     * @param channel       已经打开的文件通道
+     * @param startRowIndex 从该行下标开始推送记录
+     * @param handler       行处理
+     * @return 读取的记录行数(不包含空行)
+     */
+    public int read(FileChannel channel, int startRowIndex, RowHandler handler) throws IOException, ExcelException {
+        Parser parser = new Parser(channel, startRowIndex, handler);
+        parser.parse();
+        return parser.rowCount;
+    }
+
+    /**
+     * 单次读取的解析状态
+     */
+    protected class Parser {
+
+        protected final FileChannel channel;
+
+        protected final int startRowIndex;
+
+        protected final RowHandler handler;
+
+        protected final CharsetDecoder decoder = CSVReader.this.charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+
+        protected final ByteBuffer byteBuffer = ByteBuffer.allocate(64 * 1024);
+
+        protected final CharBuffer charBuffer = CharBuffer.allocate(64 * 1024);
+
+        protected final StringBuilder field = new StringBuilder(64);
+
+        protected long position;//下一次读取的文件位置
+
+        protected int rowIndex;//当前行下标
+
+        protected int columnIndex;//当前列下标
+
+        protected int rowCount;//已读取的记录行数
+
+        protected boolean emit;//当前行是否推送
+
+        protected boolean inRow;//当前行是否已经开始
+
+        protected boolean quoted;//当前是否在引号内
+
+        protected boolean quoteEnd;//上一个字符是否为引号内的引号
+
+        protected boolean afterCR;//上一个字符是否为行外的\r
+
+        protected boolean first = true;//是否为文件第一个字符
+
+        protected Parser(FileChannel channel, int startRowIndex, RowHandler handler) {
+            this.channel = channel;
+            this.startRowIndex = startRowIndex;
+            this.handler = handler;
+        }
+
+        protected void parse() throws IOException, ExcelException {
+            boolean eof = false;
+            while (!eof) {
+                int count = this.channel.read(this.byteBuffer, this.position);
+                eof = count < 0;
+                if (count > 0) {
+                    this.position += count;
+                }
+                this.byteBuffer.flip();
+                CoderResult result = this.decoder.decode(this.byteBuffer, this.charBuffer, eof);
+                if (eof && result.isUnderflow()) {
+                    this.decoder.flush(this.charBuffer);
+                }
+                this.byteBuffer.compact();
+                this.charBuffer.flip();
+                boolean goon = this.consume();
+                this.charBuffer.clear();
+                if (!goon) {
+                    return;
+                }
+                if (result.isOverflow() && eof) {
+                    //剩余字节解码后再次处理
+                    eof = false;
+                }
+            }
+            if (this.inRow) {
+                this.endField();
+                this.endRow();
+            }
+        }
+
+        /**
+         * 处理已经解码的字符
+         *
+         * @return 是否继续读取
+         */
+        protected boolean consume() throws ExcelException {
+            CharBuffer in = this.charBuffer;
+            while (in.hasRemaining()) {
+                char c = in.get();
+                if (this.first) {
+                    this.first = false;
+                    if (c == '\uFEFF') {//字节顺序标记
+                        continue;
+                    }
+                }
+                if (this.quoted) {
+                    if (c == '"') {
+                        this.quoted = false;
+                        this.quoteEnd = true;
+                    } else {
+                        this.append(c);
+                    }
+                    continue;
+                }
+                if (c == '"') {
+                    this.startRowIfNeed();
+                    if (this.quoteEnd) {//两个引号转义为一个引号
+                        this.append('"');
+                    }
+                    this.quoted = true;
+                    this.quoteEnd = false;
+                    continue;
+                }
+                this.quoteEnd = false;
+                if (c == '\n' && this.afterCR) {
+                    this.afterCR = false;
+                    continue;
+                }
+                this.afterCR = c == '\r';
+                if (c == '\r' || c == '\n') {
+                    if (this.inRow) {
+                        this.endField();
+                        if (!this.endRow()) {
+                            return false;
+                        }
+                    }
+                    this.rowIndex++;
+                    continue;
+                }
+                this.startRowIfNeed();
+                if (c == CSVReader.this.delimiter) {
+                    this.endField();
+                    continue;
+                }
+                this.append(c);
+            }
+            return true;
+        }
+
+        protected void startRowIfNeed() throws ExcelException {
+            if (this.inRow) {
+                return;
+            }
+            this.inRow = true;
+            this.rowCount++;
+            this.columnIndex = 0;
+            this.field.setLength(0);
+            this.emit = this.rowIndex >= this.startRowIndex;
+            if (this.emit) {
+                this.handler.startRow(this.rowIndex);
+            }
+        }
+
+        protected void append(char c) {
+            if (this.emit) {
+                this.field.append(c);
+            }
+        }
+
+        protected void endField() throws ExcelException {
+            if (this.emit) {
+                this.handler.field(this.columnIndex, this.field.toString());
+                this.field.setLength(0);
+            }
+            this.columnIndex++;
+        }
+
+        protected boolean endRow() throws ExcelException {
+            this.inRow = false;
+            this.quoteEnd = false;
+            return !this.emit || this.handler.endRow();
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package com.avalon.holygrail.excel.bean;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAccessor;
+import java.util.Arrays;
+import java.util.Date;
+
+/**
+ * CSV写入器
+ * 字段先写入复用的字符缓冲区,累积到一定长度后编码到字节缓冲区并写入通道,
+ * 写入字符串和整数字段时不创建对象
+ */
+public class CSVWriter implements Closeable {
+
+    /**
+     * 字符缓冲区累积到该长度后编码写入
+     */
+    protected static final int FLUSH_CHARS = 32 * 1024;
+
+    protected final WritableByteChannel channel;
+
+    protected final char delimiter;
+
+    protected final CharsetEncoder encoder;
+
+    protected final ByteBuffer byteBuffer = ByteBuffer.allocate(64 * 1024);
+
+    protected char[] chars = new char[FLUSH_CHARS * 2];
+
+    protected CharBuffer charBuffer = CharBuffer.wrap(this.chars);
+
+    protected int length;//字符缓冲区已使用长度
+
+    protected boolean lineStart = true;//当前是否为行首
+
+    protected final StringBuilder textBuilder = new StringBuilder(32);//非字符串值的文本
+
+    /**
+     * @param channel   写入通道
+     * @param delimiter 分隔符
+     * @param charset   字符集
+     */
+    public CSVWriter(WritableByteChannel channel, char delimiter, Charset charset) {
+        this.channel = channel;
+        this.delimiter = delimiter;
+        this.encoder = charset.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+    }
+
+    /**
+     * 写入字节顺序标记
+     */
+    public void writeBom() {
+        this.append('\uFEFF');
+    }
+
+    /**
+     * 写入字段
+     *
+     * @param value 字段值,null写入空字段
+     */
+    public void writeField(Object value) {
+        this.startField();
+        if (value == null) {
+            return;
+        }
+        if (value instanceof CharSequence) {
+            this.appendText((CharSequence) value);
+            return;
+        }
+        StringBuilder text = this.textBuilder;
+        text.setLength(0);
+        if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+            text.append(((Number) value).intValue());
+        } else if (value instanceof Long) {
+            text.append((long) value);
+        } else if (value instanceof Double) {
+            appendDouble(text, (double) value);
+        } else if (value instanceof Float) {
+            //按float的十进制表示转换,避免0.1f写成0.10000000149011612
+            appendDouble(text, Double.parseDouble(Float.toString((float) value)));
+        } else if (value instanceof Date) {
+            appendDate(text, LocalDateTime.ofInstant(Instant.ofEpochMilli(((Date) value).getTime()), ZoneId.systemDefault()));
+        } else if (value instanceof LocalDateTime) {
+            appendDate(text, (LocalDateTime) value);
+        } else if (value instanceof LocalDate) {
+            appendDate(text, ((LocalDate) value).atStartOfDay());
+        } else if (value instanceof Boolean) {
+            text.append((boolean) value);
+        } else if (value instanceof Character) {
+            text.append((char) value);
+        } else if (value instanceof BigDecimal) {
+            text.append(((BigDecimal) value).toPlainString());
+        } else {
+            text.append(value);
+        }
+        this.appendText(text);
+    }
+
+    /**
+     * 写入double,与xlsx单元格显示一致:整数不带小数位,其它不使用科学计数法
+     */
+    protected static void appendDouble(StringBuilder text, double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            text.append((long) value);
+        } else if (Double.isNaN(value) || Double.isInfinite(value)) {
+            text.append(value);
+        } else {
+            text.append(CellConverterRegistry.toText(value));
+        }
+    }
+
+    /**
+     * 写入日期,格式与xlsx日期单元格的格式(SXSSFCellStyleCache.DATE_FORMAT)一致
+     */
+    protected static void appendDate(StringBuilder text, TemporalAccessor value) {
+        CellConverterRegistry.DATE_TIME.formatTo(value, text);
+    }
+
+    /**
+     * 结束一行
+     */
+    public void endLine() throws IOException {
+        this.append('\r');
+        this.append('\n');
+        this.lineStart = true;
+        if (this.length >= FLUSH_CHARS) {
+            this.encode(false);
+        }
+    }
+
+    /**
+     * 将缓冲区内容全部写入通道
+     */
+    public void flush() throws IOException {
+        this.encode(true);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            this.flush();
+        } finally {
+            this.channel.close();
+        }
+    }
+
+    /**
+     * 丢弃还没有写入的内容并关闭通道
+     */
+    public void discard() throws IOException {
+        this.length = 0;
+        this.channel.close();
+    }
+
+    protected void startField() {
+        if (this.lineStart) {
+            this.lineStart = false;
+        } else {
+            this.append(this.delimiter);
+        }
+    }
+
+    /**
+     * 写入文本,包含分隔符、引号或换行时用引号包裹,引号转义为两个引号
+     */
+    protected void appendText(CharSequence text) {
+        int len = text.length();
+        boolean quote = false;
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            if (c == this.delimiter || c == '"' || c == '\r' || c == '\n') {
+                quote = true;
+                break;
+            }
+        }
+        if (!quote) {
+            this.ensureCapacity(len);
+            for (int i = 0; i < len; i++) {
+                this.chars[this.length++] = text.charAt(i);
+            }
+            return;
+        }
+        this.append('"');
+        for (int i = 0; i < len; i++) {
+            char c = text.charAt(i);
+            if (c == '"') {
+                this.append('"');
+            }
+            this.append(c);
+        }
+        this.append('"');
+    }
+
+    protected void append(char c) {
+        if (this.length == this.chars.length) {
+            this.ensureCapacity(1);
+        }
+        this.chars[this.length++] = c;
+    }
+
+    protected void ensureCapacity(int size) {
+        if (this.length + size > this.chars.length) {
+            this.chars = Arrays.copyOf(this.chars, Math.max(this.chars.length * 2, this.length + size));
+            this.charBuffer = CharBuffer.wrap(this.chars);
+        }
+    }
+
+    /**
+     * 编码字符缓冲区并写入通道
+     *
+     * @param endOfInput 是否已经没有后续字符
+     */
+    protected void encode(boolean endOfInput) throws IOException {
+        CharBuffer in = this.charBuffer;
+        in.limit(this.length).position(0);
+        for (; ; ) {
+            CoderResult result = this.encoder.encode(in, this.byteBuffer, endOfInput);
+            if (result.isOverflow()) {
+                this.writeBytes();
+                continue;
+            }
+            if (result.isError()) {
+                try {
+                    result.throwException();
+                } catch (CharacterCodingException e) {
+                    throw new IOException(e);
+                }
+            }
+            break;
+        }
+        this.length = 0;
+        in.clear();
+        if (endOfInput) {
+            while (this.encoder.flush(this.byteBuffer).isOverflow()) {
+                this.writeBytes();
+            }
+            this.encoder.reset();
+        }
+        this.writeBytes();
+    }
+
+    protected void writeBytes() throws IOException {
+        this.byteBuffer.flip();
+        while (this.byteBuffer.hasRemaining()) {
+            this.channel.write(this.byteBuffer);
+        }
+        this.byteBuffer.clear();
+    }
+}
@@ -0,0 +1,365 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.norm.CellConverter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.ss.usermodel.FormulaError;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 单元格值转换器注册表
+ * 按属性类型解析转换器,基本类型使用包装类型的转换器,枚举按名称或序号转换;
+ * 转换失败抛出IllegalArgumentException,只在单元格值确实无法转换时发生
+ */
+public class CellConverterRegistry {
+
+    protected static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    protected static final DateTimeFormatter DATE_MINUTE = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+
+    protected static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    protected static final DateTimeFormatter DATE_COMPACT = DateTimeFormatter.ofPattern("yyyyMMdd");
+
+    protected static final Map<Class<?>, Class<?>> WRAPPER_TYPES = new HashMap<>();
+
+    static {
+        WRAPPER_TYPES.put(int.class, Integer.class);
+        WRAPPER_TYPES.put(long.class, Long.class);
+        WRAPPER_TYPES.put(double.class, Double.class);
+        WRAPPER_TYPES.put(float.class, Float.class);
+        WRAPPER_TYPES.put(short.class, Short.class);
+        WRAPPER_TYPES.put(byte.class, Byte.class);
+        WRAPPER_TYPES.put(boolean.class, Boolean.class);
+        WRAPPER_TYPES.put(char.class, Character.class);
+    }
+
+    protected final Map<Class<?>, CellConverter<?>> converters = new ConcurrentHashMap<>();
+
+    public CellConverterRegistry() {
+        this.register(Object.class, value -> value);
+        this.register(String.class, value -> value instanceof String ? (String) value : toText(value));
+        this.register(Integer.class, value -> {
+            Long number = toLong(value);
+            if (number == null) {
+                return null;
+            }
+            if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("数值超出int范围");
+            }
+            return number.intValue();
+        });
+        this.register(Long.class, CellConverterRegistry::toLong);
+        this.register(Short.class, value -> {
+            Long number = toLong(value);
+            if (number == null) {
+                return null;
+            }
+            if (number < Short.MIN_VALUE || number > Short.MAX_VALUE) {
+                throw new IllegalArgumentException("数值超出short范围");
+            }
+            return number.shortValue();
+        });
+        this.register(Byte.class, value -> {
+            Long number = toLong(value);
+            if (number == null) {
+                return null;
+            }
+            if (number < Byte.MIN_VALUE || number > Byte.MAX_VALUE) {
+                throw new IllegalArgumentException("数值超出byte范围");
+            }
+            return number.byteValue();
+        });
+        this.register(Double.class, CellConverterRegistry::toDouble);
+        this.register(Float.class, value -> {
+            Double number = toDouble(value);
+            return number == null ? null : number.floatValue();
+        });
+        this.register(Character.class, value -> {
+            String text = toText(value);
+            if (text.isEmpty()) {
+                return null;
+            }
+            if (text.length() > 1) {
+                throw new IllegalArgumentException("字符只能有1位");
+            }
+            return text.charAt(0);
+        });
+        this.register(BigDecimal.class, CellConverterRegistry::toBigDecimal);
+        this.register(BigInteger.class, value -> {
+            BigDecimal number = toBigDecimal(value);
+            if (number == null) {
+                return null;
+            }
+            try {
+                return number.toBigIntegerExact();
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException("数值不是整数", e);
+            }
+        });
+        this.register(Boolean.class, CellConverterRegistry::toBoolean);
+        this.register(Date.class, CellConverterRegistry::toDate);
+        this.register(LocalDateTime.class, value -> {
+            Date date = toDate(value);
+            return date == null ? null : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault());
+        });
+        this.register(LocalDate.class, value -> {
+            Date date = toDate(value);
+            return date == null ? null : LocalDateTime.ofInstant(date.toInstant(), ZoneId.systemDefault()).toLocalDate();
+        });
+    }
+
+    /**
+     * 注册转换器,覆盖同类型的已有转换器
+     *
+     * @param type      属性类型
+     * @param converter 转换器
+     */
+    public <T> CellConverterRegistry register(Class<T> type, CellConverter<? extends T> converter) {
+        this.converters.put(type.isPrimitive() ? WRAPPER_TYPES.get(type) : type, converter);
+        return this;
+    }
+
+    /**
+     * 解析属性类型的转换器
+     *
+     * @param type 属性类型
+     * @return 没有注册的类型只接受该类型的单元格值
+     */
+    public CellConverter<?> resolve(Class<?> type) {
+        Class<?> wrapperType = type.isPrimitive() ? WRAPPER_TYPES.get(type) : type;
+        CellConverter<?> converter = this.converters.get(wrapperType);
+        if (converter != null) {
+            return converter;
+        }
+        if (wrapperType.isEnum()) {
+            converter = enumConverter(wrapperType);
+            this.converters.put(wrapperType, converter);
+            return converter;
+        }
+        return value -> {
+            if (isBlank(value)) {
+                return null;
+            }
+            if (!wrapperType.isInstance(value)) {
+                throw new IllegalArgumentException("无法转换为" + wrapperType.getSimpleName());
+            }
+            return value;
+        };
+    }
+
+    /**
+     * 枚举转换器,字符串按名称匹配(不区分大小写),数值或数字字符串按序号匹配
+     */
+    protected static CellConverter<?> enumConverter(Class<?> type) {
+        Object[] constants = type.getEnumConstants();
+        Map<String, Object> names = new HashMap<>();
+        for (Object constant : constants) {
+            names.put(((Enum<?>) constant).name().toUpperCase(), constant);
+        }
+        return value -> {
+            if (value instanceof Double) {
+                long ordinal = toLong(value);
+                if (ordinal < 0 || ordinal >= constants.length) {
+                    throw new IllegalArgumentException("枚举序号超出范围");
+                }
+                return constants[(int) ordinal];
+            }
+            String text = toText(value);
+            if (text.isEmpty()) {
+                return null;
+            }
+            Object constant = names.get(text.toUpperCase());
+            if (constant != null) {
+                return constant;
+            }
+            if (!text.chars().allMatch(Character::isDigit) || text.length() > 9) {
+                throw new IllegalArgumentException("无法转换为" + type.getSimpleName());
+            }
+            int ordinal = Integer.parseInt(text);
+            if (ordinal >= constants.length) {
+                throw new IllegalArgumentException("枚举序号超出范围");
+            }
+            return constants[ordinal];
+        };
+    }
+
+    protected static boolean isBlank(Object value) {
+        return value == null || value instanceof String && ((String) value).trim().isEmpty();
+    }
+
+    /**
+     * 单元格错误值不能转换为其它类型
+     */
+    protected static IllegalArgumentException errorValue(Object value) {
+        return new IllegalArgumentException("单元格为错误值:" + toText(value));
+    }
+
+    /**
+     * 单元格值转为文本,字符串去除首尾空白,整数值的Double不带小数
+     */
+    public static String toText(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof String) {
+            return ((String) value).trim();
+        }
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (number == Math.rint(number) && Math.abs(number) < 1e15) {
+                return Long.toString((long) number);
+            }
+            return BigDecimal.valueOf(number).stripTrailingZeros().toPlainString();
+        }
+        if (value instanceof Byte) {
+            try {
+                return FormulaError.forInt((Byte) value).getString();
+            } catch (IllegalArgumentException e) {
+                return value.toString();
+            }
+        }
+        return value.toString();
+    }
+
+    /**
+     * 数值四舍五入取整
+     */
+    protected static Long toLong(Object value) {
+        if (value instanceof Double) {
+            double number = Math.rint((Double) value);
+            if (number < Long.MIN_VALUE || number > Long.MAX_VALUE) {
+                throw new IllegalArgumentException("数值超出long范围");
+            }
+            return (long) number;
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            try {
+                if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+                    return Long.valueOf(text);
+                }
+                return toLong(Double.valueOf(text));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无法转换为整数", e);
+            }
+        }
+        if (value instanceof Boolean) {
+            throw new IllegalArgumentException("布尔值无法转换为数值");
+        }
+        throw errorValue(value);
+    }
+
+    protected static Double toDouble(Object value) {
+        if (value instanceof Double) {
+            return (Double) value;
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            try {
+                return text.isEmpty() ? null : Double.valueOf(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无法转换为数值", e);
+            }
+        }
+        if (value instanceof Boolean) {
+            throw new IllegalArgumentException("布尔值无法转换为数值");
+        }
+        throw errorValue(value);
+    }
+
+    protected static BigDecimal toBigDecimal(Object value) {
+        if (value instanceof Double) {
+            return BigDecimal.valueOf((Double) value);
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            try {
+                return text.isEmpty() ? null : new BigDecimal(text);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无法转换为数值", e);
+            }
+        }
+        if (value instanceof Boolean) {
+            throw new IllegalArgumentException("布尔值无法转换为数值");
+        }
+        throw errorValue(value);
+    }
+
+    protected static Boolean toBoolean(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value;
+        }
+        if (value instanceof Double) {
+            return (Double) value != 0;
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            if ("true".equalsIgnoreCase(text) || "1".equals(text) || "是".equals(text)) {
+                return true;
+            }
+            if ("false".equalsIgnoreCase(text) || "0".equals(text) || "否".equals(text)) {
+                return false;
+            }
+            throw new IllegalArgumentException("无法转换为布尔值");
+        }
+        throw errorValue(value);
+    }
+
+    /**
+     * 数值按Excel日期序列号转换,字符串按常用日期格式转换
+     */
+    protected static Date toDate(Object value) {
+        if (value instanceof Double) {
+            double number = (Double) value;
+            if (!DateUtil.isValidExcelDate(number)) {
+                throw new IllegalArgumentException("无效的Excel日期");
+            }
+            return DateUtil.getJavaDate(number);
+        }
+        if (value instanceof String) {
+            String text = ((String) value).trim();
+            if (text.isEmpty()) {
+                return null;
+            }
+            //按长度选择格式,分隔符"/"统一为"-"
+            text = text.replace('/', '-');
+            try {
+                switch (text.length()) {
+                    case 19:
+                        return Date.from(LocalDateTime.parse(text, DATE_TIME).atZone(ZoneId.systemDefault()).toInstant());
+                    case 16:
+                        return Date.from(LocalDateTime.parse(text, DATE_MINUTE).atZone(ZoneId.systemDefault()).toInstant());
+                    case 10:
+                        return Date.from(LocalDate.parse(text, DATE).atStartOfDay(ZoneId.systemDefault()).toInstant());
+                    case 8:
+                        return Date.from(LocalDate.parse(text, DATE_COMPACT).atStartOfDay(ZoneId.systemDefault()).toInstant());
+                    default:
+                        throw new IllegalArgumentException("无法转换为日期");
+                }
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("无法转换为日期", e);
+            }
+        }
+        if (value instanceof Boolean) {
+            throw new IllegalArgumentException("布尔值无法转换为日期");
+        }
+        throw errorValue(value);
+    }
+}
@@ -0,0 +1,570 @@
+package com.avalon.holygrail.excel.bean;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 列式导入数据
+ * 按属性声明列类型,导入时单元格值直接写入对应列的数组,不为每行创建Map或对象;
+ * 数值列使用基本类型数组,字符串列使用字典编码,空值使用位图记录
+ */
+public class ColumnarData {
+
+    /**
+     * 列类型
+     */
+    public enum ColumnType {
+        DOUBLE, INT, LONG, BOOLEAN, STRING
+    }
+
+    protected static final int INITIAL_CAPACITY = 1024;
+
+    protected final LinkedHashMap<String, Column> columns = new LinkedHashMap<>();//属性 => 列
+
+    protected int size;//行数
+
+    public ColumnarData addDouble(String field) {
+        return this.addColumn(new DoubleColumn(field));
+    }
+
+    public ColumnarData addInt(String field) {
+        return this.addColumn(new IntColumn(field));
+    }
+
+    public ColumnarData addLong(String field) {
+        return this.addColumn(new LongColumn(field));
+    }
+
+    public ColumnarData addBoolean(String field) {
+        return this.addColumn(new BooleanColumn(field));
+    }
+
+    public ColumnarData addString(String field) {
+        return this.addColumn(new StringColumn(field));
+    }
+
+    protected ColumnarData addColumn(Column column) {
+        this.columns.put(column.field, column);
+        return this;
+    }
+
+    /**
+     * 获取列
+     *
+     * @param field 属性
+     * @return 没有声明返回null
+     */
+    public Column getColumn(String field) {
+        return this.columns.get(field);
+    }
+
+    public DoubleColumn getDoubleColumn(String field) {
+        return (DoubleColumn) this.columns.get(field);
+    }
+
+    public IntColumn getIntColumn(String field) {
+        return (IntColumn) this.columns.get(field);
+    }
+
+    public LongColumn getLongColumn(String field) {
+        return (LongColumn) this.columns.get(field);
+    }
+
+    public BooleanColumn getBooleanColumn(String field) {
+        return (BooleanColumn) this.columns.get(field);
+    }
+
+    public StringColumn getStringColumn(String field) {
+        return (StringColumn) this.columns.get(field);
+    }
+
+    public Map<String, Column> getColumns() {
+        return this.columns;
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * 新增一行,所有列初始为空值
+     *
+     * @return 行下标
+     */
+    public int addRow() {
+        int row = this.size++;
+        for (Column column : this.columns.values()) {
+            column.ensureCapacity(this.size);
+            column.nulls.set(row);
+        }
+        return row;
+    }
+
+    /**
+     * 清空数据,保留列声明和已分配的数组
+     */
+    public void clear() {
+        for (Column column : this.columns.values()) {
+            column.clear();
+        }
+        this.size = 0;
+    }
+
+    /**
+     * 按行遍历
+     * 遍历时返回同一个行对象,只在当前迭代中有效,用于直接作为统计的原始数据
+     */
+    public Collection<Row> rows() {
+        return new AbstractCollection<Row>() {
+            @Override
+            public Iterator<Row> iterator() {
+                Row row = new Row();
+                return new Iterator<Row>() {
+                    @Override
+                    public boolean hasNext() {
+                        return row.index + 1 < ColumnarData.this.size;
+                    }
+
+                    @Override
+                    public Row next() {
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        row.index++;
+                        return row;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return ColumnarData.this.size;
+            }
+        };
+    }
+
+    /**
+     * 按列顺序绑定到PreparedStatement并批量执行,每batchSize行执行一次
+     *
+     * @param statement 预编译语句,参数顺序与fields一致
+     * @param batchSize 每批行数
+     * @param fields    属性
+     * @return 执行的行数
+     */
+    public int executeBatch(PreparedStatement statement, int batchSize, String... fields) throws SQLException {
+        Column[] bindColumns = new Column[fields.length];
+        for (int i = 0; i < fields.length; i++) {
+            bindColumns[i] = this.columns.get(fields[i]);
+            if (bindColumns[i] == null) {
+                throw new IllegalArgumentException("没有声明列:" + fields[i]);
+            }
+        }
+        int pending = 0;
+        for (int row = 0; row < this.size; row++) {
+            for (int i = 0; i < bindColumns.length; i++) {
+                bindColumns[i].bind(statement, i + 1, row);
+            }
+            statement.addBatch();
+            if (++pending == batchSize) {
+                statement.executeBatch();
+                pending = 0;
+            }
+        }
+        if (pending > 0) {
+            statement.executeBatch();
+        }
+        return this.size;
+    }
+
+    /**
+     * 行视图
+     */
+    public class Row {
+
+        protected int index = -1;
+
+        public int getIndex() {
+            return this.index;
+        }
+
+        public boolean isNull(String field) {
+            return columns.get(field).isNull(this.index);
+        }
+
+        public double getDouble(String field) {
+            return ((DoubleColumn) columns.get(field)).get(this.index);
+        }
+
+        public int getInt(String field) {
+            return ((IntColumn) columns.get(field)).get(this.index);
+        }
+
+        public long getLong(String field) {
+            return ((LongColumn) columns.get(field)).get(this.index);
+        }
+
+        public boolean getBoolean(String field) {
+            return ((BooleanColumn) columns.get(field)).get(this.index);
+        }
+
+        public String getString(String field) {
+            return ((StringColumn) columns.get(field)).get(this.index);
+        }
+
+        /**
+         * 获取值,空值返回null
+         */
+        public Object getValue(String field) {
+            return columns.get(field).getValue(this.index);
+        }
+    }
+
+    /**
+     * 列
+     */
+    public abstract static class Column {
+
+        protected final String field;
+
+        protected final BitSet nulls = new BitSet();//空值行
+
+        protected Column(String field) {
+            this.field = field;
+        }
+
+        public String getField() {
+            return this.field;
+        }
+
+        public abstract ColumnType getType();
+
+        public boolean isNull(int row) {
+            return this.nulls.get(row);
+        }
+
+        /**
+         * 写入单元格值,空白值保持为空
+         *
+         * @param row   行下标
+         * @param value 单元格值
+         * @throws IllegalArgumentException 无法转换
+         */
+        public void set(int row, Object value) {
+            if (CellConverterRegistry.isBlank(value)) {
+                return;
+            }
+            this.setValue(row, value);
+            this.nulls.clear(row);
+        }
+
+        protected abstract void setValue(int row, Object value);
+
+        /**
+         * 获取值,空值返回null
+         */
+        public abstract Object getValue(int row);
+
+        protected abstract void ensureCapacity(int size);
+
+        protected abstract void bind(PreparedStatement statement, int parameterIndex, int row) throws SQLException;
+
+        protected void clear() {
+            this.nulls.clear();
+        }
+
+        protected static int grow(int length, int size) {
+            return Math.max(Math.max(length * 2, INITIAL_CAPACITY), size);
+        }
+    }
+
+    public static class DoubleColumn extends Column {
+
+        protected double[] values = new double[0];
+
+        public DoubleColumn(String field) {
+            super(field);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.DOUBLE;
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            this.values[row] = value instanceof Double ? (Double) value : CellConverterRegistry.toDouble(value);
+        }
+
+        public double get(int row) {
+            return this.values[row];
+        }
+
+        /**
+         * 底层数组,长度不小于行数,空值位置为0
+         */
+        public double[] getValues() {
+            return this.values;
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return this.isNull(row) ? null : this.values[row];
+        }
+
+        @Override
+        protected void ensureCapacity(int size) {
+            if (size > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, size));
+            }
+        }
+
+        @Override
+        protected void bind(PreparedStatement statement, int parameterIndex, int row) throws SQLException {
+            if (this.isNull(row)) {
+                statement.setNull(parameterIndex, Types.DOUBLE);
+            } else {
+                statement.setDouble(parameterIndex, this.values[row]);
+            }
+        }
+    }
+
+    public static class IntColumn extends Column {
+
+        protected int[] values = new int[0];
+
+        public IntColumn(String field) {
+            super(field);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.INT;
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            long number = value instanceof Double ? (long) Math.rint((Double) value) : CellConverterRegistry.toLong(value);
+            if (number < Integer.MIN_VALUE || number > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("数值超出int范围");
+            }
+            this.values[row] = (int) number;
+        }
+
+        public int get(int row) {
+            return this.values[row];
+        }
+
+        /**
+         * 底层数组,长度不小于行数,空值位置为0
+         */
+        public int[] getValues() {
+            return this.values;
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return this.isNull(row) ? null : this.values[row];
+        }
+
+        @Override
+        protected void ensureCapacity(int size) {
+            if (size > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, size));
+            }
+        }
+
+        @Override
+        protected void bind(PreparedStatement statement, int parameterIndex, int row) throws SQLException {
+            if (this.isNull(row)) {
+                statement.setNull(parameterIndex, Types.INTEGER);
+            } else {
+                statement.setInt(parameterIndex, this.values[row]);
+            }
+        }
+    }
+
+    public static class LongColumn extends Column {
+
+        protected long[] values = new long[0];
+
+        public LongColumn(String field) {
+            super(field);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.LONG;
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            this.values[row] = value instanceof Double ? (long) Math.rint((Double) value) : CellConverterRegistry.toLong(value);
+        }
+
+        public long get(int row) {
+            return this.values[row];
+        }
+
+        /**
+         * 底层数组,长度不小于行数,空值位置为0
+         */
+        public long[] getValues() {
+            return this.values;
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return this.isNull(row) ? null : this.values[row];
+        }
+
+        @Override
+        protected void ensureCapacity(int size) {
+            if (size > this.values.length) {
+                this.values = Arrays.copyOf(this.values, grow(this.values.length, size));
+            }
+        }
+
+        @Override
+        protected void bind(PreparedStatement statement, int parameterIndex, int row) throws SQLException {
+            if (this.isNull(row)) {
+                statement.setNull(parameterIndex, Types.BIGINT);
+            } else {
+                statement.setLong(parameterIndex, this.values[row]);
+            }
+        }
+    }
+
+    public static class BooleanColumn extends Column {
+
+        protected final BitSet values = new BitSet();
+
+        public BooleanColumn(String field) {
+            super(field);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.BOOLEAN;
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            this.values.set(row, CellConverterRegistry.toBoolean(value));
+        }
+
+        public boolean get(int row) {
+            return this.values.get(row);
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return this.isNull(row) ? null : this.values.get(row);
+        }
+
+        @Override
+        protected void ensureCapacity(int size) {
+        }
+
+        @Override
+        protected void bind(PreparedStatement statement, int parameterIndex, int row) throws SQLException {
+            if (this.isNull(row)) {
+                statement.setNull(parameterIndex, Types.BOOLEAN);
+            } else {
+                statement.setBoolean(parameterIndex, this.values.get(row));
+            }
+        }
+
+        @Override
+        protected void clear() {
+            super.clear();
+            this.values.clear();
+        }
+    }
+
+    /**
+     * 字典编码的字符串列,相同的字符串只保存一份
+     */
+    public static class StringColumn extends Column {
+
+        protected int[] codes = new int[0];//行 => 字典编码
+
+        protected final ArrayList<String> dictionary = new ArrayList<>();//字典编码 => 字符串
+
+        protected final HashMap<String, Integer> dictionaryIndex = new HashMap<>();//字符串 => 字典编码
+
+        public StringColumn(String field) {
+            super(field);
+        }
+
+        @Override
+        public ColumnType getType() {
+            return ColumnType.STRING;
+        }
+
+        @Override
+        protected void setValue(int row, Object value) {
+            String text = value instanceof String ? (String) value : CellConverterRegistry.toText(value);
+            Integer code = this.dictionaryIndex.get(text);
+            if (code == null) {
+                code = this.dictionary.size();
+                this.dictionary.add(text);
+                this.dictionaryIndex.put(text, code);
+            }
+            this.codes[row] = code;
+        }
+
+        public String get(int row) {
+            return this.isNull(row) ? null : this.dictionary.get(this.codes[row]);
+        }
+
+        /**
+         * 行的字典编码,空值位置为0
+         */
+        public int[] getCodes() {
+            return this.codes;
+        }
+
+        public ArrayList<String> getDictionary() {
+            return this.dictionary;
+        }
+
+        @Override
+        public Object getValue(int row) {
+            return this.get(row);
+        }
+
+        @Override
+        protected void ensureCapacity(int size) {
+            if (size > this.codes.length) {
+                this.codes = Arrays.copyOf(this.codes, grow(this.codes.length, size));
+            }
+        }
+
+        @Override
+        protected void bind(PreparedStatement statement, int parameterIndex, int row) throws SQLException {
+            if (this.isNull(row)) {
+                statement.setNull(parameterIndex, Types.VARCHAR);
+            } else {
+                statement.setString(parameterIndex, this.dictionary.get(this.codes[row]));
+            }
+        }
+
+        @Override
+        protected void clear() {
+            super.clear();
+            this.dictionary.clear();
+            this.dictionaryIndex.clear();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package com.avalon.holygrail.excel.bean;
+
+/**
+ * 列汇总定义
+ * 写入数据时逐行累计,Sheet结束时在数据之后写入汇总行,每种汇总类型一行
+ */
+public class ExcelAggregate {
+
+    /**
+     * 汇总类型
+     */
+    public enum Type {
+
+        SUM("合计", "SUM"),
+        AVG("平均值", "AVERAGE"),
+        MIN("最小值", "MIN"),
+        MAX("最大值", "MAX"),
+        COUNT("计数", "COUNTA");
+
+        /**
+         * 汇总行第一列的标题
+         */
+        public String label;
+
+        /**
+         * Excel公式函数名
+         */
+        public String function;
+
+        Type(String label, String function) {
+            this.label = label;
+            this.function = function;
+        }
+    }
+
+    /**
+     * 汇总的数据属性
+     */
+    protected final String field;
+
+    /**
+     * 汇总类型
+     */
+    protected final Type type;
+
+    /**
+     * 是否写入Excel公式而不是计算好的值,公式只统计数值单元格,CSV始终写入计算好的值
+     */
+    protected boolean formula;
+
+    public ExcelAggregate(String field, Type type) {
+        this.field = field;
+        this.type = type;
+    }
+
+    public ExcelAggregate(String field, Type type, boolean formula) {
+        this.field = field;
+        this.type = type;
+        this.formula = formula;
+    }
+
+    public static ExcelAggregate sum(String field) {
+        return new ExcelAggregate(field, Type.SUM);
+    }
+
+    public static ExcelAggregate avg(String field) {
+        return new ExcelAggregate(field, Type.AVG);
+    }
+
+    public static ExcelAggregate min(String field) {
+        return new ExcelAggregate(field, Type.MIN);
+    }
+
+    public static ExcelAggregate max(String field) {
+        return new ExcelAggregate(field, Type.MAX);
+    }
+
+    public static ExcelAggregate count(String field) {
+        return new ExcelAggregate(field, Type.COUNT);
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public boolean isFormula() {
+        return formula;
+    }
+
+    public void setFormula(boolean formula) {
+        this.formula = formula;
+    }
+}
@@ -0,0 +1,252 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExportException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 列汇总收集器
+ * 写入数据时逐个单元格累计数量、合计、最小值和最大值,不保留数据,汇总时不需要再遍历一次数据
+ */
+public class ExcelAggregateCollector {
+
+    /**
+     * 每个汇总行的汇总类型,按第一次出现的顺序
+     */
+    protected final List<ExcelAggregate.Type> types = new ArrayList<>();
+
+    /**
+     * 汇总行 -> 列 -> 汇总定义,没有汇总为null
+     */
+    protected final List<ExcelAggregate[]> aggregates = new ArrayList<>();
+
+    /**
+     * 每列的累计值,不汇总的列为null
+     */
+    protected final Accumulator[] accumulators;
+
+    protected int firstRow = -1;//数据开始行下标
+
+    protected int lastRow = -1;//数据结束行下标
+
+    /**
+     * @param aggregates 汇总定义
+     * @param fields     每列的数据属性
+     * @throws ExportException 汇总的属性不存在
+     */
+    public ExcelAggregateCollector(List<ExcelAggregate> aggregates, String[] fields) throws ExportException {
+        this.accumulators = new Accumulator[fields.length];
+        for (ExcelAggregate aggregate : aggregates) {
+            int column = -1;
+            for (int i = 0; i < fields.length; i++) {
+                if (aggregate.getField().equals(fields[i])) {
+                    column = i;
+                    break;
+                }
+            }
+            if (column < 0) {
+                throw new ExportException("汇总列" + aggregate.getField() + "不存在");
+            }
+            int footer = this.types.indexOf(aggregate.getType());
+            if (footer < 0) {
+                footer = this.types.size();
+                this.types.add(aggregate.getType());
+                this.aggregates.add(new ExcelAggregate[fields.length]);
+            }
+            this.aggregates.get(footer)[column] = aggregate;
+            if (this.accumulators[column] == null) {
+                this.accumulators[column] = new Accumulator();
+            }
+        }
+    }
+
+    /**
+     * 累计单元格值,空值不计数
+     *
+     * @param column 列下标
+     * @param value  写入的单元格值
+     */
+    public void accept(int column, Object value) {
+        Accumulator accumulator = this.accumulators[column];
+        if (accumulator != null) {
+            accumulator.accept(value);
+        }
+    }
+
+    /**
+     * 累计一个数值,不装箱
+     *
+     * @param column 列下标
+     * @param value  数值
+     */
+    public void accept(int column, double value) {
+        Accumulator accumulator = this.accumulators[column];
+        if (accumulator != null) {
+            accumulator.count++;
+            accumulator.add(value);
+        }
+    }
+
+    /**
+     * 登记一条数据占用的行
+     *
+     * @param firstRow 开始行下标
+     * @param lastRow  结束行下标
+     */
+    public void row(int firstRow, int lastRow) {
+        if (this.firstRow < 0) {
+            this.firstRow = firstRow;
+        }
+        this.lastRow = Math.max(this.lastRow, lastRow);
+    }
+
+    /**
+     * 汇总行数
+     */
+    public int getFooterSize() {
+        return this.types.size();
+    }
+
+    /**
+     * 汇总行的汇总类型
+     *
+     * @param footer 汇总行下标
+     */
+    public ExcelAggregate.Type getType(int footer) {
+        return this.types.get(footer);
+    }
+
+    /**
+     * 汇总定义
+     *
+     * @param footer 汇总行下标
+     * @param column 列下标
+     * @return 该列在该汇总行没有汇总返回null
+     */
+    public ExcelAggregate getAggregate(int footer, int column) {
+        return this.aggregates.get(footer)[column];
+    }
+
+    /**
+     * 汇总值
+     *
+     * @param footer 汇总行下标
+     * @param column 列下标
+     * @return 没有可以汇总的数值时平均值、最小值和最大值为null
+     */
+    public Object getValue(int footer, int column) {
+        Accumulator accumulator = this.accumulators[column];
+        switch (this.types.get(footer)) {
+            case SUM:
+                return number(accumulator.sum);
+            case AVG:
+                return accumulator.numberCount == 0 ? null : number(accumulator.sum / accumulator.numberCount);
+            case MIN:
+                return accumulator.numberCount == 0 ? null : number(accumulator.min);
+            case MAX:
+                return accumulator.numberCount == 0 ? null : number(accumulator.max);
+            default:
+                return accumulator.count;
+        }
+    }
+
+    /**
+     * 整数值使用Long,CSV中不会写成"10.0"
+     */
+    protected static Number number(double value) {
+        if (value == Math.rint(value) && Math.abs(value) < 1e15) {
+            return (long) value;
+        }
+        return value;
+    }
+
+    /**
+     * 该列是否汇总
+     *
+     * @param column 列下标
+     */
+    public boolean isAggregated(int column) {
+        return this.accumulators[column] != null;
+    }
+
+    /**
+     * 该列是否写入过文本,文本单元格不参与公式中的合计、平均值、最小值和最大值
+     *
+     * @param column 列下标
+     */
+    public boolean hasText(int column) {
+        Accumulator accumulator = this.accumulators[column];
+        return accumulator != null && accumulator.textCount > 0;
+    }
+
+    /**
+     * 是否写入过数据
+     */
+    public boolean hasRows() {
+        return this.firstRow >= 0;
+    }
+
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    /**
+     * 一列的累计值
+     */
+    protected static class Accumulator {
+
+        protected long count;//非空值数量
+
+        protected long numberCount;//数值数量
+
+        protected long textCount;//文本数量,包括数值格式的文本
+
+        protected double sum;
+
+        protected double min = Double.POSITIVE_INFINITY;
+
+        protected double max = Double.NEGATIVE_INFINITY;
+
+        protected void accept(Object value) {
+            if (value == null) {
+                return;
+            }
+            if (value instanceof Number) {
+                this.count++;
+                this.add(((Number) value).doubleValue());
+                return;
+            }
+            if (value instanceof String) {
+                String text = ((String) value).trim();
+                if (text.isEmpty()) {
+                    return;
+                }
+                this.count++;
+                this.textCount++;
+                try {
+                    this.add(Double.parseDouble(text));
+                } catch (NumberFormatException e) {
+                    //不是数值,只计数
+                }
+                return;
+            }
+            this.count++;
+        }
+
+        protected void add(double number) {
+            this.numberCount++;
+            this.sum += number;
+            if (number < this.min) {
+                this.min = number;
+            }
+            if (number > this.max) {
+                this.max = number;
+            }
+        }
+    }
+}
@@ -20,6 +20,14 @@ public class ExcelCellError {
      * 表头属性
      */
     private CellOption cellOption;
+    /**
+     * 单元格值
+     */
+    private Object value;
+    /**
+     * 错误信息
+     */
+    private String message;
 
     public ExcelCellError() {
     }
@@ -30,6 +38,14 @@ public class ExcelCellError {
         this.cellOption = cellOption;
     }
 
+    public ExcelCellError(int row, int col, CellOption cellOption, Object value, String message) {
+        this.row = row;
+        this.col = col;
+        this.cellOption = cellOption;
+        this.value = value;
+        this.message = message;
+    }
+
     public int getRow() {
         return row;
     }
@@ -53,4 +69,25 @@ public class ExcelCellError {
     public void setCellOption(CellOption cellOption) {
         this.cellOption = cellOption;
     }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public void setValue(Object value) {
+        this.value = value;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    @Override
+    public String toString() {
+        return "row:" + row + " col:" + col + " value:" + value + " " + message;
+    }
 }
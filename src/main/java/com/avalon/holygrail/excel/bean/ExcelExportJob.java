@@ -0,0 +1,232 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.Timestamp;
+import java.util.concurrent.Future;
+
+/**
+ * 异步导出任务
+ * 进度相关的属性可以在其他线程中读取,用于客户端轮询
+ */
+public class ExcelExportJob {
+
+    /**
+     * 任务状态
+     */
+    public enum Status {
+        /**
+         * 等待执行
+         */
+        WAITING,
+        /**
+         * 正在执行
+         */
+        RUNNING,
+        /**
+         * 导出成功
+         */
+        SUCCESS,
+        /**
+         * 导出失败
+         */
+        FAILED,
+        /**
+         * 已取消
+         */
+        CANCELLED
+    }
+
+    /**
+     * 任务id
+     */
+    protected final String id;
+
+    /**
+     * 下载文件名称(不包含后缀)
+     */
+    protected final String fileName;
+
+    /**
+     * 文件后缀
+     */
+    protected final String suffix;
+
+    /**
+     * 导出的临时文件
+     */
+    protected final File file;
+
+    /**
+     * 创建时间
+     */
+    protected final Timestamp createTime = new Timestamp(System.currentTimeMillis());
+
+    protected volatile Timestamp startTime;
+
+    protected volatile Timestamp endTime;
+
+    protected volatile Status status = Status.WAITING;
+
+    /**
+     * 导出失败时的异常
+     */
+    protected volatile Throwable error;
+
+    /**
+     * 正在导出的工作簿
+     */
+    protected volatile ExcelWorkBookExport workBook;
+
+    protected volatile Future<?> future;
+
+    /**
+     * 准入排队凭证,没有准入控制时为null
+     */
+    protected volatile ExcelExportScheduler.Ticket ticket;
+
+    /**
+     * 结束时的数据总数和Sheet数,结束后工作簿会被释放
+     */
+    protected volatile int writtenDataSize;
+
+    protected volatile int sheetSize;
+
+    /**
+     * 已经写入临时文件的字节数,只由导出线程修改
+     */
+    protected volatile long writtenBytes;
+
+    public ExcelExportJob(String id, String fileName, String suffix, File file) {
+        this.id = id;
+        this.fileName = fileName;
+        this.suffix = suffix;
+        this.file = file;
+    }
+
+    /**
+     * 已经写入的数据总数
+     */
+    public int getWrittenDataSize() {
+        ExcelWorkBookExport workBook = this.workBook;
+        return workBook == null ? this.writtenDataSize : workBook.getWrittenDataSize();
+    }
+
+    /**
+     * 已经写完的Sheet数,正在写入的Sheet不计算在内
+     */
+    public int getFinishedSheetSize() {
+        ExcelWorkBookExport workBook = this.workBook;
+        if (workBook == null) {
+            return this.status == Status.SUCCESS ? this.sheetSize : Math.max(this.sheetSize - 1, 0);
+        }
+        return Math.max(workBook.getSheetSize() - 1, 0);
+    }
+
+    /**
+     * 已经写入临时文件的字节数
+     * 数据先写入工作簿,全部写完后才导出到临时文件,因此写入数据阶段为0,导出阶段逐渐增加到文件大小
+     */
+    public long getWrittenBytes() {
+        return this.writtenBytes;
+    }
+
+    /**
+     * 是否已经结束(成功、失败或取消)
+     */
+    public boolean isDone() {
+        Status status = this.status;
+        return status == Status.SUCCESS || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    /**
+     * 取消任务,等待中的任务不再执行,正在执行的任务在写入下一条数据时中断
+     *
+     * @return 是否取消成功
+     */
+    public synchronized boolean cancel() {
+        if (this.isDone()) {
+            return false;
+        }
+        this.status = Status.CANCELLED;
+        ExcelWorkBookExport workBook = this.workBook;
+        if (workBook != null) {
+            workBook.cancel();
+        } else {
+            //还未开始执行或正在创建工作簿
+            this.endTime = new Timestamp(System.currentTimeMillis());
+            this.file.delete();
+        }
+        ExcelExportScheduler.Ticket ticket = this.ticket;
+        if (ticket != null) {
+            ticket.cancel();
+        }
+        Future<?> future = this.future;
+        if (future != null) {
+            future.cancel(true);
+        }
+        return true;
+    }
+
+    /**
+     * 记录写入字节数的输出流
+     */
+    protected class ProgressOutputStream extends FilterOutputStream {
+
+        protected ProgressOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            this.out.write(b);
+            writtenBytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            this.out.write(b, off, len);
+            writtenBytes += len;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public Timestamp getCreateTime() {
+        return createTime;
+    }
+
+    public Timestamp getStartTime() {
+        return startTime;
+    }
+
+    public Timestamp getEndTime() {
+        return endTime;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Throwable getError() {
+        return error;
+    }
+}
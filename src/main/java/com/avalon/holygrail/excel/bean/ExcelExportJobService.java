@@ -0,0 +1,363 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExportException;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
+import com.avalon.holygrail.file.bean.DownloadRecord;
+import com.avalon.holygrail.file.exception.DownLoadException;
+import com.avalon.holygrail.file.util.FileUtil;
+import com.avalon.holygrail.util.Export;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.sql.Timestamp;
+import java.util.Iterator;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * 异步导出服务
+ * 导出在有界线程池中执行,提交后立即返回任务id,客户端轮询进度,完成后通过FileUtil.download下载
+ */
+public class ExcelExportJobService {
+
+    /**
+     * 执行导出的线程池
+     */
+    protected final ThreadPoolExecutor executor;
+
+    /**
+     * 导出临时文件目录,为null时使用系统临时目录
+     */
+    protected final File tempDir;
+
+    /**
+     * 任务id -> 任务
+     */
+    protected final ConcurrentHashMap<String, ExcelExportJob> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 导出准入调度,为null时不限制内存和临时文件
+     */
+    protected final ExcelExportScheduler scheduler;
+
+    /**
+     * 导出任务
+     */
+    @FunctionalInterface
+    public interface ExportTask {
+
+        /**
+         * 向工作簿中写入数据,写入完成后由导出服务导出到临时文件
+         *
+         * @param workBook 工作簿
+         */
+        void accept(ExcelWorkBookExport workBook) throws Exception;
+    }
+
+    /**
+     * @param threadSize    同时执行的导出任务数
+     * @param queueCapacity 最多等待的导出任务数
+     */
+    public ExcelExportJobService(int threadSize, int queueCapacity) {
+        this(threadSize, queueCapacity, null);
+    }
+
+    /**
+     * @param threadSize    同时执行的导出任务数
+     * @param queueCapacity 最多等待的导出任务数
+     * @param tempDir       导出临时文件目录
+     */
+    public ExcelExportJobService(int threadSize, int queueCapacity, File tempDir) {
+        this(threadSize, queueCapacity, tempDir, 0, 0);
+    }
+
+    /**
+     * 按预计的行数和列数做准入控制,只有堆内存和临时文件预算都足够时才开始导出,否则按用户轮流排队
+     *
+     * @param threadSize    同时执行的导出任务数
+     * @param queueCapacity 最多等待的导出任务数
+     * @param tempDir       导出临时文件目录
+     * @param heapBudget    所有导出的堆内存预算,单位字节,小于等于0时不做准入控制
+     * @param diskBudget    所有导出的临时文件预算,单位字节
+     */
+    public ExcelExportJobService(int threadSize, int queueCapacity, File tempDir, long heapBudget, long diskBudget) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threadSize, threadSize, 60L, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "excel-export-" + threadIndex.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy()) {
+
+            @Override
+            protected void afterExecute(Runnable runnable, Throwable throwable) {
+                //线程池与不做准入控制的导出共用,任意任务结束后重新准入因线程池已满被拒绝的导出
+                ExcelExportScheduler scheduler = ExcelExportJobService.this.scheduler;
+                if (scheduler != null) {
+                    scheduler.dispatch();
+                }
+            }
+        };
+        this.executor.allowCoreThreadTimeOut(true);
+        this.tempDir = tempDir;
+        this.scheduler = heapBudget > 0 ? new ExcelExportScheduler(this.executor, heapBudget, diskBudget, queueCapacity) : null;
+        if (tempDir != null && !tempDir.exists()) {
+            tempDir.mkdirs();
+        }
+    }
+
+    /**
+     * 提交基于SXSSFWorkbook的导出任务
+     *
+     * @param fileName 下载文件名称(不包含后缀)
+     * @param task     导出任务
+     * @return 任务id
+     */
+    public String submit(String fileName, ExportTask task) throws ExportException {
+        return this.submit(fileName, "xlsx", Export::buildSXSSFExportExcelWorkBook, task);
+    }
+
+    /**
+     * 提交导出任务
+     *
+     * @param fileName        下载文件名称(不包含后缀)
+     * @param suffix          文件后缀
+     * @param workBookBuilder 创建工作簿,在导出线程中调用
+     * @param task            导出任务
+     * @return 任务id
+     */
+    public String submit(String fileName, String suffix, Supplier<ExcelWorkBookExport> workBookBuilder, ExportTask task) throws ExportException {
+        ExcelExportJob job = this.createJob(fileName, suffix);
+        try {
+            job.future = this.executor.submit(() -> this.run(job, workBookBuilder, task));
+        } catch (RejectedExecutionException e) {
+            this.jobs.remove(job.id);
+            job.file.delete();
+            throw new ExportException("导出任务过多,请稍后再试", e);
+        }
+        return job.id;
+    }
+
+    /**
+     * 提交基于SXSSFWorkbook的导出任务,按预计的数据量做准入控制
+     *
+     * @param user     用户标识,排队时按用户轮流执行
+     * @param rows     预计行数
+     * @param columns  预计列数
+     * @param fileName 下载文件名称(不包含后缀)
+     * @param task     导出任务
+     * @return 任务id
+     */
+    public String submit(String user, long rows, int columns, String fileName, ExportTask task) throws ExportException {
+        return this.submit(user, rows, columns, fileName, "xlsx", Export::buildSXSSFExportExcelWorkBook, task);
+    }
+
+    /**
+     * 提交导出任务,按预计的数据量做准入控制,没有设置预算时直接提交
+     *
+     * @param user            用户标识,排队时按用户轮流执行
+     * @param rows            预计行数
+     * @param columns         预计列数
+     * @param fileName        下载文件名称(不包含后缀)
+     * @param suffix          文件后缀
+     * @param workBookBuilder 创建工作簿,在导出线程中调用
+     * @param task            导出任务
+     * @return 任务id
+     */
+    public String submit(String user, long rows, int columns, String fileName, String suffix, Supplier<ExcelWorkBookExport> workBookBuilder, ExportTask task) throws ExportException {
+        if (this.scheduler == null) {
+            return this.submit(fileName, suffix, workBookBuilder, task);
+        }
+        ExcelExportJob job = this.createJob(fileName, suffix);
+        FutureTask<Void> future = new FutureTask<>(() -> this.run(job, workBookBuilder, task), null);
+        job.future = future;
+        try {
+            job.ticket = this.scheduler.submit(user, rows, columns, future);
+        } catch (ExportException e) {
+            this.jobs.remove(job.id);
+            job.file.delete();
+            throw e;
+        }
+        return job.id;
+    }
+
+    /**
+     * 创建任务和临时文件
+     */
+    protected ExcelExportJob createJob(String fileName, String suffix) throws ExportException {
+        String id = UUID.randomUUID().toString().replace("-", "");
+        File file;
+        try {
+            file = File.createTempFile("export-" + id, "." + suffix, this.tempDir);
+        } catch (IOException e) {
+            throw new ExportException("创建导出临时文件失败", e);
+        }
+        ExcelExportJob job = new ExcelExportJob(id, fileName, suffix, file);
+        this.jobs.put(id, job);
+        return job;
+    }
+
+    /**
+     * 执行导出任务
+     */
+    protected void run(ExcelExportJob job, Supplier<ExcelWorkBookExport> workBookBuilder, ExportTask task) {
+        synchronized (job) {
+            if (job.status != ExcelExportJob.Status.WAITING) {
+                return;
+            }
+            job.startTime = new Timestamp(System.currentTimeMillis());
+            job.status = ExcelExportJob.Status.RUNNING;
+        }
+        Throwable error = null;
+        try {
+            //创建工作簿失败同样标记为失败
+            ExcelWorkBookExport workBook = workBookBuilder.get();
+            synchronized (job) {
+                job.workBook = workBook;
+                if (job.status == ExcelExportJob.Status.CANCELLED) {
+                    //创建工作簿期间已经被取消
+                    workBook.cancel();
+                }
+            }
+            task.accept(workBook);
+            try (OutputStream out = new BufferedOutputStream(job.new ProgressOutputStream(new FileOutputStream(job.file)), SXSSFExcelWorkBookExport.BUFFER_SIZE)) {
+                workBook.export(out);
+            }
+        } catch (Throwable e) {
+            error = e;
+        }
+        synchronized (job) {
+            job.endTime = new Timestamp(System.currentTimeMillis());
+            if (job.status == ExcelExportJob.Status.CANCELLED) {
+                job.file.delete();
+            } else if (error != null) {
+                job.error = error;
+                job.status = ExcelExportJob.Status.FAILED;
+                job.file.delete();
+            } else {
+                job.status = ExcelExportJob.Status.SUCCESS;
+            }
+            //释放工作簿和临时文件,只保留进度
+            if (job.workBook != null) {
+                job.writtenDataSize = job.workBook.getWrittenDataSize();
+                job.sheetSize = job.workBook.getSheetSize();
+                job.workBook.dispose();
+                job.workBook = null;
+            }
+        }
+    }
+
+    /**
+     * 获取任务
+     *
+     * @param id 任务id
+     * @return 任务, 不存在返回null
+     */
+    public ExcelExportJob getJob(String id) {
+        return this.jobs.get(id);
+    }
+
+    /**
+     * 取消任务
+     *
+     * @param id 任务id
+     * @return 是否取消成功
+     */
+    public boolean cancel(String id) {
+        ExcelExportJob job = this.jobs.get(id);
+        return job != null && job.cancel();
+    }
+
+    /**
+     * 移除任务并删除临时文件,未结束的任务会被取消
+     *
+     * @param id 任务id
+     */
+    public void remove(String id) {
+        ExcelExportJob job = this.jobs.remove(id);
+        if (job == null) {
+            return;
+        }
+        job.cancel();
+        if (job.isDone()) {
+            job.file.delete();
+        }
+    }
+
+    /**
+     * 移除结束时间早于指定时长的任务
+     *
+     * @param maxAge 任务结束后保留的时长,单位毫秒
+     */
+    public void removeExpired(long maxAge) {
+        long now = System.currentTimeMillis();
+        Iterator<ExcelExportJob> iterator = this.jobs.values().iterator();
+        while (iterator.hasNext()) {
+            ExcelExportJob job = iterator.next();
+            Timestamp endTime = job.endTime;
+            if (job.isDone() && endTime != null && now - endTime.getTime() > maxAge) {
+                iterator.remove();
+                job.file.delete();
+            }
+        }
+    }
+
+    /**
+     * 下载导出成功的文件
+     *
+     * @param id       任务id
+     * @param request  请求
+     * @param response 响应
+     */
+    public DownloadRecord download(String id, HttpServletRequest request, HttpServletResponse response) throws ExportException, UnsupportedEncodingException, DownLoadException, FileNotFoundException {
+        ExcelExportJob job = this.jobs.get(id);
+        if (job == null) {
+            throw new ExportException("导出任务不存在");
+        }
+        if (job.status != ExcelExportJob.Status.SUCCESS) {
+            throw new ExportException("导出任务未完成,当前状态:" + job.status);
+        }
+        return FileUtil.download(job.fileName, job.suffix, job.file.getPath(), request, response);
+    }
+
+    /**
+     * 正在等待执行的任务数
+     */
+    public int getWaitingSize() {
+        return this.executor.getQueue().size() + (this.scheduler == null ? 0 : this.scheduler.getQueueSize());
+    }
+
+    /**
+     * 正在执行的任务数
+     */
+    public int getActiveSize() {
+        return this.executor.getActiveCount();
+    }
+
+    /**
+     * 导出准入调度,没有设置预算时为null
+     */
+    public ExcelExportScheduler getScheduler() {
+        return this.scheduler;
+    }
+
+    /**
+     * 关闭导出服务,取消所有未结束的任务
+     */
+    public void shutdown() {
+        this.executor.shutdownNow();
+        for (ExcelExportJob job : this.jobs.values()) {
+            job.cancel();
+        }
+    }
+
+}
@@ -0,0 +1,311 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExportException;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * 导出准入调度
+ * 每个导出按预计的行数和列数估算堆内存和临时文件占用,全局预算足够时才交给线程池执行,否则排队;
+ * 排队按用户轮流准入,同一用户的导出按提交顺序准入;轮到的导出预算不够时后面的导出也不会越过它,避免大导出一直等待
+ */
+public class ExcelExportScheduler {
+
+    /**
+     * 准入后执行导出的线程池
+     */
+    protected final Executor executor;
+
+    /**
+     * 堆内存预算,单位字节
+     */
+    protected final long heapBudget;
+
+    /**
+     * 临时文件预算,单位字节
+     */
+    protected final long diskBudget;
+
+    /**
+     * 最多排队的导出数
+     */
+    protected final int queueCapacity;
+
+    /**
+     * 每个工作簿固定占用的堆内存(样式、字体、工作簿结构)
+     */
+    protected long baseHeapBytes = 4L << 20;
+
+    /**
+     * SXSSFWorkbook保留在内存中的行数
+     */
+    protected int rowAccessWindowSize = SXSSFWorkbook.DEFAULT_WINDOW_SIZE;
+
+    /**
+     * 内存中每个单元格占用的堆内存
+     */
+    protected long heapBytesPerCell = 256;
+
+    /**
+     * 每个单元格写入临时文件的字节数
+     */
+    protected long diskBytesPerCell = 64;
+
+    protected long heapUsed;//已准入导出占用的堆内存
+
+    protected long diskUsed;//已准入导出占用的临时文件
+
+    protected int activeSize;//已准入还没有结束的导出数
+
+    protected int queueSize;//排队的导出数
+
+    /**
+     * 用户 -> 排队的导出,迭代顺序即轮到的顺序
+     */
+    protected final LinkedHashMap<String, ArrayDeque<Ticket>> queues = new LinkedHashMap<>();
+
+    /**
+     * @param executor      准入后执行导出的线程池
+     * @param heapBudget    堆内存预算,单位字节
+     * @param diskBudget    临时文件预算,单位字节
+     * @param queueCapacity 最多排队的导出数
+     */
+    public ExcelExportScheduler(Executor executor, long heapBudget, long diskBudget, int queueCapacity) {
+        this.executor = executor;
+        this.heapBudget = heapBudget;
+        this.diskBudget = diskBudget;
+        this.queueCapacity = queueCapacity;
+    }
+
+    /**
+     * 提交导出,预算足够时立即交给线程池,否则排队
+     *
+     * @param user    用户标识,排队时按用户轮流准入
+     * @param rows    预计行数
+     * @param columns 预计列数
+     * @param task    导出,结束后释放占用的预算
+     * @return 排队凭证
+     * @throws ExportException 排队的导出已满
+     */
+    public synchronized Ticket submit(String user, long rows, int columns, Runnable task) throws ExportException {
+        if (this.queueSize >= this.queueCapacity) {
+            throw new ExportException("导出任务过多,请稍后再试");
+        }
+        Ticket ticket = new Ticket(user, this.estimateHeap(rows, columns), this.estimateDisk(rows, columns), task);
+        this.queues.computeIfAbsent(user, key -> new ArrayDeque<>()).add(ticket);
+        this.queueSize++;
+        this.dispatch();
+        return ticket;
+    }
+
+    /**
+     * 估算导出占用的堆内存
+     *
+     * @param rows    预计行数
+     * @param columns 预计列数
+     */
+    public long estimateHeap(long rows, int columns) {
+        return this.baseHeapBytes + Math.min(rows, this.rowAccessWindowSize) * columns * this.heapBytesPerCell;
+    }
+
+    /**
+     * 估算导出占用的临时文件
+     *
+     * @param rows    预计行数
+     * @param columns 预计列数
+     */
+    public long estimateDisk(long rows, int columns) {
+        return rows * columns * this.diskBytesPerCell;
+    }
+
+    /**
+     * 按用户轮流准入排队的导出,直到轮到的导出预算不够或线程池已满
+     * 与其它任务共用线程池时,需要在线程池中任意任务结束后调用,否则被拒绝的导出要等到下一次提交或结束才会准入
+     */
+    protected synchronized void dispatch() {
+        while (!this.queues.isEmpty()) {
+            Map.Entry<String, ArrayDeque<Ticket>> entry = this.queues.entrySet().iterator().next();
+            String user = entry.getKey();
+            ArrayDeque<Ticket> queue = entry.getValue();
+            Ticket ticket = queue.peek();
+            if (ticket == null) {
+                this.queues.remove(user);
+                continue;
+            }
+            //没有正在执行的导出时,超出预算的导出也要准入,否则永远不会执行
+            if (this.activeSize > 0 && (this.heapUsed + ticket.heap > this.heapBudget || this.diskUsed + ticket.disk > this.diskBudget)) {
+                return;
+            }
+            queue.poll();
+            this.queueSize--;
+            ticket.admitted = true;
+            this.heapUsed += ticket.heap;
+            this.diskUsed += ticket.disk;
+            this.activeSize++;
+            try {
+                this.executor.execute(() -> {
+                    try {
+                        ticket.task.run();
+                    } finally {
+                        this.release(ticket);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                //线程池已满,放回队首,用户仍排在最前,等线程池中任意任务结束后再准入
+                ticket.admitted = false;
+                this.heapUsed -= ticket.heap;
+                this.diskUsed -= ticket.disk;
+                this.activeSize--;
+                queue.addFirst(ticket);
+                this.queueSize++;
+                return;
+            }
+            //当前用户排到最后
+            if (this.queues.get(user) == queue) {
+                this.queues.remove(user);
+                if (!queue.isEmpty()) {
+                    this.queues.put(user, queue);
+                }
+            }
+        }
+    }
+
+    /**
+     * 导出结束,释放预算并准入排队的导出
+     */
+    protected synchronized void release(Ticket ticket) {
+        this.heapUsed -= ticket.heap;
+        this.diskUsed -= ticket.disk;
+        this.activeSize--;
+        this.dispatch();
+    }
+
+    /**
+     * 排队的导出数
+     */
+    public synchronized int getQueueSize() {
+        return this.queueSize;
+    }
+
+    /**
+     * 用户排队的导出数
+     *
+     * @param user 用户标识
+     */
+    public synchronized int getQueueSize(String user) {
+        ArrayDeque<Ticket> queue = this.queues.get(user);
+        return queue == null ? 0 : queue.size();
+    }
+
+    /**
+     * 已准入还没有结束的导出数
+     */
+    public synchronized int getActiveSize() {
+        return this.activeSize;
+    }
+
+    /**
+     * 已准入导出占用的堆内存
+     */
+    public synchronized long getHeapUsed() {
+        return this.heapUsed;
+    }
+
+    /**
+     * 已准入导出占用的临时文件
+     */
+    public synchronized long getDiskUsed() {
+        return this.diskUsed;
+    }
+
+    public long getHeapBudget() {
+        return heapBudget;
+    }
+
+    public long getDiskBudget() {
+        return diskBudget;
+    }
+
+    public synchronized void setBaseHeapBytes(long baseHeapBytes) {
+        this.baseHeapBytes = baseHeapBytes;
+    }
+
+    public synchronized void setRowAccessWindowSize(int rowAccessWindowSize) {
+        this.rowAccessWindowSize = rowAccessWindowSize;
+    }
+
+    public synchronized void setHeapBytesPerCell(long heapBytesPerCell) {
+        this.heapBytesPerCell = heapBytesPerCell;
+    }
+
+    public synchronized void setDiskBytesPerCell(long diskBytesPerCell) {
+        this.diskBytesPerCell = diskBytesPerCell;
+    }
+
+    /**
+     * 排队凭证
+     */
+    public class Ticket {
+
+        protected final String user;
+
+        protected final long heap;//预计占用的堆内存
+
+        protected final long disk;//预计占用的临时文件
+
+        protected final Runnable task;
+
+        protected boolean admitted;//是否已经准入
+
+        protected Ticket(String user, long heap, long disk, Runnable task) {
+            this.user = user;
+            this.heap = heap;
+            this.disk = disk;
+            this.task = task;
+        }
+
+        /**
+         * 取消排队,已经准入的导出不受影响
+         *
+         * @return 是否从队列中移除
+         */
+        public boolean cancel() {
+            synchronized (ExcelExportScheduler.this) {
+                ArrayDeque<Ticket> queue = queues.get(this.user);
+                if (this.admitted || queue == null || !queue.remove(this)) {
+                    return false;
+                }
+                queueSize--;
+                if (queue.isEmpty()) {
+                    queues.remove(this.user);
+                }
+                //排在最前面的导出被取消后,后面的导出可能可以准入
+                dispatch();
+                return true;
+            }
+        }
+
+        public boolean isAdmitted() {
+            synchronized (ExcelExportScheduler.this) {
+                return this.admitted;
+            }
+        }
+
+        public String getUser() {
+            return user;
+        }
+
+        public long getHeap() {
+            return heap;
+        }
+
+        public long getDisk() {
+            return disk;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.avalon.holygrail.excel.bean;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 导入校验结果
+ * 校验通过的数据和所有单元格错误,校验失败的行不进入数据集合
+ */
+public class ImportValidateResult<T> {
+
+    /**
+     * 校验通过的数据,流式读取时为null
+     */
+    protected ArrayList<T> records;
+    /**
+     * 单元格错误,按行顺序排列
+     */
+    protected List<ExcelCellError> errors = new ArrayList<>();
+    /**
+     * 读取的行数
+     */
+    protected int total;
+    /**
+     * 校验失败的行数
+     */
+    protected int rejected;
+
+    public ImportValidateResult() {
+    }
+
+    public ImportValidateResult(ArrayList<T> records) {
+        this.records = records;
+    }
+
+    /**
+     * 是否全部通过校验
+     */
+    public boolean isSuccess() {
+        return this.rejected == 0;
+    }
+
+    /**
+     * 记录一行的校验错误
+     *
+     * @param rowErrors 行错误
+     */
+    public void reject(List<ExcelCellError> rowErrors) {
+        this.errors.addAll(rowErrors);
+        this.rejected++;
+    }
+
+    public ArrayList<T> getRecords() {
+        return records;
+    }
+
+    public List<ExcelCellError> getErrors() {
+        return errors;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public int getPassed() {
+        return total - rejected;
+    }
+}
@@ -0,0 +1,327 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.util.ClassUtil;
+import com.esotericsoftware.reflectasm.MethodAccess;
+
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+/**
+ * 数据记录字段读取器
+ * 按列字段编译一次取值方式,Map按key取值,对象按getter取值,与具体导出格式无关;
+ * 返回基本类型的public getter额外编译为不装箱的取值函数,通过readInt等方法读取;
+ * 编译时不调用getter,取值函数第一次调用抛出LinkageError时由调用方通过demote改为按对象读取
+ */
+public class RecordFieldReader {
+
+    /**
+     * Map中不存在该key时的返回值
+     */
+    public static final Object ABSENT = new Object();
+
+    /**
+     * 列值类型:对象,通过read读取
+     */
+    public static final int KIND_OBJECT = 0;
+
+    /**
+     * 列值类型:int/short/byte,通过readInt读取
+     */
+    public static final int KIND_INT = 1;
+
+    /**
+     * 列值类型:long,通过readLong读取
+     */
+    public static final int KIND_LONG = 2;
+
+    /**
+     * 列值类型:double/float,通过readDouble读取
+     */
+    public static final int KIND_DOUBLE = 3;
+
+    /**
+     * 列值类型:boolean,通过readBoolean读取
+     */
+    public static final int KIND_BOOLEAN = 4;
+
+    /**
+     * 列字段
+     */
+    protected final String[] fields;
+
+    /**
+     * 最近一次编译的数据类型
+     */
+    protected Class<?> recordClass;
+
+    /**
+     * 最近一次编译的数据类型是否为Map
+     */
+    protected boolean map;
+
+    /**
+     * 对象取值方式
+     */
+    protected Accessors accessors;
+
+    public RecordFieldReader(String[] fields) {
+        this.fields = fields;
+    }
+
+    /**
+     * 根据数据类型准备取值方式,数据类型不变时直接复用
+     *
+     * @param record 数据记录
+     * @return 是否为Map数据
+     */
+    public boolean prepare(Object record) {
+        Class<?> clazz = record.getClass();
+        if (clazz == this.recordClass) {
+            return this.map;
+        }
+        this.recordClass = clazz;
+        this.map = record instanceof Map;
+        this.accessors = this.map ? null : new Accessors(clazz, this.fields);
+        return this.map;
+    }
+
+    /**
+     * 列值类型,调用前需先调用prepare
+     *
+     * @param index 列下标
+     * @return KIND_OBJECT等
+     */
+    public int getKind(int index) {
+        return this.map ? KIND_OBJECT : this.accessors.kinds[index];
+    }
+
+    /**
+     * 改为按对象读取该列,取值函数调用时抛出LinkageError(例如数据类型对当前类加载器不可见)后调用
+     *
+     * @param index 列下标
+     */
+    public void demote(int index) {
+        if (this.accessors != null) {
+            this.accessors.kinds[index] = KIND_OBJECT;
+            this.accessors.functions[index] = null;
+        }
+    }
+
+    /**
+     * 读取KIND_INT列的值,getter抛出的异常直接抛出
+     */
+    public int readInt(Object record, int index) {
+        return ((ToIntFunction<Object>) this.accessors.functions[index]).applyAsInt(record);
+    }
+
+    /**
+     * 读取KIND_LONG列的值,getter抛出的异常直接抛出
+     */
+    public long readLong(Object record, int index) {
+        return ((ToLongFunction<Object>) this.accessors.functions[index]).applyAsLong(record);
+    }
+
+    /**
+     * 读取KIND_DOUBLE列的值,getter抛出的异常直接抛出
+     */
+    public double readDouble(Object record, int index) {
+        return ((ToDoubleFunction<Object>) this.accessors.functions[index]).applyAsDouble(record);
+    }
+
+    /**
+     * 读取KIND_BOOLEAN列的值,getter抛出的异常直接抛出
+     */
+    public boolean readBoolean(Object record, int index) {
+        return ((Predicate<Object>) this.accessors.functions[index]).test(record);
+    }
+
+    /**
+     * 读取字段值,调用前需先调用prepare
+     * Map中不存在该key返回ABSENT,对象中不存在对应getter或取值异常返回""
+     *
+     * @param record 数据记录
+     * @param index  列下标
+     */
+    public Object read(Object record, int index) {
+        if (this.map) {
+            Map<?, ?> data = (Map<?, ?>) record;
+            String field = this.fields[index];
+            Object value = data.get(field);
+            if (value == null && !data.containsKey(field)) {
+                return ABSENT;
+            }
+            return value;
+        }
+        return this.accessors.read(record, index);
+    }
+
+    public String[] getFields() {
+        return fields;
+    }
+
+    public int size() {
+        return this.fields.length;
+    }
+
+    /**
+     * 某个类型的所有列取值方式
+     */
+    protected static class Accessors {
+
+        /**
+         * 字节码生成的方法访问器,类型不可访问时为null
+         */
+        protected MethodAccess methodAccess;
+
+        /**
+         * methodAccess中的方法下标,-1表示不使用methodAccess
+         */
+        protected final int[] indexes;
+
+        /**
+         * 反射取值方法,都不存在时为null
+         */
+        protected final Method[] methods;
+
+        /**
+         * 列值类型
+         */
+        protected final int[] kinds;
+
+        /**
+         * 基本类型列的取值函数
+         */
+        protected final Object[] functions;
+
+        protected Accessors(Class<?> clazz, String[] fields) {
+            this.indexes = new int[fields.length];
+            this.methods = new Method[fields.length];
+            this.kinds = new int[fields.length];
+            this.functions = new Object[fields.length];
+            try {
+                this.methodAccess = MethodAccess.get(clazz);
+            } catch (RuntimeException e) {
+                this.methodAccess = null;
+            }
+            for (int i = 0; i < fields.length; i++) {
+                this.indexes[i] = -1;
+                Method getter = findGetter(clazz, ClassUtil.getGetterMethodName(fields[i], ""));
+                if (getter == null) {
+                    getter = findGetter(clazz, ClassUtil.getGetterMethodName(fields[i], "boolean"));
+                }
+                if (getter == null) {
+                    continue;
+                }
+                this.compilePrimitive(i, getter);
+                if (this.methodAccess != null) {
+                    try {
+                        this.indexes[i] = this.methodAccess.getIndex(getter.getName(), 0);
+                        continue;
+                    } catch (IllegalArgumentException e) {
+                        //非public方法,使用反射
+                    }
+                }
+                getter.setAccessible(true);
+                this.methods[i] = getter;
+            }
+        }
+
+        /**
+         * 返回基本类型的public getter编译为不装箱的取值函数,不能编译时按对象读取
+         */
+        protected void compilePrimitive(int index, Method getter) {
+            Class<?> type = getter.getReturnType();
+            int kind;
+            Class<?> functionType;
+            String functionName;
+            Class<?> returnType;
+            if (type == int.class || type == short.class || type == byte.class) {
+                kind = KIND_INT;
+                functionType = ToIntFunction.class;
+                functionName = "applyAsInt";
+                returnType = int.class;
+            } else if (type == long.class) {
+                kind = KIND_LONG;
+                functionType = ToLongFunction.class;
+                functionName = "applyAsLong";
+                returnType = long.class;
+            } else if (type == double.class || type == float.class) {
+                kind = KIND_DOUBLE;
+                functionType = ToDoubleFunction.class;
+                functionName = "applyAsDouble";
+                returnType = double.class;
+            } else if (type == boolean.class) {
+                kind = KIND_BOOLEAN;
+                functionType = Predicate.class;
+                functionName = "test";
+                returnType = boolean.class;
+            } else {
+                return;
+            }
+            if (!isPublic(getter.getDeclaringClass()) || !Modifier.isPublic(getter.getModifiers())) {
+                return;
+            }
+            try {
+                MethodHandles.Lookup lookup = MethodHandles.lookup();
+                MethodHandle handle = lookup.unreflect(getter);
+                this.functions[index] = LambdaMetafactory.metafactory(lookup, functionName, MethodType.methodType(functionType),
+                        MethodType.methodType(returnType, Object.class), handle, MethodType.methodType(returnType, getter.getDeclaringClass()))
+                        .getTarget().invoke();
+                this.kinds[index] = kind;
+            } catch (Throwable e) {
+                //按对象读取
+            }
+        }
+
+        /**
+         * 类及其外部类都是public
+         */
+        protected static boolean isPublic(Class<?> clazz) {
+            for (Class<?> cla = clazz; cla != null; cla = cla.getEnclosingClass()) {
+                if (!Modifier.isPublic(cla.getModifiers())) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        protected Object read(Object record, int index) {
+            try {
+                int methodIndex = this.indexes[index];
+                if (methodIndex >= 0) {
+                    return this.methodAccess.invoke(record, methodIndex);
+                }
+                Method method = this.methods[index];
+                return method == null ? "" : method.invoke(record);
+            } catch (Exception e) {
+                return "";
+            }
+        }
+
+        /**
+         * 查找无参getter方法
+         */
+        protected static Method findGetter(Class<?> clazz, String methodName) {
+            if ("".equals(methodName)) {
+                return null;
+            }
+            for (Class<?> cla = clazz; cla != null && cla != Object.class; cla = cla.getSuperclass()) {
+                for (Method method : cla.getDeclaredMethods()) {
+                    if (methodName.equals(method.getName()) && method.getParameterCount() == 0) {
+                        return method;
+                    }
+                }
+            }
+            return null;
+        }
+    }
+}
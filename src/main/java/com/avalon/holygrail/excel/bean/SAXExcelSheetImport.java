@@ -0,0 +1,126 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.exception.ImportException;
+import com.avalon.holygrail.excel.model.ExcelSheetImportAbstract;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookImport;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * 基于SAX的流式导入Sheet
+ * 每次读取都重新解析Sheet xml,内存中只保留当前行
+ */
+public class SAXExcelSheetImport extends ExcelSheetImportAbstract {
+
+    private static final Logger log = LoggerFactory.getLogger(SAXExcelSheetImport.class);
+
+    protected static final SAXParserFactory PARSER_FACTORY = SAXParserFactory.newInstance();
+
+    static {
+        PARSER_FACTORY.setNamespaceAware(true);
+    }
+
+    protected PackagePart sheetPart;//Sheet xml
+
+    protected String sheetName;//Sheet名称
+
+    protected SAXExcelWorkBookImport ownerWorkBook;//所属工作簿对象
+
+    protected int physicalNumberOfRows = -1;//物理行数,完整读取一次后记录
+
+    public SAXExcelSheetImport(PackagePart sheetPart, String sheetName, SAXExcelWorkBookImport ownerWorkBook) {
+        this.sheetPart = sheetPart;
+        this.sheetName = sheetName;
+        this.ownerWorkBook = ownerWorkBook;
+    }
+
+    /**
+     * 读取到Sheet末尾时同时记录物理行数,之后获取行数不再解析
+     */
+    @Override
+    protected void readSheetRows(RowReceiver receiver) throws ExcelException {
+        boolean[] stopped = {false};
+        SAXSheetRowHandler rowHandler = new SAXSheetRowHandler(this.ownerWorkBook.sharedStrings, this.rowCursor + 1, new SAXSheetRowHandler.RowHandler() {
+            @Override
+            public void startRow(int rowIndex) throws ExcelException {
+                receiver.startRow(rowIndex);
+            }
+
+            @Override
+            public void cell(int columnIndex, Object value) throws ExcelException {
+                receiver.cell(columnIndex, value);
+            }
+
+            @Override
+            public boolean endRow() throws ExcelException {
+                if (receiver.endRow()) {
+                    return true;
+                }
+                stopped[0] = true;
+                return false;
+            }
+        });
+        this.parseSheet(rowHandler);
+        if (!stopped[0]) {
+            this.physicalNumberOfRows = rowHandler.getRowCount();
+        }
+    }
+
+    /**
+     * 解析Sheet xml
+     *
+     * @param rowHandler 行处理
+     */
+    protected void parseSheet(SAXSheetRowHandler rowHandler) throws ExcelException {
+        try (InputStream inputStream = this.sheetPart.getInputStream()) {
+            XMLReader xmlReader = PARSER_FACTORY.newSAXParser().getXMLReader();
+            xmlReader.setContentHandler(rowHandler);
+            xmlReader.parse(new InputSource(inputStream));
+        } catch (SAXSheetRowHandler.StopException e) {
+            //处理器要求停止读取
+        } catch (SAXSheetRowHandler.HandlerException e) {
+            throw e.getException();
+        } catch (IOException | SAXException | ParserConfigurationException e) {
+            throw new ImportException("解析Sheet失败:" + this.sheetName, e);
+        }
+    }
+
+    public String getSheetName() {
+        return this.sheetName;
+    }
+
+    @Override
+    public ExcelWorkBookImport getOwnerWorkBook() {
+        return this.ownerWorkBook;
+    }
+
+    /**
+     * 已经完整读取过时直接返回记录的行数,否则解析一次只统计行数;
+     * 解析失败时返回0且不记录,同样的错误在读取数据时以ImportException抛出
+     */
+    @Override
+    public int getPhysicalNumberOfRows() {
+        if (this.physicalNumberOfRows < 0) {
+            SAXSheetRowHandler rowHandler = new SAXSheetRowHandler(this.ownerWorkBook.sharedStrings, Integer.MAX_VALUE, null);
+            try {
+                this.parseSheet(rowHandler);
+            } catch (ExcelException e) {
+                log.warn("统计Sheet[{}]行数失败,返回0", this.sheetName, e);
+                return 0;
+            }
+            this.physicalNumberOfRows = rowHandler.getRowCount();
+        }
+        return this.physicalNumberOfRows;
+    }
+
+}
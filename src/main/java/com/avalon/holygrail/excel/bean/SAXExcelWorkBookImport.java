@@ -0,0 +1,115 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.model.XSSFExcelParserAbstract;
+import com.avalon.holygrail.excel.norm.ExcelSheetImport;
+import com.avalon.holygrail.excel.norm.ExcelWorkBookImport;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.InvalidOperationException;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.xml.sax.SAXException;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+/**
+ * 基于XSSFReader的流式导入工作簿
+ * 不创建XSSFWorkbook,Sheet按SAX逐行解析,只有共享字符串常驻内存;
+ * 与XSSFExcelWorkBookImport的读取接口一致,可以直接替换
+ */
+public class SAXExcelWorkBookImport extends XSSFExcelParserAbstract implements ExcelWorkBookImport {
+
+    protected OPCPackage opcPackage;
+
+    protected ReadOnlySharedStringsTable sharedStrings;//只读共享字符串
+
+    protected File tempFile;//从输入流复制的临时文件
+
+    protected ArrayList<SAXExcelSheetImport> sheets = new ArrayList<>();
+
+    /**
+     * 输入流先复制到临时文件,避免将整个压缩包读入内存
+     */
+    @Override
+    public ExcelWorkBookImport parseFile(InputStream inputStream) throws IOException {
+        File file = File.createTempFile("import", ".xlsx");
+        try (ReadableByteChannel in = Channels.newChannel(inputStream);
+             FileChannel out = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (long count; (count = out.transferFrom(in, position, 64 * 1024)) > 0; ) {
+                position += count;
+            }
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        try {
+            this.parseFile(file);
+        } catch (IOException e) {
+            file.delete();
+            throw e;
+        }
+        this.tempFile = file;
+        return this;
+    }
+
+    @Override
+    public ExcelWorkBookImport parseFile(File file) throws IOException {
+        this.dispose();
+        try {
+            this.opcPackage = OPCPackage.open(file.getPath(), PackageAccess.READ);
+        } catch (InvalidFormatException | InvalidOperationException e) {
+            throw new IOException("无法解析Excel文件:" + file.getPath(), e);
+        }
+        try {
+            this.sharedStrings = new ReadOnlySharedStringsTable(this.opcPackage);
+            XSSFReader reader = new XSSFReader(this.opcPackage);
+            XSSFReader.SheetIterator iterator = (XSSFReader.SheetIterator) reader.getSheetsData();
+            while (iterator.hasNext()) {
+                iterator.next().close();
+                this.sheets.add(new SAXExcelSheetImport(iterator.getSheetPart(), iterator.getSheetName(), this));
+            }
+        } catch (SAXException | OpenXML4JException e) {
+            this.dispose();
+            throw new IOException("无法解析Excel文件:" + file.getPath(), e);
+        }
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport getSheet(int index) {
+        return this.sheets.get(index);
+    }
+
+    @Override
+    public int getSheetSize() {
+        return this.sheets.size();
+    }
+
+    /**
+     * 关闭文件并删除从输入流复制的临时文件
+     */
+    @Override
+    public void dispose() {
+        this.sheets.clear();
+        this.sharedStrings = null;
+        if (this.opcPackage != null) {
+            this.opcPackage.revert();
+            this.opcPackage = null;
+        }
+        if (this.tempFile != null) {
+            this.tempFile.delete();
+            this.tempFile = null;
+        }
+    }
+
+}
@@ -0,0 +1,228 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExcelException;
+import org.apache.poi.ss.usermodel.FormulaError;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * 基于SAX解析Sheet xml,按行推送单元格值
+ * 单元格值类型与XSSFLoader一致:字符串、数值为Double、布尔为Boolean、错误为错误码Byte、无值为""
+ */
+public class SAXSheetRowHandler extends DefaultHandler {
+
+    /**
+     * 行处理
+     */
+    public interface RowHandler {
+
+        /**
+         * 开始一行
+         *
+         * @param rowIndex 行下标
+         */
+        void startRow(int rowIndex) throws ExcelException;
+
+        /**
+         * 单元格值
+         *
+         * @param columnIndex 列下标
+         * @param value       单元格值
+         */
+        void cell(int columnIndex, Object value) throws ExcelException;
+
+        /**
+         * 结束一行
+         *
+         * @return 是否继续读取下一行
+         */
+        boolean endRow() throws ExcelException;
+    }
+
+    /**
+     * 处理器要求停止读取
+     */
+    public static class StopException extends SAXException {
+
+        public StopException() {
+            super("stop");
+        }
+    }
+
+    /**
+     * 包装处理器抛出的异常,解析结束后取出
+     */
+    public static class HandlerException extends SAXException {
+
+        public HandlerException(ExcelException cause) {
+            super(cause);
+        }
+
+        @Override
+        public ExcelException getException() {
+            return (ExcelException) super.getException();
+        }
+    }
+
+    protected final ReadOnlySharedStringsTable sharedStrings;
+
+    protected final int startRowIndex;//小于该行下标的行不推送
+
+    protected final RowHandler handler;
+
+    protected final StringBuilder text = new StringBuilder(64);
+
+    protected int rowIndex = -1;//当前行下标
+
+    protected int columnIndex = -1;//当前列下标
+
+    protected int rowCount;//行元素数量
+
+    protected boolean emit;//当前行是否推送
+
+    protected String cellType;//单元格类型属性
+
+    protected boolean hasValue;//单元格是否有值
+
+    protected boolean hasFormula;//单元格是否为公式
+
+    protected boolean collecting;//是否正在收集文本
+
+    /**
+     * @param sharedStrings 共享字符串
+     * @param startRowIndex 从该行下标开始推送
+     * @param handler       行处理,为null时只统计行数
+     */
+    public SAXSheetRowHandler(ReadOnlySharedStringsTable sharedStrings, int startRowIndex, RowHandler handler) {
+        this.sharedStrings = sharedStrings;
+        this.startRowIndex = startRowIndex;
+        this.handler = handler;
+    }
+
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes attributes) throws SAXException {
+        switch (localName) {
+            case "row":
+                String r = attributes.getValue("r");
+                this.rowIndex = r == null ? this.rowIndex + 1 : Integer.parseInt(r) - 1;
+                this.columnIndex = -1;
+                this.rowCount++;
+                this.emit = this.handler != null && this.rowIndex >= this.startRowIndex;
+                if (this.emit) {
+                    try {
+                        this.handler.startRow(this.rowIndex);
+                    } catch (ExcelException e) {
+                        throw new HandlerException(e);
+                    }
+                }
+                break;
+            case "c":
+                if (!this.emit) {
+                    return;
+                }
+                String ref = attributes.getValue("r");
+                this.columnIndex = ref == null ? this.columnIndex + 1 : getColumnIndex(ref);
+                this.cellType = attributes.getValue("t");
+                this.hasValue = false;
+                this.hasFormula = false;
+                this.text.setLength(0);
+                break;
+            case "f":
+                this.hasFormula = true;
+                break;
+            case "v":
+            case "t"://内联字符串
+                if (this.emit) {
+                    this.collecting = true;
+                    this.hasValue = true;
+                }
+                break;
+            default:
+        }
+    }
+
+    @Override
+    public void characters(char[] ch, int start, int length) {
+        if (this.collecting) {
+            this.text.append(ch, start, length);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        if (!this.emit) {
+            return;
+        }
+        try {
+            switch (localName) {
+                case "v":
+                case "t":
+                    this.collecting = false;
+                    break;
+                case "c":
+                    this.handler.cell(this.columnIndex, this.getValue());
+                    break;
+                case "row":
+                    this.emit = false;
+                    if (!this.handler.endRow()) {
+                        throw new StopException();
+                    }
+                    break;
+                default:
+            }
+        } catch (ExcelException e) {
+            throw new HandlerException(e);
+        }
+    }
+
+    /**
+     * 按单元格类型转换值
+     */
+    protected Object getValue() {
+        if (!this.hasValue) {
+            //没有计算结果的数值公式与XSSFCell一致取0
+            return this.hasFormula && (this.cellType == null || "n".equals(this.cellType)) ? 0.0 : "";
+        }
+        String value = this.text.toString();
+        if (this.cellType == null) {
+            return Double.parseDouble(value);
+        }
+        switch (this.cellType) {
+            case "s":
+                return this.sharedStrings.getEntryAt(Integer.parseInt(value));
+            case "b":
+                return "1".equals(value);
+            case "e":
+                try {
+                    return FormulaError.forString(value).getCode();
+                } catch (IllegalArgumentException e) {
+                    return value;
+                }
+            case "n":
+                return Double.parseDouble(value);
+            default://inlineStr、str
+                return value;
+        }
+    }
+
+    /**
+     * 单元格引用中的列下标,例如"AB12" => 27
+     */
+    protected static int getColumnIndex(String ref) {
+        int column = 0;
+        for (int i = 0; i < ref.length(); i++) {
+            char c = ref.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+}
@@ -0,0 +1,103 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.norm.CellStyle;
+import com.avalon.holygrail.excel.norm.Font;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * SXSSFWorkbook 单元格样式缓存
+ * 样式和字体属性完全相同的单元格共用同一个样式,避免每个单元格都创建样式和字体
+ */
+public class SXSSFCellStyleCache {
+
+    protected SXSSFWorkbook sxssfWorkbook;
+
+    /**
+     * 样式签名 -> 样式
+     */
+    protected HashMap<String, XSSFCellStyle> cellStyles = new HashMap<>();
+
+    /**
+     * 日期单元格格式
+     */
+    public static final String DATE_FORMAT = "yyyy-mm-dd hh:mm:ss";
+
+    /**
+     * 样式 -> 加上日期格式的样式
+     */
+    protected IdentityHashMap<XSSFCellStyle, XSSFCellStyle> dateCellStyles = new IdentityHashMap<>();
+
+    public SXSSFCellStyleCache(SXSSFWorkbook sxssfWorkbook) {
+        this.sxssfWorkbook = sxssfWorkbook;
+    }
+
+    /**
+     * 获取样式,不存在则创建
+     *
+     * @param source 样式和字体来源
+     */
+    public <S extends CellStyle & Font> XSSFCellStyle getCellStyle(S source) {
+        String key = signature(source);
+        XSSFCellStyle cellStyle = this.cellStyles.get(key);
+        if (cellStyle == null) {
+            SXSSFLoader sxssfLoader = new SXSSFLoader(this.sxssfWorkbook, null);
+            //设置样式
+            sxssfLoader.getCellStyleByName(source);
+            //设置字体
+            sxssfLoader.getFontByName(source);
+            cellStyle = sxssfLoader.getCellStyle();
+            this.cellStyles.put(key, cellStyle);
+        }
+        return cellStyle;
+    }
+
+    /**
+     * 获取在样式基础上加上日期格式的样式,不存在则创建
+     *
+     * @param cellStyle 样式
+     */
+    public XSSFCellStyle getDateCellStyle(XSSFCellStyle cellStyle) {
+        XSSFCellStyle dateCellStyle = this.dateCellStyles.get(cellStyle);
+        if (dateCellStyle == null) {
+            dateCellStyle = (XSSFCellStyle) this.sxssfWorkbook.createCellStyle();
+            dateCellStyle.cloneStyleFrom(cellStyle);
+            dateCellStyle.setDataFormat(this.sxssfWorkbook.createDataFormat().getFormat(DATE_FORMAT));
+            this.dateCellStyles.put(cellStyle, dateCellStyle);
+        }
+        return dateCellStyle;
+    }
+
+    /**
+     * 已创建的样式数量
+     */
+    public int size() {
+        return this.cellStyles.size();
+    }
+
+    /**
+     * 计算样式签名
+     *
+     * @param source 样式和字体来源
+     */
+    public static <S extends CellStyle & Font> String signature(S source) {
+        return new StringBuilder()
+                .append(source.getHAlign().name()).append(',')
+                .append(source.getVAlign().name()).append(',')
+                .append(source.getBorderLeft().name()).append(',')
+                .append(source.getBorderTop().name()).append(',')
+                .append(source.getBorderRight().name()).append(',')
+                .append(source.getBorderBottom().name()).append(',')
+                .append(source.getColor()).append(',')
+                .append(source.getStrikeout()).append(',')
+                .append(source.getItalic()).append(',')
+                .append(source.getFontHeightInPoints()).append(',')
+                .append(source.getFontName()).append(',')
+                .append(source.getBoldWeight()).append(',')
+                .append(source.getUnderLine().name())
+                .toString();
+    }
+}
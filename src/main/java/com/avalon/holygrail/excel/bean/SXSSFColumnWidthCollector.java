@@ -0,0 +1,142 @@
+package com.avalon.holygrail.excel.bean;
+
+import java.util.Arrays;
+
+/**
+ * SXSSFWorkbook 列宽收集器
+ * 写入单元格时按字符估算显示宽度(中日韩等全角字符算2个字符,其它算1个),记录每列的最大宽度,Sheet结束时统一设置列宽;
+ * 不需要保留数据行,也不需要像autoSizeColumn那样测量字体
+ */
+public class SXSSFColumnWidthCollector {
+
+    /**
+     * Excel列宽上限,单位字符
+     */
+    public static final int EXCEL_MAX_WIDTH = 255;
+
+    /**
+     * 列宽在内容宽度之外留出的字符数
+     */
+    protected static final int PADDING = 2;
+
+    protected final int maxWidth;//列宽上限,单位字符
+
+    protected int[] widths = new int[16];//每列内容的最大显示宽度,单位字符
+
+    protected int size;//记录过的列数
+
+    /**
+     * @param maxWidth 列宽上限,单位字符
+     */
+    public SXSSFColumnWidthCollector(int maxWidth) {
+        this.maxWidth = Math.min(maxWidth, EXCEL_MAX_WIDTH);
+    }
+
+    /**
+     * 记录单元格内容,跨多列的单元格按列平分宽度
+     *
+     * @param firstCol 开始列下标
+     * @param lastCol  结束列下标
+     * @param value    单元格值
+     */
+    public void add(int firstCol, int lastCol, Object value) {
+        int width = displayWidth(value);
+        if (width == 0) {
+            return;
+        }
+        int span = lastCol - firstCol + 1;
+        width = (width + span - 1) / span;
+        if (lastCol >= this.widths.length) {
+            this.widths = Arrays.copyOf(this.widths, Math.max(lastCol + 1, this.widths.length * 2));
+        }
+        for (int col = firstCol; col <= lastCol; col++) {
+            if (width > this.widths[col]) {
+                this.widths[col] = width;
+            }
+        }
+        this.size = Math.max(this.size, lastCol + 1);
+    }
+
+    /**
+     * 结束收集,依次处理每个有内容的列
+     *
+     * @param handler 处理列宽,宽度单位为1/256字符
+     */
+    public <E extends Exception> void collect(HandlerWidth<E> handler) throws E {
+        for (int col = 0; col < this.size; col++) {
+            if (this.widths[col] > 0) {
+                handler.accept(col, Math.min(this.widths[col] + PADDING, this.maxWidth) * 256);
+            }
+        }
+        this.widths = new int[16];
+        this.size = 0;
+    }
+
+    @FunctionalInterface
+    public interface HandlerWidth<E extends Exception> {
+
+        /**
+         * 处理列宽
+         *
+         * @param columnIndex 列下标
+         * @param width       列宽,单位为1/256字符
+         */
+        void accept(int columnIndex, int width) throws E;
+    }
+
+    /**
+     * 估算单元格值的显示宽度,多行文本取最长的一行
+     *
+     * @param value 单元格值
+     * @return 显示宽度, 单位字符
+     */
+    public static int displayWidth(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        CharSequence text;
+        if (value instanceof CharSequence) {
+            text = (CharSequence) value;
+        } else if (SXSSFLoader.isDate(value)) {
+            return SXSSFCellStyleCache.DATE_FORMAT.length();
+        } else if (value instanceof Double || value instanceof Float) {
+            text = CellConverterRegistry.toText(((Number) value).doubleValue());
+        } else {
+            text = value.toString();
+        }
+        int max = 0;
+        int width = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n') {
+                max = Math.max(max, width);
+                width = 0;
+            } else if (Character.isHighSurrogate(c) && i + 1 < text.length()) {
+                width += charWidth(Character.toCodePoint(c, text.charAt(++i)));
+            } else {
+                width += charWidth(c);
+            }
+        }
+        return Math.max(max, width);
+    }
+
+    /**
+     * 全角字符宽度为2,其它为1
+     */
+    protected static int charWidth(int codePoint) {
+        if (codePoint < 0x1100) {
+            return 1;
+        }
+        if (codePoint <= 0x115F //韩文字母
+                || codePoint >= 0x2E80 && codePoint <= 0xA4CF && codePoint != 0x303F //中日韩部首、符号、假名、汉字
+                || codePoint >= 0xAC00 && codePoint <= 0xD7A3 //韩文音节
+                || codePoint >= 0xF900 && codePoint <= 0xFAFF //兼容汉字
+                || codePoint >= 0xFE30 && codePoint <= 0xFE4F //兼容形式
+                || codePoint >= 0xFF00 && codePoint <= 0xFF60 //全角字符
+                || codePoint >= 0xFFE0 && codePoint <= 0xFFE6
+                || codePoint >= 0x20000 && codePoint <= 0x3FFFD) {
+            return 2;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,195 @@
+package com.avalon.holygrail.excel.bean;
+
+import org.apache.poi.ss.util.CellRangeAddressList;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * SXSSFWorkbook 数据校验收集器
+ * 下拉框单元格不再逐个创建DataValidation,而是按下拉框值分组,
+ * 同一列上连续的行合并为一个区域,在Sheet结束时统一生成校验
+ */
+public class SXSSFDataValidationCollector {
+
+    private static final int MAX_IDENTITY_SIZE = 256;
+
+    /**
+     * 按数组实例缓存的校验分组,同一表头的下拉框值通常是同一个数组,避免每个单元格都计算签名
+     */
+    private final IdentityHashMap<String[], Group> identityGroups = new IdentityHashMap<>();
+
+    /**
+     * 按下拉框值内容分组,保持添加顺序
+     */
+    private final LinkedHashMap<String, Group> groups = new LinkedHashMap<>();
+
+    /**
+     * 添加下拉框单元格区域(下标均从0开始)
+     *
+     * @param options  下拉框值
+     * @param firstRow 开始行下标
+     * @param lastRow  结束行下标
+     * @param firstCol 开始列下标
+     * @param lastCol  结束列下标
+     */
+    public void add(String[] options, int firstRow, int lastRow, int firstCol, int lastCol) {
+        Group group = this.identityGroups.get(options);
+        if (group == null) {
+            String signature = signature(options);
+            group = this.groups.get(signature);
+            if (group == null) {
+                group = new Group(options);
+                this.groups.put(signature, group);
+            }
+            if (this.identityGroups.size() >= MAX_IDENTITY_SIZE) {
+                //每个单元格都new一个数组的情况下,不能让缓存无限增长
+                this.identityGroups.clear();
+            }
+            this.identityGroups.put(options, group);
+        }
+        group.add(firstRow, lastRow, firstCol, lastCol);
+    }
+
+    /**
+     * 是否没有收集到任何区域
+     */
+    public boolean isEmpty() {
+        return this.groups.isEmpty();
+    }
+
+    /**
+     * 结束收集,依次处理每组下拉框值及其覆盖的区域
+     *
+     * @param handler 处理分组
+     */
+    public <E extends Exception> void collect(HandlerGroup<E> handler) throws E {
+        for (Group group : this.groups.values()) {
+            handler.accept(group.options, group.toCellRangeAddressList());
+        }
+        this.identityGroups.clear();
+        this.groups.clear();
+    }
+
+    @FunctionalInterface
+    public interface HandlerGroup<E extends Exception> {
+
+        /**
+         * 处理一组下拉框校验
+         *
+         * @param options 下拉框值
+         * @param regions 该组覆盖的所有区域
+         */
+        void accept(String[] options, CellRangeAddressList regions) throws E;
+    }
+
+    /**
+     * 计算下拉框值签名
+     *
+     * @param options 下拉框值
+     * @return 签名
+     */
+    public static String signature(String[] options) {
+        StringBuilder sb = new StringBuilder();
+        for (String option : options) {
+            sb.append(option).append('\u0000');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 同一组下拉框值的所有区域
+     */
+    private static final class Group {
+
+        private final String[] options;
+
+        /**
+         * 已经结束的区域,每4个值为一个区域:开始行,结束行,开始列,结束列
+         */
+        private int[] closed = new int[16];
+
+        private int closedSize;
+
+        /**
+         * 每列正在延伸的区域,按开始列下标索引
+         */
+        private Run[] runs = new Run[16];
+
+        private final List<Run> activeRuns = new ArrayList<>();
+
+        private Group(String[] options) {
+            this.options = Arrays.copyOf(options, options.length);
+        }
+
+        private void add(int firstRow, int lastRow, int firstCol, int lastCol) {
+            if (firstCol >= this.runs.length) {
+                this.runs = Arrays.copyOf(this.runs, Math.max(firstCol + 1, this.runs.length * 2));
+            }
+            Run run = this.runs[firstCol];
+            if (run == null) {
+                run = new Run(firstRow, lastRow, firstCol, lastCol);
+                this.runs[firstCol] = run;
+                this.activeRuns.add(run);
+                return;
+            }
+            if (run.lastCol == lastCol && firstRow >= run.firstRow && firstRow <= run.lastRow + 1) {
+                //同列且行连续,直接延伸
+                if (lastRow > run.lastRow) {
+                    run.lastRow = lastRow;
+                }
+                return;
+            }
+            this.close(run);
+            run.firstRow = firstRow;
+            run.lastRow = lastRow;
+            run.lastCol = lastCol;
+        }
+
+        private void close(Run run) {
+            if (this.closedSize + 4 > this.closed.length) {
+                this.closed = Arrays.copyOf(this.closed, this.closed.length * 2);
+            }
+            this.closed[this.closedSize++] = run.firstRow;
+            this.closed[this.closedSize++] = run.lastRow;
+            this.closed[this.closedSize++] = run.firstCol;
+            this.closed[this.closedSize++] = run.lastCol;
+        }
+
+        private CellRangeAddressList toCellRangeAddressList() {
+            for (Run run : this.activeRuns) {
+                this.close(run);
+            }
+            CellRangeAddressList list = new CellRangeAddressList();
+            for (int i = 0; i < this.closedSize; i += 4) {
+                list.addCellRangeAddress(this.closed[i], this.closed[i + 2], this.closed[i + 1], this.closed[i + 3]);
+            }
+            return list;
+        }
+    }
+
+    /**
+     * 单列上正在延伸的区域
+     */
+    private static final class Run {
+
+        private int firstRow;
+
+        private int lastRow;
+
+        private final int firstCol;
+
+        private int lastCol;
+
+        private Run(int firstRow, int lastRow, int firstCol, int lastCol) {
+            this.firstRow = firstRow;
+            this.lastRow = lastRow;
+            this.firstCol = firstCol;
+            this.lastCol = lastCol;
+        }
+    }
+
+}
@@ -3,32 +3,37 @@ package com.avalon.holygrail.excel.bean;
 import com.avalon.holygrail.excel.exception.ExcelException;
 import com.avalon.holygrail.excel.exception.ExportException;
 import com.avalon.holygrail.excel.model.ExcelTitleCellAbstract;
+import com.avalon.holygrail.excel.model.TitleLayout;
 import com.avalon.holygrail.excel.norm.*;
-import com.avalon.holygrail.util.ClassUtil;
 import com.avalon.holygrail.util.StringUtil;
+import org.apache.poi.openxml4j.opc.PackagePart;
+import org.apache.poi.openxml4j.opc.TargetMode;
 import org.apache.poi.ss.usermodel.DataValidation;
 import org.apache.poi.ss.usermodel.DataValidationConstraint;
 import org.apache.poi.ss.usermodel.DataValidationHelper;
 import org.apache.poi.ss.util.CellRangeAddress;
 import org.apache.poi.ss.util.CellRangeAddressList;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.util.IOUtils;
 import org.apache.poi.xssf.streaming.SXSSFCell;
 import org.apache.poi.xssf.streaming.SXSSFRow;
 import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFClientAnchor;
 import org.apache.poi.xssf.usermodel.XSSFDataValidation;
 import org.apache.poi.xssf.usermodel.XSSFDrawing;
+import org.apache.poi.xssf.usermodel.XSSFRelation;
+import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.CTPicture;
+import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.CTTwoCellAnchor;
+import org.openxmlformats.schemas.drawingml.x2006.spreadsheetDrawing.STEditAs;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTMergeCell;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTMergeCells;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTWorksheet;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.beans.PropertyDescriptor;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
-import java.lang.reflect.Field;
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.*;
 import java.util.function.Function;
 
@@ -46,12 +51,39 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
 
     protected LinkedList<MergeCell> dataTitleMergeCells;//与数据相关的表头信息
 
+    protected SXSSFRowTemplate rowTemplate;//由数据表头编译的数据行模板
+
     protected int rowCursor = -1;//行游标,记录每次插入数据时的总起始行号
 
     protected int colCursor = -1;//列游标,记录每次插入数据时的总起始列号
 
     protected int totalDataSize;//数据记录总数
 
+    protected SXSSFDataValidationCollector dataValidations = new SXSSFDataValidationCollector();//下拉框校验区域
+
+    protected SXSSFMergedRegionCollector mergedRegions = new SXSSFMergedRegionCollector();//合并区域
+
+    protected XSSFDrawing drawing;//图片画布,第一次插入图片时创建
+
+    protected CTPicture pictureTemplate;//第一张图片,之后的图片复制它的结构
+
+    protected HashMap<Integer, String> pictureRelations = new HashMap<>();//图片下标 -> 画布中的引用id
+
+    protected long pictureShapeId;//最后一张图片的形状id
+
+    protected ExcelAggregateCollector aggregates;//列汇总,没有设置为null
+
+    protected SXSSFColumnWidthCollector columnWidths;//自动列宽,没有开启为null
+
+    protected boolean sharedStrings;//是否使用共享字符串写入字符串单元格
+
+    protected boolean finished;//是否已经结束
+
+    /**
+     * Excel显式下拉列表最大长度
+     */
+    protected static final int MAX_EXPLICIT_LIST_LENGTH = 255;
+
     public SXSSFExcelSheetExport(String sheetName, SXSSFExcelWorkBookExport ownerWorkBook) throws ExportException {
         super(ownerWorkBook.sxssfWorkbook);
         try {
@@ -60,6 +92,9 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
             throw new ExportException("已经存在名为:" + sheetName + "的sheet", e);
         }
         this.ownerWorkBook = ownerWorkBook;
+        if (ownerWorkBook.getSharedStrings() != null) {
+            this.sharedStrings = SXSSFSharedStringWriter.install(this.sheet, ownerWorkBook.getSharedStrings());
+        }
     }
 
     public SXSSFExcelSheetExport(SXSSFWorkbook workbook, String sheetName, SXSSFExcelWorkBookExport ownerWorkBook) throws ExportException {
@@ -70,6 +105,9 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
             throw new ExportException("已经存在名为:" + sheetName + "的sheet", e);
         }
         this.ownerWorkBook = ownerWorkBook;
+        if (ownerWorkBook.getSharedStrings() != null) {
+            this.sharedStrings = SXSSFSharedStringWriter.install(this.sheet, ownerWorkBook.getSharedStrings());
+        }
     }
 
     /**
@@ -117,23 +155,139 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
     }
 
     /**
-     * 获取数据校验对象
+     * 登记下拉框校验区域,在Sheet结束时按列合并后统一生成
+     *
+     * @param mergeCell 单元格相关信息
      */
-    protected DataValidation getDataValidation(SXSSFMergeCell mergeCell) {
+    protected void addDataValidation(SXSSFMergeCell mergeCell) {
         if (mergeCell.getType() == CellOption.CellType.COMBOBOX && mergeCell.getOptions().length > 0) {
-            DataValidationHelper helper = this.sheet.getDataValidationHelper();
-            CellRangeAddressList cellRangeAddressList = new CellRangeAddressList(mergeCell.getStartRowNum() - 1, mergeCell.getEndRowNum() - 1, mergeCell.getStartColNum() - 1, mergeCell.getEndColNum() - 1);
-            DataValidationConstraint constraint = helper.createExplicitListConstraint(mergeCell.getOptions());
-            DataValidation dataValidation = helper.createValidation(constraint, cellRangeAddressList);
-            if (dataValidation instanceof XSSFDataValidation) {
-                dataValidation.setSuppressDropDownArrow(true);
-                dataValidation.setShowErrorBox(true);
-            } else {
-                dataValidation.setSuppressDropDownArrow(true);
+            this.dataValidations.add(mergeCell.getOptions(), mergeCell.getStartRowNum() - 1, mergeCell.getEndRowNum() - 1, mergeCell.getStartColNum() - 1, mergeCell.getEndColNum() - 1);
+        }
+    }
+
+    /**
+     * 获取数据校验对象
+     * 下拉框值超过Excel显式列表长度限制时,改为引用隐藏Sheet中的下拉框值
+     *
+     * @param options 下拉框值
+     * @param regions 校验区域
+     */
+    protected DataValidation createDataValidation(String[] options, CellRangeAddressList regions) {
+        DataValidationHelper helper = this.sheet.getDataValidationHelper();
+        DataValidationConstraint constraint;
+        if (getExplicitListLength(options) <= MAX_EXPLICIT_LIST_LENGTH) {
+            constraint = helper.createExplicitListConstraint(options);
+        } else {
+            constraint = helper.createFormulaListConstraint(this.ownerWorkBook.getOptionsName(options));
+        }
+        DataValidation dataValidation = helper.createValidation(constraint, regions);
+        if (dataValidation instanceof XSSFDataValidation) {
+            dataValidation.setSuppressDropDownArrow(true);
+            dataValidation.setShowErrorBox(true);
+        } else {
+            dataValidation.setSuppressDropDownArrow(true);
+        }
+        return dataValidation;
+    }
+
+    /**
+     * 计算下拉框值作为显式列表时的长度(值之间以","分隔)
+     *
+     * @param options 下拉框值
+     */
+    protected static int getExplicitListLength(String[] options) {
+        int length = options.length - 1;
+        for (String option : options) {
+            length += option == null ? 0 : option.length();
+        }
+        return length;
+    }
+
+    /**
+     * 结束Sheet
+     * 处理需要等所有数据写入完成后才能生成的内容,导出时由所属工作簿调用
+     */
+    protected void finishSheet() throws ExcelException {
+        if (this.finished) {
+            return;
+        }
+        this.finished = true;
+        this.writeAggregates();
+        //自动列宽不小于表头设置的宽度
+        if (this.columnWidths != null) {
+            this.columnWidths.collect((columnIndex, width) -> {
+                if (width > this.sheet.getColumnWidth(columnIndex)) {
+                    this.setColumnWidth(columnIndex, width);
+                }
+            });
+        }
+        //每组下拉框值只生成一个校验
+        this.dataValidations.collect((options, regions) -> this.sheet.addValidationData(this.createDataValidation(options, regions)));
+        this.addMergedRegions();
+    }
+
+    /**
+     * 在数据之后写入汇总行,每种汇总类型一行,第一列不汇总时写入汇总类型标题
+     */
+    protected void writeAggregates() throws ExcelException {
+        ExcelAggregateCollector aggregates = this.aggregates;
+        if (aggregates == null) {
+            return;
+        }
+        SXSSFRowTemplate rowTemplate = this.rowTemplate;
+        SXSSFCellStyleCache cellStyleCache = this.ownerWorkBook.getCellStyleCache();
+        for (int footer = 0; footer < aggregates.getFooterSize(); footer++) {
+            int startRow = this.rowCursor + 2;
+            this.findRow(startRow);
+            for (int i = 0; i < rowTemplate.size(); i++) {
+                ExcelAggregate aggregate = aggregates.getAggregate(footer, i);
+                if (aggregate == null && i > 0) {
+                    continue;
+                }
+                SXSSFMergeCell mergeCell = rowTemplate.resetCell(i, startRow);
+                //没有数据时公式没有可以引用的区域,列中有文本时公式会忽略文本,都写入计算好的值
+                boolean formula = aggregate != null && aggregate.isFormula() && aggregates.hasRows()
+                        && (aggregate.getType() == ExcelAggregate.Type.COUNT || !aggregates.hasText(i));
+                if (aggregate == null) {
+                    mergeCell.setValue(aggregates.getType(footer).label);
+                } else if (!formula) {
+                    mergeCell.setValue(aggregates.getValue(footer, i));
+                }
+                mergeCell.setWriteEmpty(true);
+                this.buildCell(mergeCell, rowTemplate.getCellStyle(i, mergeCell, cellStyleCache));
+                if (formula) {
+                    String column = CellReference.convertNumToColString(mergeCell.getStartColNum() - 1);
+                    this.findCell(this.findRow(startRow), mergeCell.getStartColNum()).setCellFormula(aggregate.getType().function
+                            + "(" + column + (aggregates.getFirstRow() + 1) + ":" + column + (aggregates.getLastRow() + 1) + ")");
+                }
             }
-            return dataValidation;
         }
-        return null;
+    }
+
+    /**
+     * 将收集的合并区域一次性写入Sheet
+     * 直接设置mergeCells数组,不经过addMergedRegion逐个追加
+     */
+    protected void addMergedRegions() {
+        if (this.mergedRegions.isEmpty()) {
+            return;
+        }
+        CTWorksheet worksheet = this.sxssfWorkbook.getXSSFWorkbook().getSheet(this.sheet.getSheetName()).getCTWorksheet();
+        CTMergeCells ctMergeCells = worksheet.isSetMergeCells() ? worksheet.getMergeCells() : worksheet.addNewMergeCells();
+        int size = ctMergeCells.sizeOfMergeCellArray();
+        //已有的合并区域放在前面,一次设置全部合并区域;poi-ooxml-schemas 3.9不包含getMergeCellList使用的类,按下标读取
+        CTMergeCell[] ctMergeCellArray = new CTMergeCell[size + this.mergedRegions.size()];
+        for (int i = 0; i < size; i++) {
+            ctMergeCellArray[i] = ctMergeCells.getMergeCellArray(i);
+        }
+        int[] index = {size};
+        this.mergedRegions.collect((firstRow, lastRow, firstCol, lastCol) -> {
+            CTMergeCell ctMergeCell = CTMergeCell.Factory.newInstance();
+            ctMergeCell.setRef(new CellRangeAddress(firstRow, lastRow, firstCol, lastCol).formatAsString());
+            ctMergeCellArray[index[0]++] = ctMergeCell;
+        });
+        ctMergeCells.setMergeCellArray(ctMergeCellArray);
+        ctMergeCells.setCount(ctMergeCellArray.length);
     }
 
     /**
@@ -142,39 +296,49 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
      * @param mergeCell 单元格相关信息
      */
     protected void buildCell(SXSSFMergeCell mergeCell) throws ExcelException {
-        if (!mergeCell.isWriteEmpty() && StringUtil.isEmpty(mergeCell.getValue())) {
+        this.buildCell(mergeCell, this.ownerWorkBook.getCellStyleCache().getCellStyle(mergeCell));
+    }
+
+    /**
+     * 构建单元格
+     *
+     * @param mergeCell 单元格相关信息
+     * @param cellStyle 单元格样式
+     */
+    protected void buildCell(SXSSFMergeCell mergeCell, XSSFCellStyle cellStyle) throws ExcelException {
+        Object value = mergeCell.getValue();
+        if (!mergeCell.isWriteEmpty() && StringUtil.isEmpty(value)) {
             //不允许写入空值且当前值为空
             return;
         }
-        for (int i = 0; i < mergeCell.getRowSpan(); i++) {
-            SXSSFRow row = this.findRow(mergeCell.getStartRowNum() + i);
-            for (int j = 0; j < mergeCell.getColSpan(); j++) {
-                SXSSFCell cell = this.findCell(row, mergeCell.getStartColNum() + j);
-                DataValidation dataValidation = this.getDataValidation(mergeCell);
-                if (dataValidation != null) {
-                    this.sheet.addValidationData(dataValidation);
-                }
-                SXSSFLoader sxssfLoader = new SXSSFLoader(this.sxssfWorkbook, this.sheet, cell);
-                //设置属性
-                mergeCell.copyCellOptionSelective(sxssfLoader);
-                //设置样式
-                sxssfLoader.getCellStyleByName(mergeCell);
-                //设置字体
-                sxssfLoader.getFontByName(mergeCell);
-            }
-        }
-        //添加合并单元格
+        //登记下拉框校验
+        this.addDataValidation(mergeCell);
         int firstRow = mergeCell.getStartRowNum() - 1;
         int lastRow = mergeCell.getEndRowNum() - 1;
         int firstCol = mergeCell.getStartColNum() - 1;
         int lastCol = mergeCell.getEndColNum() - 1;
-
-        if(firstRow == lastRow && firstCol == lastCol) {
+        if (this.columnWidths != null) {
+            this.columnWidths.add(firstCol, lastCol, value);
+        }
+        for (int rowNum = firstRow + 1; rowNum <= lastRow + 1; rowNum++) {
+            SXSSFRow row = this.findRow(rowNum);
+            for (int colNum = firstCol + 1; colNum <= lastCol + 1; colNum++) {
+                SXSSFCell cell = this.findCell(row, colNum);
+                //设置样式,日期值需要日期格式
+                cell.setCellStyle(value != null && SXSSFLoader.isDate(value) ? this.ownerWorkBook.getCellStyleCache().getDateCellStyle(cellStyle) : cellStyle);
+                //设置值
+                if (value != null) {
+                    SXSSFLoader.setCellValue(cell, value);
+                }
+            }
+        }
+        //添加合并单元格
+        if (firstRow == lastRow && firstCol == lastCol) {
             //同一单元格,不用合并
             return;
         }
-        CellRangeAddress cellRangeAddress = new CellRangeAddress(firstRow, lastRow, firstCol, lastCol);
-        this.sheet.addMergedRegion(cellRangeAddress);
+        //Sheet结束时统一写入
+        this.mergedRegions.add(firstRow, lastRow, firstCol, lastCol);
     }
 
     /**
@@ -203,11 +367,7 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
     }
 
     protected <T> void parseRecord(T record) throws ExcelException {
-        if (record instanceof Map) {
-            this.parseMap((Map<String, Object>) record);
-            return;
-        }
-        this.parseObject(record);
+        this.parseRecord(record, -1, null);
     }
 
     /**
@@ -232,177 +392,142 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
         Object apply(Object value, T record, CellHandler cellHandler, String field, int rowCursor, int index) throws ExportException;
     }
 
+    /**
+     * 按数据行模板写入一条数据
+     *
+     * @param record    当前行数据
+     * @param index     当前数据在数据集合中的下标
+     * @param formatter 格式化函数,为null时不格式化
+     */
     protected <T> void parseRecord(T record, int index, FormatterCell<T> formatter) throws ExcelException {
-        if (record instanceof Map) {
-            this.parseMap((Map<String, Object>) record, index, (FormatterCell<Map<String, Object>>) formatter);
-            return;
+        SXSSFRowTemplate rowTemplate = this.rowTemplate;
+        if (rowTemplate == null) {
+            throw new ExportException("SXSSFExcelSheetExport 请先设置表头");
         }
-        this.parseObject(record, index, formatter);
-    }
-
-    protected void parseMap(Map<String, Object> record) throws ExcelException {
+        SXSSFCellStyleCache cellStyleCache = this.ownerWorkBook.getCellStyleCache();
+        RecordFieldReader fieldReader = rowTemplate.getFieldReader();
+        boolean map = fieldReader.prepare(record);
+        //默认开始行使用当前游标+2
         int startRow = this.rowCursor + 2;
-        for (MergeCell titleMergeCell : this.dataTitleMergeCells) {
-            SXSSFMergeCell tMergeCell = (SXSSFMergeCell) titleMergeCell;
-            //创建数据单元格,默认开始行使用当前游标+2、默认开始列与title一致，默认占用一行、占用列与title一致
-            SXSSFMergeCell mergeCell = new SXSSFMergeCell(startRow, tMergeCell.getStartColNum(), 1, tMergeCell.getColSpan());
-            mergeCell.setField(tMergeCell.getField());
-            mergeCell.setWriteEmpty(tMergeCell.isWriteEmpty());
-            for (Map.Entry<String, Object> entry : record.entrySet()) {
-                if (!entry.getKey().equals(mergeCell.getField())) {
-                    continue;
+        SXSSFRow row = null;
+        for (int i = 0; i < rowTemplate.size(); i++) {
+            int kind = fieldReader.getKind(i);
+            if (kind != RecordFieldReader.KIND_OBJECT && formatter == null && rowTemplate.isSingle(i)) {
+                if (row == null) {
+                    row = this.findRow(startRow);
                 }
-                try {
-                    Object value = entry.getValue();
-                    mergeCell.setValue(value == null ? "" : value.toString());
-                } catch (Exception e) {
-                    mergeCell.setValue("");
+                if (this.writePrimitive(rowTemplate, fieldReader, record, i, kind, row)) {
+                    continue;
                 }
-                this.buildCell(mergeCell);
-                break;
             }
-        }
-    }
-
-    protected void parseMap(Map<String, Object> record, int index, FormatterCell<Map<String, Object>> formatter) throws ExcelException {
-        int startRow = this.rowCursor + 2;
-        for (MergeCell titleMergeCell : this.dataTitleMergeCells) {
-            SXSSFMergeCell tMergeCell = (SXSSFMergeCell) titleMergeCell;
-            //创建数据单元格,默认开始行使用当前游标+2、默认开始列与title一致，默认占用一行、占用列与title一致
-            SXSSFMergeCell mergeCell = new SXSSFMergeCell(startRow, tMergeCell.getStartColNum(), 1, tMergeCell.getColSpan());
-            mergeCell.setField(tMergeCell.getField());
-            mergeCell.setWriteEmpty(tMergeCell.isWriteEmpty());
-            int i = 0;
-            for (Map.Entry<String, Object> entry : record.entrySet()) {
-                boolean last = i++ == record.size() - 1;
-                boolean equal = entry.getKey().equals(mergeCell.getField());
-                if (!equal && !last) {//不等于且不是最后一条,继续
+            Object value = fieldReader.read(record, i);
+            SXSSFMergeCell mergeCell = rowTemplate.resetCell(i, startRow);
+            if (formatter == null) {
+                if (value == RecordFieldReader.ABSENT) {
+                    //Map中没有该列,不写入
                     continue;
                 }
-                Object value;
-                if (equal) {//等于
-                    try {
-                        value = entry.getValue();
-                    } catch (Exception e) {
-                        value = "";
-                    }
-                } else {//最后一条依然不等于,给个默认值""
+                if (value == null) {
+                    value = "";
+                } else if (map && !(value instanceof Number && this.aggregates != null && this.aggregates.isAggregated(i))) {
+                    //汇总列的数值按数值写入,公式才能计算
+                    value = value.toString();
+                }
+            } else {
+                if (value == RecordFieldReader.ABSENT) {
                     value = "";
                 }
                 //格式化
                 value = formatter.apply(value, record, mergeCell, mergeCell.getField(), this.rowCursor, index);
-                mergeCell.setValue(value);
-                this.buildCell(mergeCell);
-                break;
             }
+            mergeCell.setValue(value);
+            this.buildCell(mergeCell, rowTemplate.getCellStyle(i, mergeCell, cellStyleCache));
+            if (this.aggregates != null) {
+                this.aggregates.accept(i, value);
+            }
+        }
+        if (this.aggregates != null) {
+            this.aggregates.row(startRow - 1, this.rowCursor);
         }
     }
 
-    protected <T> void parseObject(T record) throws ExcelException {
-        int startRow = this.rowCursor + 2;
-        ArrayList<Field> fs = ClassUtil.getAllFields(record.getClass());
-        for (MergeCell titleMergeCell : this.dataTitleMergeCells) {
-            SXSSFMergeCell tMergeCell = (SXSSFMergeCell) titleMergeCell;
-            //创建数据单元格,默认开始行使用当前游标+2、默认开始列与title一致，默认占用一行、占用列与title一致
-            SXSSFMergeCell mergeCell = new SXSSFMergeCell(startRow, tMergeCell.getStartColNum(), 1, tMergeCell.getColSpan());
-            mergeCell.setField(tMergeCell.getField());
-            mergeCell.setWriteEmpty(tMergeCell.isWriteEmpty());
-            for (int i = 0; i < fs.size(); i++) {
-                Field f = fs.get(i);
-                f.setAccessible(true);
-                boolean last = i == fs.size() - 1;
-                boolean equal = f.getName().equals(mergeCell.getField());
-                if (!equal && !last) {
-                    continue;
+    /**
+     * 基本类型列直接按值类型写入,不装箱
+     *
+     * @param rowTemplate 数据行模板
+     * @param fieldReader 字段读取器
+     * @param record      当前行数据
+     * @param i           列下标
+     * @param kind        列值类型
+     * @param row         当前行
+     * @return 是否已经写入, 取值函数不能链接时返回false, 按对象写入
+     */
+    protected boolean writePrimitive(SXSSFRowTemplate rowTemplate, RecordFieldReader fieldReader, Object record, int i, int kind, SXSSFRow row) throws ExcelException {
+        long longValue = 0;
+        double doubleValue = 0;
+        boolean booleanValue = false;
+        try {
+            switch (kind) {
+                case RecordFieldReader.KIND_INT:
+                    longValue = fieldReader.readInt(record, i);
+                    break;
+                case RecordFieldReader.KIND_LONG:
+                    longValue = fieldReader.readLong(record, i);
+                    break;
+                case RecordFieldReader.KIND_DOUBLE:
+                    doubleValue = fieldReader.readDouble(record, i);
+                    break;
+                default:
+                    booleanValue = fieldReader.readBoolean(record, i);
+            }
+        } catch (RuntimeException e) {
+            //getter抛出异常时与按对象读取一样写入空字符串,不再调用一次getter
+            SXSSFMergeCell mergeCell = rowTemplate.resetCell(i, row.getRowNum() + 1);
+            mergeCell.setValue("");
+            this.buildCell(mergeCell, rowTemplate.getCellStyle(i, mergeCell, this.ownerWorkBook.getCellStyleCache()));
+            return true;
+        } catch (LinkageError e) {
+            //取值函数不能链接到数据类型,该列之后都按对象读取
+            fieldReader.demote(i);
+            return false;
+        }
+        int startColNum = rowTemplate.getStartColNum(i);
+        SXSSFCell cell = this.findCell(row, startColNum);
+        cell.setCellStyle(rowTemplate.getCellStyle(i));
+        Object widthValue = null;//自动列宽需要的值,没有开启时不装箱
+        switch (kind) {
+            case RecordFieldReader.KIND_INT:
+            case RecordFieldReader.KIND_LONG:
+                SXSSFLoader.writeLong(cell, longValue);
+                if (this.aggregates != null) {
+                    this.aggregates.accept(i, (double) longValue);
                 }
-                Object value;
-                if (equal) {
-                    try {
-                        value = new PropertyDescriptor(f.getName(), record.getClass()).getReadMethod().invoke(record);
-                        //Object value = this.access.invoke(record, ClassUtil.getGetterMethodName(f.getName(), null));
-                    } catch (Exception e) {
-                        value = "";
-                    }
-                } else {
-                    //能进入这里,说明已经是最后一个属性了,但是还是没找到orz...尝试获取属性对应get方法
-                    Method getMethod = ClassUtil.getMethod(record.getClass(), ClassUtil.getGetterMethodName(mergeCell.getField(), ""));
-                    if (getMethod == null) {
-                        getMethod = ClassUtil.getMethod(record.getClass(), ClassUtil.getGetterMethodName(mergeCell.getField(), "boolean"));
-                    }
-                    if (getMethod != null) {
-                        try {
-                            value = getMethod.invoke(record);
-                        } catch (IllegalAccessException e) {
-                            value = "";
-                        } catch (InvocationTargetException e) {
-                            value = "";
-                        }
-                    } else {
-                        value = "";
-                    }
+                if (this.columnWidths != null) {
+                    widthValue = longValue;
                 }
-                mergeCell.setValue(value == null ? "" : value);
-                this.buildCell(mergeCell);
                 break;
-            }
-        }
-    }
-
-    protected <T> void parseObject(T record, int index, FormatterCell<T> formatter) throws ExcelException {
-        int startRow = this.rowCursor + 2;
-        ArrayList<Field> fs = ClassUtil.getAllFields(record.getClass());
-        for (MergeCell titleMergeCell : this.dataTitleMergeCells) {
-            SXSSFMergeCell tMergeCell = (SXSSFMergeCell) titleMergeCell;
-            //创建数据单元格,默认开始行使用当前游标+2、默认开始列与title一致，默认占用一行、占用列与title一致
-            SXSSFMergeCell mergeCell = new SXSSFMergeCell(startRow, tMergeCell.getStartColNum(), 1, tMergeCell.getColSpan());
-            mergeCell.setField(tMergeCell.getField());
-            mergeCell.setWriteEmpty(tMergeCell.isWriteEmpty());
-            for (int i = 0; i < fs.size(); i++) {
-                Field f = fs.get(i);
-                f.setAccessible(true);
-                boolean last = i == fs.size() - 1;
-                boolean equal = f.getName().equals(mergeCell.getField());
-                if (!equal && !last) {
-                    continue;
+            case RecordFieldReader.KIND_DOUBLE:
+                SXSSFLoader.writeDouble(cell, doubleValue);
+                if (this.aggregates != null) {
+                    this.aggregates.accept(i, doubleValue);
                 }
-                Object value;
-                if (equal) {//等于
-                    try {
-                        value = new PropertyDescriptor(f.getName(), record.getClass()).getReadMethod().invoke(record);
-                        //value = this.access.invoke(record, ClassUtil.getGetterMethodName(f.getName(), null));
-                    } catch (Exception e) {
-                        value = "";
-                    }
-                } else {//最后一条依然不等于,给个默认值""
-                    //能进入这里,说明已经是最后一个属性了,但是还是没找到orz...尝试获取属性对应get方法
-                    Method getMethod = ClassUtil.getMethod(record.getClass(), ClassUtil.getGetterMethodName(mergeCell.getField(), ""));
-                    if (getMethod == null) {
-                        getMethod = ClassUtil.getMethod(record.getClass(), ClassUtil.getGetterMethodName(mergeCell.getField(), "boolean"));
-                    }
-                    if (getMethod != null) {
-                        try {
-                            value = getMethod.invoke(record);
-                        } catch (IllegalAccessException e) {
-                            value = "";
-                        } catch (InvocationTargetException e) {
-                            value = "";
-                        }
-                    } else {
-                        value = "";
-                    }
+                if (this.columnWidths != null) {
+                    widthValue = doubleValue;
                 }
-                //格式化
-                value = formatter.apply(value, record, mergeCell, mergeCell.getField(), this.rowCursor, index);
-                mergeCell.setValue(value);
-                this.buildCell(mergeCell);
                 break;
-            }
+            default:
+                SXSSFLoader.writeBoolean(cell, booleanValue);
+                if (this.aggregates != null) {
+                    this.aggregates.accept(i, Boolean.valueOf(booleanValue));
+                }
+                widthValue = Boolean.valueOf(booleanValue);
+        }
+        if (this.columnWidths != null) {
+            this.columnWidths.add(startColNum - 1, startColNum - 1, widthValue);
         }
+        return true;
     }
 
-//    private Class cls = Object.class;
-//    private MethodAccess access = null;
-
     /**
      * 解析数据
      *
@@ -413,19 +538,37 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
         this.totalDataSize += records.size();
         //找到了表头对应的数据
         for (T record : records) {
-/*            if(record.getClass() != this.cls || this.access == null) {
-                this.cls = record.getClass();
-                this.access = MethodAccess.get(this.cls);
-            }*/
+            this.ownerWorkBook.checkCancelled();
             this.parseRecord(record);
+            this.ownerWorkBook.writtenDataSize++;
         }
     }
 
+    @Override
+    public void export(File outFile) throws IOException {
+        this.ownerWorkBook.export(outFile);
+    }
+
     @Override
     public void export(String outPath) throws IOException {
         super.export(outPath);
     }
 
+    @Override
+    public int getWrittenDataSize() {
+        return this.ownerWorkBook.getWrittenDataSize();
+    }
+
+    @Override
+    public void cancel() {
+        this.ownerWorkBook.cancel();
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.ownerWorkBook.isCancelled();
+    }
+
     /**
      * 解析数据
      *
@@ -437,11 +580,9 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
         this.totalDataSize += records.size();
         int index = 0;
         for (T record : records) {
-/*            if(record.getClass() != this.cls || this.access == null) {
-                this.cls = record.getClass();
-                this.access = MethodAccess.get(this.cls);
-            }*/
+            this.ownerWorkBook.checkCancelled();
             this.parseRecord(record, index, formatter);
+            this.ownerWorkBook.writtenDataSize++;
             index++;
         }
     }
@@ -465,20 +606,17 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
 
     @Override
     public ExcelSheetExport parseTitlesJson(String titlesJson, boolean exportTitles) throws ExcelException {
-        SXSSFExcelTitle[][] excelTitles = this.parseCellsJson(titlesJson);
-        return setTitles(excelTitles, exportTitles);
+        return setTitles(this.getTitleLayout(titlesJson), exportTitles);
     }
 
     @Override
     public ExcelSheetExport parseTitlesJson(InputStream inputStream, boolean exportTitles) throws IOException, ExcelException {
-        SXSSFExcelTitle[][] excelTitles = (SXSSFExcelTitle[][]) this.parseCellsJson(inputStream);
-        return setTitles(excelTitles, exportTitles);
+        return setTitles(this.getTitleLayout(this.readTitlesJson(inputStream)), exportTitles);
     }
 
     @Override
     public ExcelSheetExport parseTitlesJson(File file, boolean exportTitles) throws IOException, ExcelException {
-        SXSSFExcelTitle[][] excelTitles = (SXSSFExcelTitle[][]) this.parseCellsJson(file);
-        return setTitles(excelTitles, exportTitles);
+        return setTitles(this.getTitleLayout(file), exportTitles);
     }
 
     @Override
@@ -486,8 +624,14 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
         if (!(excelTitles instanceof SXSSFExcelTitle[][])) {
             throw new ExportException("SXSSFExcelSheetExport setTitles excelTitles类型应该为SXSSFExcelTitle[][]");
         }
-        this.titleMergeCells = handlerExcelTitles(excelTitles);
-        this.dataTitleMergeCells = this.searchDataTitleMergeCells(this.titleMergeCells);
+        return setTitles(this.compileTitleLayout(excelTitles), exportTitles);
+    }
+
+    @Override
+    public ExcelSheetExport setTitles(TitleLayout titleLayout, boolean exportTitles) throws ExcelException {
+        this.titleMergeCells = titleLayout.buildTitleMergeCells(this);
+        this.dataTitleMergeCells = titleLayout.getDataTitleMergeCells(this.titleMergeCells);
+        this.rowTemplate = new SXSSFRowTemplate(this.dataTitleMergeCells, this.ownerWorkBook.getCellStyleCache());
         //设置列宽
         for (MergeCell mergeCell : dataTitleMergeCells) {
             this.setMergeCellColumnWidth((SXSSFMergeCell) mergeCell);
@@ -509,34 +653,48 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
 
     @Override
     public ExcelSheetExport insertPicture(InputStream inputStream, ExcelWorkBook.PictureType pictureType, int dx1, int dy1, int dx2, int dy2, int col1, int row1, int col2, int row2) throws IOException {
-
-        ByteArrayOutputStream byteArrayOutputStream = null;
+        byte[] data;
         try {
-            BufferedImage bufferedImage;
-            byteArrayOutputStream = new ByteArrayOutputStream();
-            bufferedImage = ImageIO.read(inputStream);
-            ImageIO.write(bufferedImage, pictureType.suffix, byteArrayOutputStream);
-
-            XSSFDrawing drawing = (XSSFDrawing) this.sheet.createDrawingPatriarch();
-            XSSFClientAnchor anchor = new XSSFClientAnchor(dx1, dy1, dx2, dy2, (short) col1, row1, (short) col2, row2);
-            anchor.setAnchorType(3);
-
-            drawing.createPicture(anchor, this.sxssfWorkbook.addPicture(byteArrayOutputStream.toByteArray(), pictureType.value));
-        } catch (IOException e) {
-            throw e;
+            data = IOUtils.toByteArray(inputStream);
         } finally {
-            try {
-                if (byteArrayOutputStream != null) byteArrayOutputStream.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
-            try {
-                if (inputStream != null) inputStream.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+            inputStream.close();
         }
+        return this.insertPicture(data, pictureType, dx1, dy1, dx2, dy2, col1, row1, col2, row2);
+    }
 
+    @Override
+    public ExcelSheetExport insertPicture(byte[] data, ExcelWorkBook.PictureType pictureType, int dx1, int dy1, int dx2, int dy2, int col1, int row1, int col2, int row2) throws IOException {
+        //png、jpeg等能识别的数据原样写入,相同图片只保存一次
+        int pictureIndex = this.ownerWorkBook.getPictureCache().addPicture(data, pictureType);
+        XSSFClientAnchor anchor = new XSSFClientAnchor(dx1, dy1, dx2, dy2, (short) col1, row1, (short) col2, row2);
+        anchor.setAnchorType(3);
+        if (this.drawing == null) {
+            this.drawing = (XSSFDrawing) this.sheet.createDrawingPatriarch();
+        }
+        if (this.pictureTemplate == null) {
+            this.pictureTemplate = this.drawing.createPicture(anchor, pictureIndex).getCTPicture();
+            this.pictureRelations.put(pictureIndex, this.pictureTemplate.getBlipFill().getBlip().getEmbed());
+            this.pictureShapeId = this.pictureTemplate.getNvPicPr().getCNvPr().getId();
+            return this;
+        }
+        //XSSFDrawing.createPicture每次都新建引用,生成引用id和形状id都要遍历已有的图片;
+        //这里同一图片在画布中只引用一次,id自己递增
+        String relationId = this.pictureRelations.get(pictureIndex);
+        if (relationId == null) {
+            relationId = "rIdPicture" + this.pictureRelations.size();
+            PackagePart picturePart = this.sxssfWorkbook.getXSSFWorkbook().getAllPictures().get(pictureIndex).getPackagePart();
+            this.drawing.getPackagePart().addRelationship(picturePart.getPartName(), TargetMode.INTERNAL, XSSFRelation.IMAGES.getRelation(), relationId);
+            this.pictureRelations.put(pictureIndex, relationId);
+        }
+        CTTwoCellAnchor ctAnchor = this.drawing.getCTDrawing().addNewTwoCellAnchor();
+        ctAnchor.setFrom(anchor.getFrom());
+        ctAnchor.setTo(anchor.getTo());
+        ctAnchor.setEditAs(STEditAs.ABSOLUTE);
+        CTPicture ctPicture = ctAnchor.addNewPic();
+        ctPicture.set(this.pictureTemplate);
+        ctPicture.getNvPicPr().getCNvPr().setId(++this.pictureShapeId);
+        ctPicture.getBlipFill().getBlip().setEmbed(relationId);
+        ctAnchor.addNewClientData();
         return this;
     }
 
@@ -557,6 +715,28 @@ public class SXSSFExcelSheetExport extends SXSSFExcelWorkBookExport implements E
         return this;
     }
 
+    @Override
+    public ExcelSheetExport setAggregates(List<ExcelAggregate> aggregates) throws ExcelException {
+        if (this.rowTemplate == null) {
+            throw new ExportException("SXSSFExcelSheetExport 请先设置表头");
+        }
+        this.aggregates = new ExcelAggregateCollector(aggregates, this.rowTemplate.getFieldReader().getFields());
+        return this;
+    }
+
+    @Override
+    public ExcelSheetExport setAutoColumnWidth(boolean autoColumnWidth, int maxWidth) {
+        this.columnWidths = autoColumnWidth ? new SXSSFColumnWidthCollector(maxWidth) : null;
+        return this;
+    }
+
+    /**
+     * 是否使用共享字符串写入字符串单元格,工作簿开启共享字符串但该Sheet不能替换写入器时为false
+     */
+    public boolean isSharedStrings() {
+        return this.sharedStrings;
+    }
+
     @Override
     public int getTotalDataSize() {
         return this.totalDataSize;
@@ -1,13 +1,20 @@
 package com.avalon.holygrail.excel.bean;
 
+import com.avalon.holygrail.excel.exception.ExcelException;
 import com.avalon.holygrail.excel.exception.ExportException;
 import com.avalon.holygrail.excel.model.SXSSFExcelParserAbstract;
 import com.avalon.holygrail.excel.norm.ExcelSheetExport;
 import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
+import org.apache.poi.ss.usermodel.Name;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.ArrayList;
+import java.util.HashMap;
 
 /**
  * SXSSFWorkbook 导出Excel
@@ -15,10 +22,38 @@ import java.util.ArrayList;
  */
 public class SXSSFExcelWorkBookExport extends SXSSFExcelParserAbstract implements ExcelWorkBookExport {
 
+    private static final Logger log = LoggerFactory.getLogger(SXSSFExcelWorkBookExport.class);
+
+    /**
+     * 导出到文件时的缓冲区大小
+     */
+    public static final int BUFFER_SIZE = 1 << 16;
+
     protected SXSSFWorkbook sxssfWorkbook;
 
     protected ArrayList<SXSSFExcelSheetExport> sheets = new ArrayList<>();
 
+    /**
+     * 存放下拉框值的隐藏Sheet名称
+     */
+    public static final String OPTIONS_SHEET_NAME = "_options";
+
+    protected SXSSFSheet optionsSheet;//存放下拉框值的隐藏Sheet
+
+    protected int optionsRowCursor = -1;//隐藏Sheet行游标
+
+    protected HashMap<String, String> optionsNames = new HashMap<>();//下拉框值签名 => 引用名称
+
+    protected SXSSFCellStyleCache cellStyleCache;//单元格样式缓存,整个工作簿共用
+
+    protected SXSSFPictureCache pictureCache;//图片缓存,整个工作簿共用
+
+    protected SXSSFSharedStringDictionary sharedStrings;//共享字符串字典,没有开启为null
+
+    protected volatile int writtenDataSize;//已经写入的数据总数,只由写入线程修改
+
+    protected volatile boolean cancelled;//是否已经取消导出
+
     public SXSSFExcelWorkBookExport() {
         this.sxssfWorkbook = new SXSSFWorkbook();
     }
@@ -54,25 +89,175 @@ public class SXSSFExcelWorkBookExport extends SXSSFExcelParserAbstract implement
     }
 
     @Override
-    public void export(File outFile) throws IOException {
-        FileOutputStream fos = null;
-        OutputStream osw = null;
-        try {
-            fos = new FileOutputStream(outFile);
-            osw = new BufferedOutputStream(fos);
-            this.sxssfWorkbook.write(osw);
-        } finally {
-            try {
-                if (osw != null) osw.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+    public int getWrittenDataSize() {
+        return this.writtenDataSize;
+    }
+
+    @Override
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return this.cancelled;
+    }
+
+    /**
+     * 检查导出是否已经被取消或当前线程已经被中断
+     */
+    protected void checkCancelled() throws ExportException {
+        if (this.cancelled || Thread.currentThread().isInterrupted()) {
+            throw new ExportException("导出已取消");
+        }
+    }
+
+    /**
+     * 获取单元格样式缓存
+     */
+    protected SXSSFCellStyleCache getCellStyleCache() {
+        if (this.cellStyleCache == null) {
+            this.cellStyleCache = new SXSSFCellStyleCache(this.sxssfWorkbook);
+        }
+        return this.cellStyleCache;
+    }
+
+    /**
+     * 获取图片缓存
+     */
+    protected SXSSFPictureCache getPictureCache() {
+        if (this.pictureCache == null) {
+            this.pictureCache = new SXSSFPictureCache(this.sxssfWorkbook);
+        }
+        return this.pictureCache;
+    }
+
+    /**
+     * 开启共享字符串,之后创建的Sheet中重复出现的字符串只在共享字符串表中保存一份
+     * 适合学校、班级、科目等取值很少的列,取值分散的列自动按内联字符串写入
+     *
+     * @return 当前对象
+     */
+    public SXSSFExcelWorkBookExport enableSharedStrings() {
+        return this.enableSharedStrings(SXSSFSharedStringDictionary.DEFAULT_MAX_ENTRIES, SXSSFSharedStringDictionary.DEFAULT_MAX_CHARS,
+                SXSSFSharedStringDictionary.DEFAULT_MAX_COLUMN_ENTRIES);
+    }
+
+    /**
+     * 开启共享字符串
+     * 依赖POI 3.9的SXSSF内部实现(见SXSSFSharedStringWriter),当前POI版本不支持时不开启并记录警告,可通过isSharedStringsEnabled确认
+     *
+     * @param maxEntries       字典最多条目数
+     * @param maxChars         字典最多字符数
+     * @param maxColumnEntries 每列最多条目数,超过后该列不再使用字典
+     * @return 当前对象
+     */
+    public SXSSFExcelWorkBookExport enableSharedStrings(int maxEntries, long maxChars, int maxColumnEntries) {
+        if (!SXSSFSharedStringWriter.isSupported()) {
+            log.warn("当前POI版本不支持替换SXSSFSheet行数据写入器,不开启共享字符串");
+            return this;
+        }
+        this.sharedStrings = new SXSSFSharedStringDictionary(this.sxssfWorkbook.getXSSFWorkbook().getSharedStringSource(),
+                maxEntries, maxChars, maxColumnEntries);
+        return this;
+    }
+
+    /**
+     * 是否已经开启共享字符串,单个Sheet是否使用见SXSSFExcelSheetExport.isSharedStrings
+     */
+    public boolean isSharedStringsEnabled() {
+        return this.sharedStrings != null;
+    }
+
+    /**
+     * 获取共享字符串字典
+     *
+     * @return 没有开启返回null
+     */
+    protected SXSSFSharedStringDictionary getSharedStrings() {
+        return this.sharedStrings;
+    }
+
+    /**
+     * 获取下拉框值的引用名称
+     * 下拉框值依次写入隐藏Sheet的A列,同样的下拉框值只写入一次
+     *
+     * @param options 下拉框值
+     * @return 引用名称,可直接作为下拉列表公式
+     */
+    protected String getOptionsName(String[] options) {
+        String signature = SXSSFDataValidationCollector.signature(options);
+        String nameName = this.optionsNames.get(signature);
+        if (nameName != null) {
+            return nameName;
+        }
+        if (this.optionsSheet == null) {
+            String sheetName = OPTIONS_SHEET_NAME;
+            for (int i = 1; this.sxssfWorkbook.getSheet(sheetName) != null; i++) {
+                sheetName = OPTIONS_SHEET_NAME + i;
             }
-            try {
-                if (fos != null) fos.close();
-            } catch (IOException e) {
-                e.printStackTrace();
+            this.optionsSheet = (SXSSFSheet) this.sxssfWorkbook.createSheet(sheetName);
+            this.sxssfWorkbook.setSheetHidden(this.sxssfWorkbook.getSheetIndex(this.optionsSheet), true);
+        }
+        int firstRow = this.optionsRowCursor + 1;
+        for (String option : options) {
+            SXSSFRow row = (SXSSFRow) this.optionsSheet.createRow(++this.optionsRowCursor);
+            row.createCell(0).setCellValue(option);
+        }
+        nameName = OPTIONS_SHEET_NAME + this.optionsNames.size();
+        Name name = this.sxssfWorkbook.createName();
+        name.setNameName(nameName);
+        name.setRefersToFormula("'" + this.optionsSheet.getSheetName() + "'!$A$" + (firstRow + 1) + ":$A$" + (this.optionsRowCursor + 1));
+        this.optionsNames.put(signature, nameName);
+        return nameName;
+    }
+
+    /**
+     * 结束所有Sheet
+     */
+    protected void finishSheets() throws IOException {
+        try {
+            for (SXSSFExcelSheetExport sheet : this.sheets) {
+                sheet.finishSheet();
             }
+        } catch (ExcelException e) {
+            throw new IOException(e.getMessage(), e);
         }
     }
 
+    @Override
+    public void export(File outFile) throws IOException {
+        try (OutputStream os = new BufferedOutputStream(new FileOutputStream(outFile), BUFFER_SIZE)) {
+            this.export(os);
+        }
+    }
+
+    @Override
+    public void export(OutputStream outputStream) throws IOException {
+        if (this.cancelled) {
+            throw new IOException("导出已取消");
+        }
+        this.finishSheets();
+        //SXSSFWorkbook写完会关闭输出流,由调用方关闭
+        this.sxssfWorkbook.write(new FilterOutputStream(outputStream) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                this.out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                this.out.flush();
+            }
+        });
+    }
+
+    /**
+     * 删除SXSSF写入的临时文件
+     */
+    @Override
+    public void dispose() {
+        this.sxssfWorkbook.dispose();
+    }
+
 }
@@ -1,6 +1,5 @@
 package com.avalon.holygrail.excel.bean;
 
-import com.alibaba.druid.sql.visitor.functions.Char;
 import com.avalon.holygrail.excel.exception.ExcelException;
 import com.avalon.holygrail.excel.norm.CellOption;
 import com.avalon.holygrail.excel.norm.CellStyle;
@@ -12,7 +11,10 @@ import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 import org.apache.poi.xssf.usermodel.XSSFCellStyle;
 import org.apache.poi.xssf.usermodel.XSSFFont;
 
-import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
 
 /**
  * SXSSF装载器
@@ -39,11 +41,18 @@ public class SXSSFLoader implements CellOption, CellStyle, Font {
     protected XSSFFont font;
 
     public SXSSFLoader(SXSSFWorkbook sxssfWorkbook, SXSSFSheet sheet, SXSSFCell cell) {
+        this(sxssfWorkbook, sheet);
+        this.cell = cell;
+        this.setCellStyle(this.cellStyle);
+    }
+
+    /**
+     * 只创建样式和字体,不关联单元格,用于预先生成可复用的样式
+     */
+    public SXSSFLoader(SXSSFWorkbook sxssfWorkbook, SXSSFSheet sheet) {
         this.sxssfWorkbook = sxssfWorkbook;
         this.sheet = sheet;
-        this.cell = cell;
         this.cellStyle = (XSSFCellStyle) this.sxssfWorkbook.createCellStyle();
-        this.setCellStyle(this.cellStyle);
         this.font = (XSSFFont) this.sxssfWorkbook.createFont();
         this.setFont(this.font);
     }
@@ -109,64 +118,126 @@ public class SXSSFLoader implements CellOption, CellStyle, Font {
 
     @Override
     public void setValue(Object value) {
+        setCellValue(this.cell, value);
+    }
+
+    /**
+     * 设置单元格值,根据值类型选择写入方式
+     * 数值写为数值单元格,日期写为日期序号(需要日期格式的样式才显示为日期),其它对象写为字符串
+     *
+     * @param cell  单元格
+     * @param value 值
+     */
+    public static void setCellValue(SXSSFCell cell, Object value) {
         if (value == null) {
             cell.setCellType(SXSSFCell.CELL_TYPE_BLANK);
             return;
         }
         if (value instanceof String) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_STRING);
-            cell.setCellValue((String) value);
-            return;
-        }
-        if (value instanceof Boolean) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_BOOLEAN);
-            cell.setCellValue((boolean) value);
-            return;
-        }
-        if (value instanceof Integer) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_NUMERIC);
-            cell.setCellValue((int) value);
+            writeString(cell, (String) value);
             return;
         }
-        if (value instanceof Long) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_NUMERIC);
-            cell.setCellValue((long) value);
-            return;
-        }
-
-        if (value instanceof Double) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_NUMERIC);
-            cell.setCellValue((double) value);
+        if (value instanceof Number) {
+            if (value instanceof Integer || value instanceof Short || value instanceof Byte) {
+                writeInt(cell, ((Number) value).intValue());
+            } else if (value instanceof Long) {
+                writeLong(cell, (Long) value);
+            } else {
+                //Double、Float、BigDecimal等
+                writeDouble(cell, ((Number) value).doubleValue());
+            }
             return;
         }
-        if (value instanceof Float) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_NUMERIC);
-            cell.setCellValue((float) value);
+        if (value instanceof Boolean) {
+            writeBoolean(cell, (Boolean) value);
             return;
         }
-        if (value instanceof Short) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_NUMERIC);
-            cell.setCellValue((short) value);
+        if (value instanceof Date) {
+            writeDate(cell, (Date) value);
             return;
         }
-        if (value instanceof Byte) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_NUMERIC);
-            cell.setCellValue((byte) value);
+        if (value instanceof LocalDateTime) {
+            writeDate(cell, Date.from(((LocalDateTime) value).atZone(ZoneId.systemDefault()).toInstant()));
             return;
         }
-        if (value instanceof Char) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_NUMERIC);
-            cell.setCellValue((char) value);
+        if (value instanceof LocalDate) {
+            writeDate(cell, Date.from(((LocalDate) value).atStartOfDay(ZoneId.systemDefault()).toInstant()));
             return;
         }
-        if (value instanceof BigDecimal) {
-            cell.setCellType(SXSSFCell.CELL_TYPE_NUMERIC);
-            cell.setCellValue(((BigDecimal) value).doubleValue());
+        writeString(cell, value.toString());
+    }
+
+    /**
+     * 写入字符串,null写为空单元格
+     *
+     * @param cell  单元格
+     * @param value 值
+     */
+    public static void writeString(SXSSFCell cell, String value) {
+        cell.setCellValue(value);
+    }
+
+    /**
+     * 写入int数值
+     *
+     * @param cell  单元格
+     * @param value 值
+     */
+    public static void writeInt(SXSSFCell cell, int value) {
+        cell.setCellValue(value);
+    }
+
+    /**
+     * 写入long数值,Excel数值为double,超过2^53的值会丢失精度
+     *
+     * @param cell  单元格
+     * @param value 值
+     */
+    public static void writeLong(SXSSFCell cell, long value) {
+        cell.setCellValue(value);
+    }
+
+    /**
+     * 写入double数值
+     *
+     * @param cell  单元格
+     * @param value 值
+     */
+    public static void writeDouble(SXSSFCell cell, double value) {
+        cell.setCellValue(value);
+    }
+
+    /**
+     * 写入布尔值
+     *
+     * @param cell  单元格
+     * @param value 值
+     */
+    public static void writeBoolean(SXSSFCell cell, boolean value) {
+        cell.setCellValue(value);
+    }
+
+    /**
+     * 写入日期,单元格值为Excel日期序号,需要日期格式的样式才显示为日期
+     *
+     * @param cell  单元格
+     * @param value 值,null写为空单元格
+     */
+    public static void writeDate(SXSSFCell cell, Date value) {
+        if (value == null) {
+            cell.setCellType(SXSSFCell.CELL_TYPE_BLANK);
             return;
         }
-        cell.setCellType(SXSSFCell.CELL_TYPE_STRING);
-        cell.setCellValue((String) value);
-        return;
+        cell.setCellValue(value);
+    }
+
+    /**
+     * 值是否写为日期
+     *
+     * @param value 值
+     */
+    public static boolean isDate(Object value) {
+        return value instanceof Date || value instanceof LocalDateTime || value instanceof LocalDate;
     }
 
     @Override
@@ -306,11 +377,14 @@ public class SXSSFLoader implements CellOption, CellStyle, Font {
     }
 
     public XSSFCellStyle getCellStyle() {
-        return (XSSFCellStyle) this.cell.getCellStyle();
+        return this.cellStyle;
     }
 
     public void setCellStyle(XSSFCellStyle cellStyle) {
-        this.cell.setCellStyle(cellStyle);
+        this.cellStyle = cellStyle;
+        if (this.cell != null) {
+            this.cell.setCellStyle(cellStyle);
+        }
     }
 
     public XSSFFont getFont() {
@@ -0,0 +1,174 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExportException;
+import org.apache.poi.ss.util.CellRangeAddress;
+
+import java.util.Arrays;
+
+/**
+ * SXSSFWorkbook 合并区域收集器
+ * 合并区域不再逐个调用addMergedRegion(每次添加都会随已有区域数量变慢),而是先收集,在Sheet结束时一次性写入;
+ * 每列按开始行记录已占用的行区间,按行顺序添加时直接追加,乱序添加时二分查找,添加时即可发现重叠
+ */
+public class SXSSFMergedRegionCollector {
+
+    /**
+     * 已收集的区域,每4个值为一个区域:开始行,结束行,开始列,结束列
+     */
+    private int[] regions = new int[64];
+
+    private int size;
+
+    /**
+     * 每列已占用的行区间,按列下标索引
+     */
+    private Column[] columns = new Column[16];
+
+    /**
+     * 添加合并区域(下标均从0开始)
+     *
+     * @param firstRow 开始行下标
+     * @param lastRow  结束行下标
+     * @param firstCol 开始列下标
+     * @param lastCol  结束列下标
+     * @throws ExportException 与已有区域重叠
+     */
+    public void add(int firstRow, int lastRow, int firstCol, int lastCol) throws ExportException {
+        if (lastCol >= this.columns.length) {
+            this.columns = Arrays.copyOf(this.columns, Math.max(lastCol + 1, this.columns.length * 2));
+        }
+        //先检查所有列再登记,重叠时不留下部分登记的区域
+        for (int col = firstCol; col <= lastCol; col++) {
+            Column column = this.columns[col];
+            int region = column == null ? -1 : column.search(firstRow, lastRow);
+            if (region >= 0) {
+                throw new ExportException("合并单元格" + format(firstRow, lastRow, firstCol, lastCol) + "与"
+                        + format(this.regions[region * 4], this.regions[region * 4 + 1], this.regions[region * 4 + 2], this.regions[region * 4 + 3]) + "重叠");
+            }
+        }
+        int region = this.size;
+        if (this.size * 4 == this.regions.length) {
+            this.regions = Arrays.copyOf(this.regions, this.regions.length * 2);
+        }
+        this.regions[region * 4] = firstRow;
+        this.regions[region * 4 + 1] = lastRow;
+        this.regions[region * 4 + 2] = firstCol;
+        this.regions[region * 4 + 3] = lastCol;
+        this.size++;
+        for (int col = firstCol; col <= lastCol; col++) {
+            if (this.columns[col] == null) {
+                this.columns[col] = new Column();
+            }
+            this.columns[col].add(firstRow, lastRow, region);
+        }
+    }
+
+    /**
+     * 已收集的区域数量
+     */
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * 结束收集,按添加顺序依次处理每个区域
+     *
+     * @param handler 处理区域
+     */
+    public <E extends Exception> void collect(HandlerRegion<E> handler) throws E {
+        for (int i = 0; i < this.size; i++) {
+            handler.accept(this.regions[i * 4], this.regions[i * 4 + 1], this.regions[i * 4 + 2], this.regions[i * 4 + 3]);
+        }
+        this.regions = new int[64];
+        this.size = 0;
+        this.columns = new Column[16];
+    }
+
+    @FunctionalInterface
+    public interface HandlerRegion<E extends Exception> {
+
+        /**
+         * 处理合并区域(下标均从0开始)
+         *
+         * @param firstRow 开始行下标
+         * @param lastRow  结束行下标
+         * @param firstCol 开始列下标
+         * @param lastCol  结束列下标
+         */
+        void accept(int firstRow, int lastRow, int firstCol, int lastCol) throws E;
+    }
+
+    protected static String format(int firstRow, int lastRow, int firstCol, int lastCol) {
+        return new CellRangeAddress(firstRow, lastRow, firstCol, lastCol).formatAsString();
+    }
+
+    /**
+     * 一列中已占用的行区间,按开始行排序且互不重叠
+     */
+    private static final class Column {
+
+        private int[] firstRows = new int[8];
+
+        private int[] lastRows = new int[8];
+
+        private int[] regions = new int[8];//区间所属区域的序号
+
+        private int size;
+
+        /**
+         * 查找与行区间重叠的区域
+         *
+         * @return 区域序号, 没有重叠返回-1
+         */
+        private int search(int firstRow, int lastRow) {
+            //区间互不重叠,结束行也是递增的;按行顺序添加时在最后一个区间之后
+            if (this.size == 0 || firstRow > this.lastRows[this.size - 1]) {
+                return -1;
+            }
+            //开始行不大于lastRow的最后一个区间,只有它可能与[firstRow,lastRow]重叠
+            int index = this.floor(lastRow);
+            return index >= 0 && this.lastRows[index] >= firstRow ? this.regions[index] : -1;
+        }
+
+        private void add(int firstRow, int lastRow, int region) {
+            if (this.size == this.firstRows.length) {
+                int capacity = this.size * 2;
+                this.firstRows = Arrays.copyOf(this.firstRows, capacity);
+                this.lastRows = Arrays.copyOf(this.lastRows, capacity);
+                this.regions = Arrays.copyOf(this.regions, capacity);
+            }
+            //按行顺序添加时直接追加
+            int index = this.size == 0 || firstRow > this.firstRows[this.size - 1] ? this.size : this.floor(firstRow) + 1;
+            if (index < this.size) {
+                System.arraycopy(this.firstRows, index, this.firstRows, index + 1, this.size - index);
+                System.arraycopy(this.lastRows, index, this.lastRows, index + 1, this.size - index);
+                System.arraycopy(this.regions, index, this.regions, index + 1, this.size - index);
+            }
+            this.firstRows[index] = firstRow;
+            this.lastRows[index] = lastRow;
+            this.regions[index] = region;
+            this.size++;
+        }
+
+        /**
+         * 开始行不大于row的最后一个区间下标,没有返回-1
+         */
+        private int floor(int row) {
+            int low = 0;
+            int high = this.size - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                if (this.firstRows[mid] <= row) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return high;
+        }
+    }
+}
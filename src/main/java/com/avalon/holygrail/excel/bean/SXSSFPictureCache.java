@@ -0,0 +1,91 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.norm.ExcelWorkBook;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.HashMap;
+
+/**
+ * SXSSFWorkbook 图片缓存
+ * 能识别文件头的图片数据原样写入,不再解码后重新编码;内容相同的图片在整个工作簿中只保存一份
+ */
+public class SXSSFPictureCache {
+
+    protected SXSSFWorkbook sxssfWorkbook;
+
+    /**
+     * 图片内容摘要 -> 图片下标
+     */
+    protected HashMap<String, Integer> pictures = new HashMap<>();
+
+    protected MessageDigest messageDigest;
+
+    public SXSSFPictureCache(SXSSFWorkbook sxssfWorkbook) {
+        this.sxssfWorkbook = sxssfWorkbook;
+        try {
+            this.messageDigest = MessageDigest.getInstance("SHA-1");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * 添加图片,内容相同的图片返回已有的下标
+     *
+     * @param data        图片数据
+     * @param pictureType 图片类型,按文件头识别出类型时以识别的类型为准
+     * @return 图片在工作簿中的下标
+     */
+    public int addPicture(byte[] data, ExcelWorkBook.PictureType pictureType) throws IOException {
+        ExcelWorkBook.PictureType detected = ExcelWorkBook.PictureType.detect(data);
+        //无法识别的数据按指定类型保存,同一数据指定不同类型时分别保存
+        String key = Base64.getEncoder().encodeToString(this.messageDigest.digest(data));
+        if (detected == null) {
+            key += pictureType.name();
+        }
+        Integer index = this.pictures.get(key);
+        if (index == null) {
+            if (detected == null) {
+                data = transcode(data, pictureType);
+                detected = pictureType;
+            }
+            index = this.sxssfWorkbook.addPicture(data, detected.value);
+            this.pictures.put(key, index);
+        }
+        return index;
+    }
+
+    /**
+     * 已保存的图片数量
+     */
+    public int size() {
+        return this.pictures.size();
+    }
+
+    /**
+     * 将无法识别的图片(例如gif、bmp)转换为指定类型,只支持转换为png和jpeg,其它类型原样返回
+     */
+    protected static byte[] transcode(byte[] data, ExcelWorkBook.PictureType pictureType) throws IOException {
+        if (pictureType != ExcelWorkBook.PictureType.PNG && pictureType != ExcelWorkBook.PictureType.JPEG) {
+            return data;
+        }
+        BufferedImage bufferedImage = ImageIO.read(new ByteArrayInputStream(data));
+        if (bufferedImage == null) {
+            throw new IOException("无法识别的图片格式");
+        }
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        if (!ImageIO.write(bufferedImage, pictureType.suffix, byteArrayOutputStream)) {
+            throw new IOException("不支持转换为" + pictureType.suffix + "图片");
+        }
+        return byteArrayOutputStream.toByteArray();
+    }
+
+}
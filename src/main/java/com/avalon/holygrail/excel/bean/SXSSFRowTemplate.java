@@ -0,0 +1,127 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.norm.MergeCell;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+
+import java.util.List;
+
+/**
+ * SXSSFWorkbook 数据行模板
+ * 设置表头时由数据表头编译一次,记录每列的位置、字段、预先生成的样式,
+ * 写入数据时每列复用同一个单元格对象
+ */
+public class SXSSFRowTemplate {
+
+    /**
+     * 每列数据单元格原型,开始列、占用列与表头一致,占用一行
+     */
+    protected final SXSSFMergeCell[] prototypes;
+
+    /**
+     * 每列复用的数据单元格
+     */
+    protected final SXSSFMergeCell[] cells;
+
+    /**
+     * 每列预先生成的样式
+     */
+    protected final XSSFCellStyle[] cellStyles;
+
+    /**
+     * 每列是否只占用一个单元格,只占用一个单元格的列可以直接按值类型写入
+     */
+    protected final boolean[] singles;
+
+    /**
+     * 字段读取器
+     */
+    protected final RecordFieldReader fieldReader;
+
+    public SXSSFRowTemplate(List<MergeCell> dataTitleMergeCells, SXSSFCellStyleCache cellStyleCache) {
+        int size = dataTitleMergeCells.size();
+        this.prototypes = new SXSSFMergeCell[size];
+        this.cells = new SXSSFMergeCell[size];
+        this.cellStyles = new XSSFCellStyle[size];
+        this.singles = new boolean[size];
+        String[] fields = new String[size];
+        int i = 0;
+        for (MergeCell titleMergeCell : dataTitleMergeCells) {
+            SXSSFMergeCell tMergeCell = (SXSSFMergeCell) titleMergeCell;
+            //数据单元格默认开始列与title一致,默认占用一行、占用列与title一致
+            SXSSFMergeCell prototype = new SXSSFMergeCell(0, tMergeCell.getStartColNum(), 1, tMergeCell.getColSpan());
+            prototype.setField(tMergeCell.getField());
+            prototype.setWriteEmpty(tMergeCell.isWriteEmpty());
+            this.prototypes[i] = prototype;
+            this.cells[i] = new SXSSFMergeCell(0, tMergeCell.getStartColNum(), 1, tMergeCell.getColSpan());
+            this.cellStyles[i] = cellStyleCache.getCellStyle(prototype);
+            this.singles[i] = tMergeCell.getColSpan() == 1;
+            fields[i] = prototype.getField();
+            i++;
+        }
+        this.fieldReader = new RecordFieldReader(fields);
+    }
+
+    /**
+     * 列数
+     */
+    public int size() {
+        return this.prototypes.length;
+    }
+
+    /**
+     * 按原型重置某列的数据单元格
+     *
+     * @param index       列下标
+     * @param startRowNum 开始行号
+     */
+    public SXSSFMergeCell resetCell(int index, int startRowNum) {
+        SXSSFMergeCell mergeCell = this.cells[index];
+        mergeCell.reset(this.prototypes[index], startRowNum);
+        return mergeCell;
+    }
+
+    /**
+     * 获取某列单元格的样式,单元格样式未被修改时直接使用预先生成的样式
+     *
+     * @param index          列下标
+     * @param mergeCell      数据单元格
+     * @param cellStyleCache 样式缓存
+     */
+    public XSSFCellStyle getCellStyle(int index, SXSSFMergeCell mergeCell, SXSSFCellStyleCache cellStyleCache) {
+        if (mergeCell.isSameStyle(this.prototypes[index])) {
+            return this.cellStyles[index];
+        }
+        return cellStyleCache.getCellStyle(mergeCell);
+    }
+
+    /**
+     * 某列是否只占用一个单元格
+     *
+     * @param index 列下标
+     */
+    public boolean isSingle(int index) {
+        return this.singles[index];
+    }
+
+    /**
+     * 某列预先生成的样式
+     *
+     * @param index 列下标
+     */
+    public XSSFCellStyle getCellStyle(int index) {
+        return this.cellStyles[index];
+    }
+
+    /**
+     * 某列开始列号
+     *
+     * @param index 列下标
+     */
+    public int getStartColNum(int index) {
+        return this.prototypes[index].getStartColNum();
+    }
+
+    public RecordFieldReader getFieldReader() {
+        return fieldReader;
+    }
+}
@@ -0,0 +1,113 @@
+package com.avalon.holygrail.excel.bean;
+
+import org.apache.poi.xssf.model.SharedStringsTable;
+import org.openxmlformats.schemas.spreadsheetml.x2006.main.CTRst;
+
+import java.util.HashMap;
+
+/**
+ * SXSSFWorkbook 共享字符串字典
+ * 重复出现的字符串只在工作簿的共享字符串表中保存一份,单元格只写入下标;
+ * 字典整个工作簿共用,条目数和字符数都有上限,超出后新的字符串仍然写为内联字符串
+ */
+public class SXSSFSharedStringDictionary {
+
+    /**
+     * 默认最多条目数
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+
+    /**
+     * 默认最多字符数
+     */
+    public static final long DEFAULT_MAX_CHARS = 1L << 22;
+
+    /**
+     * 默认每列最多条目数
+     */
+    public static final int DEFAULT_MAX_COLUMN_ENTRIES = 4096;
+
+    /**
+     * 超过该长度的字符串不放入字典
+     */
+    public static final int MAX_STRING_LENGTH = 256;
+
+    protected final SharedStringsTable sharedStringsTable;
+
+    protected final int maxEntries;//最多条目数
+
+    protected final long maxChars;//最多字符数
+
+    protected final int maxColumnEntries;//每列最多条目数,超过后该列不再使用字典
+
+    protected final HashMap<String, Integer> indexes = new HashMap<>();//字符串 -> 共享字符串表下标
+
+    protected long chars;//已经放入字典的字符数
+
+    /**
+     * @param sharedStringsTable 工作簿的共享字符串表
+     * @param maxEntries         最多条目数
+     * @param maxChars           最多字符数
+     * @param maxColumnEntries   每列最多条目数
+     */
+    public SXSSFSharedStringDictionary(SharedStringsTable sharedStringsTable, int maxEntries, long maxChars, int maxColumnEntries) {
+        this.sharedStringsTable = sharedStringsTable;
+        this.maxEntries = maxEntries;
+        this.maxChars = maxChars;
+        this.maxColumnEntries = maxColumnEntries;
+    }
+
+    /**
+     * 获取字符串在共享字符串表中的下标
+     *
+     * @param value 字符串
+     * @return 下标, 不在字典中返回-1
+     */
+    public int get(String value) {
+        Integer index = this.indexes.get(value);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * 放入字典
+     *
+     * @param value 字符串
+     * @return 共享字符串表下标, 超出上限或不能作为共享字符串时返回-1
+     */
+    public int add(String value) {
+        if (this.indexes.size() >= this.maxEntries || this.chars + value.length() > this.maxChars || !isShareable(value)) {
+            return -1;
+        }
+        CTRst st = CTRst.Factory.newInstance();
+        st.setT(value);
+        int index = this.sharedStringsTable.addEntry(st);
+        this.indexes.put(value, index);
+        this.chars += value.length();
+        return index;
+    }
+
+    /**
+     * 只有不含控制字符、首尾没有空白的短字符串放入共享字符串表,其它仍按内联字符串处理空白保留和转义
+     */
+    protected static boolean isShareable(String value) {
+        int length = value.length();
+        if (length == 0 || length > MAX_STRING_LENGTH
+                || Character.isWhitespace(value.charAt(0)) || Character.isWhitespace(value.charAt(length - 1))) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (value.charAt(i) < ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return this.indexes.size();
+    }
+
+    public int getMaxColumnEntries() {
+        return maxColumnEntries;
+    }
+}
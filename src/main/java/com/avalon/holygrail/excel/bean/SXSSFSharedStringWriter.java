@@ -0,0 +1,210 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExportException;
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.util.CellReference;
+import org.apache.poi.xssf.streaming.SXSSFRow;
+import org.apache.poi.xssf.streaming.SXSSFSheet;
+import org.apache.poi.xssf.streaming.SheetDataWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+
+/**
+ * SXSSFSheet 行数据写入器
+ * 字符串单元格先查共享字符串字典,命中时写入共享字符串下标,否则按POI原有方式写为内联字符串;
+ * 每列先取样,新字符串占比过高或条目数超过上限的列(例如编号、备注)不再使用字典
+ * <p>
+ * 基于POI 3.9:SXSSF没有共享字符串模式,通过反射替换SXSSFSheet的私有属性_writer并调用SheetDataWriter包内可见的dispose,
+ * 其它版本中不存在时保持内联字符串并记录警告;
+ * 命中字典的单元格不经过SharedStringsTable.addEntry,共享字符串表的count属性(引用次数)会少于实际引用次数,
+ * uniqueCount和各条目不受影响
+ */
+public class SXSSFSharedStringWriter extends SheetDataWriter {
+
+    private static final Logger log = LoggerFactory.getLogger(SXSSFSharedStringWriter.class);
+
+    /**
+     * 每列取样的字符串单元格数
+     */
+    protected static final int SAMPLE_SIZE = 1024;
+
+    /**
+     * SXSSFSheet._writer,当前POI版本不支持时为null
+     */
+    protected static final Field WRITER_FIELD;
+
+    /**
+     * SheetDataWriter.dispose(),当前POI版本不支持时为null
+     */
+    protected static final Method DISPOSE_METHOD;
+
+    static {
+        Field field = null;
+        Method method = null;
+        try {
+            field = SXSSFSheet.class.getDeclaredField("_writer");
+            field.setAccessible(true);
+            method = SheetDataWriter.class.getDeclaredMethod("dispose");
+            method.setAccessible(true);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            field = null;
+            method = null;
+        }
+        WRITER_FIELD = field;
+        DISPOSE_METHOD = method;
+    }
+
+    protected final SXSSFSharedStringDictionary dictionary;
+
+    protected Writer out;//临时文件输出,由父类构造时创建
+
+    protected int rowNum;//正在写入的行下标
+
+    protected Column[] columns = new Column[16];//每列使用字典的情况
+
+    public SXSSFSharedStringWriter(SXSSFSharedStringDictionary dictionary) throws IOException {
+        super();
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * 当前POI版本是否可以替换行数据写入器
+     */
+    public static boolean isSupported() {
+        return WRITER_FIELD != null;
+    }
+
+    /**
+     * 替换Sheet的行数据写入器,需要在Sheet写入任何行之前调用
+     * 当前POI版本不支持、压缩临时文件的Sheet等不能替换的情况保持原有写入方式并记录警告
+     *
+     * @param sheet      Sheet
+     * @param dictionary 共享字符串字典
+     * @return 是否已经替换, 没有替换时该Sheet写为内联字符串
+     */
+    public static boolean install(SXSSFSheet sheet, SXSSFSharedStringDictionary dictionary) throws ExportException {
+        if (!isSupported()) {
+            log.warn("当前POI版本不支持替换SXSSFSheet行数据写入器,Sheet[{}]不使用共享字符串", sheet.getSheetName());
+            return false;
+        }
+        SheetDataWriter writer;
+        try {
+            writer = (SheetDataWriter) WRITER_FIELD.get(sheet);
+        } catch (IllegalAccessException e) {
+            log.warn("读取SXSSFSheet行数据写入器失败,Sheet[{}]不使用共享字符串", sheet.getSheetName(), e);
+            return false;
+        }
+        if (writer.getClass() != SheetDataWriter.class) {
+            log.warn("Sheet[{}]使用{}写入临时文件(例如压缩临时文件),不使用共享字符串", sheet.getSheetName(), writer.getClass().getName());
+            return false;
+        }
+        try {
+            WRITER_FIELD.set(sheet, new SXSSFSharedStringWriter(dictionary));
+        } catch (IOException e) {
+            throw new ExportException("创建临时文件失败", e);
+        } catch (IllegalAccessException e) {
+            log.warn("替换SXSSFSheet行数据写入器失败,Sheet[{}]不使用共享字符串", sheet.getSheetName(), e);
+            return false;
+        }
+        try {
+            //删除原有的临时文件
+            DISPOSE_METHOD.invoke(writer);
+        } catch (ReflectiveOperationException e) {
+            //原有的临时文件由POI在回收时删除
+        }
+        return true;
+    }
+
+    @Override
+    public Writer createWriter(File fd) throws IOException {
+        this.out = super.createWriter(fd);
+        return this.out;
+    }
+
+    @Override
+    public void writeRow(int rowNum, SXSSFRow row) throws IOException {
+        this.rowNum = rowNum;
+        super.writeRow(rowNum, row);
+    }
+
+    @Override
+    public void writeCell(int columnIndex, Cell cell) throws IOException {
+        if (cell != null && cell.getCellType() == Cell.CELL_TYPE_STRING) {
+            int index = this.sharedIndex(columnIndex, cell.getStringCellValue());
+            if (index >= 0) {
+                Writer out = this.out;
+                out.write("<c r=\"");
+                out.write(CellReference.convertNumToColString(columnIndex));
+                out.write(Integer.toString(this.rowNum + 1));
+                out.write('"');
+                CellStyle cellStyle = cell.getCellStyle();
+                if (cellStyle.getIndex() != 0) {
+                    out.write(" s=\"");
+                    out.write(Integer.toString(cellStyle.getIndex()));
+                    out.write('"');
+                }
+                out.write(" t=\"s\"><v>");
+                out.write(Integer.toString(index));
+                out.write("</v></c>");
+                return;
+            }
+        }
+        super.writeCell(columnIndex, cell);
+    }
+
+    /**
+     * 获取字符串的共享字符串下标
+     *
+     * @param columnIndex 列下标
+     * @param value       字符串
+     * @return 下标, 需要写为内联字符串时返回-1
+     */
+    protected int sharedIndex(int columnIndex, String value) {
+        if (columnIndex >= this.columns.length) {
+            this.columns = Arrays.copyOf(this.columns, Math.max(columnIndex + 1, this.columns.length * 2));
+        }
+        Column column = this.columns[columnIndex];
+        if (column == null) {
+            column = this.columns[columnIndex] = new Column();
+        }
+        if (column.disabled) {
+            return -1;
+        }
+        column.count++;
+        int index = this.dictionary.get(value);
+        if (index >= 0) {
+            return index;
+        }
+        //取样之后新字符串仍超过一半,或条目数超过上限,视为取值分散的列
+        if (column.entries >= this.dictionary.getMaxColumnEntries()
+                || column.count >= SAMPLE_SIZE && column.entries * 2 > column.count) {
+            column.disabled = true;
+            return -1;
+        }
+        index = this.dictionary.add(value);
+        if (index >= 0) {
+            column.entries++;
+        }
+        return index;
+    }
+
+    /**
+     * 一列使用字典的情况
+     */
+    protected static class Column {
+
+        protected int count;//字符串单元格数
+
+        protected int entries;//该列放入字典的条目数
+
+        protected boolean disabled;//是否不再使用字典
+    }
+}
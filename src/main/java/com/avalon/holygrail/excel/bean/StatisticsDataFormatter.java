@@ -0,0 +1,233 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.exception.ExportException;
+import com.avalon.holygrail.excel.norm.CellHandler;
+import com.avalon.holygrail.excel.norm.ExcelSheetExport;
+import com.avalon.holygrail.statistics.bean.Statistics;
+import com.avalon.holygrail.statistics.bean.StatisticsData;
+
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * 统计结果导出
+ * 直接把StatisticsData作为行数据写入Sheet,不再为每组结果复制一个Map;
+ * 表头字段按统计名取值,也可以把某个值次数统计中的指定值展开为分布列,例如:
+ * <pre>
+ * new StatisticsDataFormatter()
+ *         .addKey("className")
+ *         .addValueCounts("scoreCount", "score_", 60, 80, 100)
+ *         .importData(sheet, statistics);
+ * </pre>
+ */
+public class StatisticsDataFormatter implements SXSSFExcelSheetExport.FormatterCell<StatisticsData<?>> {
+
+    /**
+     * 表头字段 -> 分布列
+     */
+    protected final HashMap<String, ValueCountColumn> valueCountColumns = new HashMap<>();
+
+    protected String keyField;//写入分组key的表头字段
+
+    protected SXSSFExcelSheetExport.FormatterCell<StatisticsData<?>> formatter;//取值之后的格式化,没有设置为null
+
+    /**
+     * 设置写入分组key(StatisticsData.getKey())的表头字段
+     *
+     * @param field 表头字段
+     * @return 当前对象
+     */
+    public StatisticsDataFormatter addKey(String field) {
+        this.keyField = field;
+        return this;
+    }
+
+    /**
+     * 添加分布列,单元格值为值次数统计中某个值出现的次数
+     *
+     * @param field 表头字段
+     * @param name  值次数统计名
+     * @param value 统计的值
+     * @return 当前对象
+     */
+    public StatisticsDataFormatter addValueCount(String field, String name, Object value) {
+        this.valueCountColumns.put(field, new ValueCountColumn(name, value));
+        return this;
+    }
+
+    /**
+     * 添加一组分布列,表头字段为前缀加统计的值
+     *
+     * @param name        值次数统计名
+     * @param fieldPrefix 表头字段前缀
+     * @param values      统计的值
+     * @return 当前对象
+     */
+    public StatisticsDataFormatter addValueCounts(String name, String fieldPrefix, Object... values) {
+        for (Object value : values) {
+            this.addValueCount(fieldPrefix + value, name, value);
+        }
+        return this;
+    }
+
+    /**
+     * 设置取值之后的格式化
+     *
+     * @param formatter 格式化函数
+     * @return 当前对象
+     */
+    public StatisticsDataFormatter setFormatter(SXSSFExcelSheetExport.FormatterCell<StatisticsData<?>> formatter) {
+        this.formatter = formatter;
+        return this;
+    }
+
+    @Override
+    public Object apply(Object value, StatisticsData<?> record, CellHandler cellHandler, String field, int rowCursor, int index) throws ExportException {
+        ValueCountColumn column = this.valueCountColumns.get(field);
+        if (column != null) {
+            //统计的值类型未知,按Map取值,与getValueCount一致没有统计时为0
+            Integer count = record.getValueCounts(column.name).get(column.value);
+            value = count == null ? 0 : count;
+        } else if (field != null && field.equals(this.keyField)) {
+            value = record.getKey();
+        } else if (value instanceof StatisticsData) {
+            //下级分组不是单元格值
+            value = "";
+        }
+        if (this.formatter != null) {
+            value = this.formatter.apply(value, record, cellHandler, field, rowCursor, index);
+        }
+        return value;
+    }
+
+    /**
+     * 写入统计结果,每组一行
+     *
+     * @param sheet   要写入的Sheet,需要已经设置表头
+     * @param records 统计结果
+     * @return 写入的Sheet
+     */
+    public ExcelSheetExport importData(ExcelSheetExport sheet, Collection<? extends StatisticsData<?>> records) throws ExcelException {
+        return sheet.importData(Collections.unmodifiableCollection(records), this);
+    }
+
+    /**
+     * 写入一组统计结果,每组一行
+     *
+     * @param sheet   要写入的Sheet,需要已经设置表头
+     * @param results 分组key -> 统计结果
+     * @return 写入的Sheet
+     */
+    public ExcelSheetExport importData(ExcelSheetExport sheet, Map<String, ? extends StatisticsData<?>> results) throws ExcelException {
+        return this.importData(sheet, results.values());
+    }
+
+    /**
+     * 写入最后一次分组的统计结果(Statistics.getResults()),每组一行
+     *
+     * @param sheet      要写入的Sheet,需要已经设置表头
+     * @param statistics 统计
+     * @return 写入的Sheet
+     */
+    public ExcelSheetExport importData(ExcelSheetExport sheet, Statistics<?> statistics) throws ExcelException {
+        return this.importData(sheet, getResults(statistics));
+    }
+
+    /**
+     * 最后一次分组的统计结果
+     *
+     * @param statistics 统计
+     * @return 统计结果
+     */
+    @SuppressWarnings("unchecked")
+    public static Collection<StatisticsData<?>> getResults(Statistics<?> statistics) {
+        //getResults返回原始类型Map,值都是StatisticsData
+        return ((Map<String, StatisticsData<?>>) (Map<String, ?>) statistics.getResults()).values();
+    }
+
+    /**
+     * 按深度优先展开多级分组,每组之后紧跟它的下级分组;返回的是视图,不复制统计结果
+     *
+     * @param records 统计结果
+     * @return 展开后的统计结果
+     */
+    public static Collection<StatisticsData<?>> flatten(Collection<? extends StatisticsData<?>> records) {
+        return new AbstractCollection<StatisticsData<?>>() {
+
+            @Override
+            public Iterator<StatisticsData<?>> iterator() {
+                ArrayDeque<Iterator<? extends StatisticsData<?>>> stack = new ArrayDeque<>();
+                stack.push(records.iterator());
+                return new Iterator<StatisticsData<?>>() {
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!stack.isEmpty()) {
+                            if (stack.peek().hasNext()) {
+                                return true;
+                            }
+                            stack.pop();
+                        }
+                        return false;
+                    }
+
+                    @Override
+                    public StatisticsData<?> next() {
+                        if (!this.hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        StatisticsData<?> record = stack.peek().next();
+                        if (!record.getStatisticsDataList().isEmpty()) {
+                            stack.push(children(record).iterator());
+                        }
+                        return record;
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return count(records);
+            }
+        };
+    }
+
+    protected static int count(Collection<? extends StatisticsData<?>> records) {
+        int size = records.size();
+        for (StatisticsData<?> record : records) {
+            size += count(children(record));
+        }
+        return size;
+    }
+
+    /**
+     * 下级分组
+     */
+    @SuppressWarnings("unchecked")
+    protected static Collection<StatisticsData<?>> children(StatisticsData<?> record) {
+        //getStatisticsDataList返回原始类型集合,元素都是StatisticsData
+        return (Collection<StatisticsData<?>>) (Collection<?>) record.getStatisticsDataList();
+    }
+
+    /**
+     * 分布列
+     */
+    protected static class ValueCountColumn {
+
+        protected final String name;//值次数统计名
+
+        protected final Object value;//统计的值
+
+        protected ValueCountColumn(String name, Object value) {
+            this.name = name;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.avalon.holygrail.excel.bean;
+
+import com.avalon.holygrail.excel.model.TitleLayout;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * 表头布局缓存
+ * 按表头json内容或json文件缓存编译好的表头布局,超过容量时淘汰最久没有使用的布局;
+ * 固定模板的导入导出只在第一次使用时解析json和分配位置
+ */
+public class TitleLayoutCache {
+
+    /**
+     * 默认容量
+     */
+    public static final int DEFAULT_CAPACITY = 128;
+
+    /**
+     * parseTitlesJson使用的缓存
+     */
+    public static final TitleLayoutCache DEFAULT = new TitleLayoutCache(DEFAULT_CAPACITY);
+
+    protected final int capacity;
+
+    /**
+     * json内容或文件 -> 表头布局,按访问顺序排列
+     */
+    protected final LinkedHashMap<Object, TitleLayout> titleLayouts;
+
+    public TitleLayoutCache(int capacity) {
+        this.capacity = capacity;
+        this.titleLayouts = new LinkedHashMap<Object, TitleLayout>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Object, TitleLayout> eldest) {
+                return this.size() > TitleLayoutCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * 获取缓存的表头布局
+     *
+     * @param key json内容或fileKey
+     * @return 没有缓存返回null
+     */
+    public synchronized TitleLayout get(Object key) {
+        return this.titleLayouts.get(key);
+    }
+
+    /**
+     * 缓存表头布局
+     *
+     * @param key         json内容或fileKey
+     * @param titleLayout 表头布局
+     */
+    public synchronized void put(Object key, TitleLayout titleLayout) {
+        this.titleLayouts.put(key, titleLayout);
+    }
+
+    /**
+     * 清空缓存
+     */
+    public synchronized void clear() {
+        this.titleLayouts.clear();
+    }
+
+    public synchronized int size() {
+        return this.titleLayouts.size();
+    }
+
+    /**
+     * json文件的缓存键,文件修改后键随之改变
+     *
+     * @param file json文件
+     */
+    public static Object fileKey(File file) throws IOException {
+        return new FileKey(file.getCanonicalPath(), file.lastModified(), file.length());
+    }
+
+    protected static final class FileKey {
+
+        private final String path;
+
+        private final long lastModified;
+
+        private final long length;
+
+        FileKey(String path, long lastModified, long length) {
+            this.path = path;
+            this.lastModified = lastModified;
+            this.length = length;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof FileKey)) {
+                return false;
+            }
+            FileKey fileKey = (FileKey) o;
+            return this.lastModified == fileKey.lastModified && this.length == fileKey.length && this.path.equals(fileKey.path);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(this.path, this.lastModified, this.length);
+        }
+    }
+}
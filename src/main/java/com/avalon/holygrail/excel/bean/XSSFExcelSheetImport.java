@@ -2,10 +2,14 @@ package com.avalon.holygrail.excel.bean;
 
 import com.avalon.holygrail.excel.exception.ExcelException;
 import com.avalon.holygrail.excel.exception.ExportException;
+import com.avalon.holygrail.excel.model.ExcelSheetImportAbstract;
 import com.avalon.holygrail.excel.model.ExcelTitleCellAbstract;
+import com.avalon.holygrail.excel.model.TitleLayout;
+import com.avalon.holygrail.excel.norm.CellConverter;
 import com.avalon.holygrail.excel.norm.ExcelSheetImport;
 import com.avalon.holygrail.excel.norm.ExcelWorkBookImport;
 import com.avalon.holygrail.excel.norm.MergeCell;
+import com.avalon.holygrail.excel.norm.RowValidator;
 import com.avalon.holygrail.excel.norm.Sheet;
 import com.avalon.holygrail.util.ClassUtil;
 import com.esotericsoftware.reflectasm.MethodAccess;
@@ -19,10 +23,13 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.text.NumberFormat;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 /**
  * XSSFWorkBook
+ * readRows保持原有的读取方式;流式、分批、并行、校验、列式读取以及转换器、行校验、自动识别表头由rowReader提供,
+ * 调用registerConverter、addRowValidator或detectTitles之后readRows也改由rowReader读取
  * Created by 白超 on 2018/1/24.
  */
 public class XSSFExcelSheetImport extends XSSFExcelWorkBookImport implements ExcelSheetImport {
@@ -47,6 +54,10 @@ public class XSSFExcelSheetImport extends XSSFExcelWorkBookImport implements Exc
 
     protected ArrayList<ArrayList<?>> loadDatasList = new ArrayList<>();//每次读取的数据集合,按照读取次数顺序放入
 
+    protected RowReader rowReader;//行读取器,第一次使用时创建
+
+    protected boolean readByRowReader;//readRows是否改由rowReader读取
+
     public XSSFExcelSheetImport(XSSFSheet sheet, XSSFExcelWorkBookImport ownerWorkBook) {
         super(ownerWorkBook.xssfWorkbook);
         this.sheet = sheet;
@@ -328,6 +339,46 @@ public class XSSFExcelSheetImport extends XSSFExcelWorkBookImport implements Exc
         return super.buildTitleMergeCell(excelTitle, startRow, endRow, startCol, endCol);
     }
 
+    @Override
+    public <T> ExcelSheetImport registerConverter(Class<T> type, CellConverter<? extends T> converter) {
+        this.getRowReader().registerConverter(type, converter);
+        this.readByRowReader = true;
+        return this;
+    }
+
+    @Override
+    public <T> ExcelSheetImport addRowValidator(RowValidator<T> rowValidator) {
+        this.getRowReader().addRowValidator(rowValidator);
+        this.readByRowReader = true;
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport detectTitles(int scanRows) throws ExcelException {
+        this.getRowReader().detectTitles(scanRows);
+        this.readByRowReader = true;
+        return this.afterRead();
+    }
+
+    /**
+     * 获取行读取器,并同步当前的表头和游标
+     */
+    protected RowReader getRowReader() {
+        if (this.rowReader == null) {
+            this.rowReader = new RowReader(this);
+        }
+        this.rowReader.sync();
+        return this.rowReader;
+    }
+
+    /**
+     * 行读取器读取之后同步行游标
+     */
+    protected ExcelSheetImport afterRead() {
+        this.rowCursor = this.rowReader.getRowCursor();
+        return this;
+    }
+
     @Override
     public ExcelSheetImport setRowCursor(Function<Integer, Integer> handler) {
         this.rowCursor = handler.apply(this.rowCursor);
@@ -370,6 +421,15 @@ public class XSSFExcelSheetImport extends XSSFExcelWorkBookImport implements Exc
         return this;
     }
 
+    @Override
+    public <T> ExcelSheetImport setTitles(TitleLayout titleLayout, Class<T> clazz) throws ExcelException {
+        this.titleMergeCells = titleLayout.buildTitleMergeCells(this);
+        this.dataTitleMergeCells = titleLayout.getDataTitleMergeCells(this.titleMergeCells);
+        this.parseExportTitles(this.dataTitleMergeCells);
+        this.defaultClass = clazz;
+        return this;
+    }
+
     public <T> ExcelSheetImport setTitles(int rowSpan, ExcelTitleCellAbstract[][] excelTitles, Class<T> clazz) throws ExcelException {
         if (!(excelTitles instanceof XSSFExcelTitle[][])) {
             throw new ExportException("SXSSFExcelSheetExport setTitles excelTitles类型应该为XSSFExcelTitle[][]");
@@ -421,38 +481,106 @@ public class XSSFExcelSheetImport extends XSSFExcelWorkBookImport implements Exc
 
     @Override
     public <T> ExcelSheetImport readRows(Class<T> clazz) throws ExcelException, InstantiationException, IllegalAccessException {
+        if (this.readByRowReader) {
+            this.getRowReader().readRows(clazz);
+            return this.afterRead();
+        }
         this.loadRows(clazz);
         return this;
     }
 
     @Override
     public <T> ExcelSheetImport readRows(Class<T> clazz, HandlerRowA<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        if (this.readByRowReader) {
+            this.getRowReader().readRows(clazz, handlerRow);
+            return this.afterRead();
+        }
         this.loadRows(clazz, handlerRow);
         return this;
     }
 
     @Override
     public <T> ExcelSheetImport readRows(Class<T> clazz, HandlerRowB<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        if (this.readByRowReader) {
+            this.getRowReader().readRows(clazz, handlerRow);
+            return this.afterRead();
+        }
         this.loadRows(clazz, handlerRow);
         return this;
     }
 
     @Override
     public ExcelSheetImport readRows() throws ExcelException, IllegalAccessException, InstantiationException {
-        this.loadRows(this.defaultClass);
-        return this;
+        return this.readRows(this.defaultClass);
     }
 
     @Override
     public ExcelSheetImport readRows(HandlerRowA handlerRow) throws ExcelException, IllegalAccessException, InstantiationException {
-        this.loadRows(this.defaultClass, handlerRow);
-        return this;
+        return this.readRows((Class<Object>) this.defaultClass, (HandlerRowA<Object>) handlerRow);
     }
 
     @Override
     public ExcelSheetImport readRows(HandlerRowB handlerRow) throws ExcelException, IllegalAccessException, InstantiationException {
-        this.loadRows(this.defaultClass, handlerRow);
-        return this;
+        return this.readRows((Class<Object>) this.defaultClass, (HandlerRowB<Object>) handlerRow);
+    }
+
+    @Override
+    public <T> ExcelSheetImport streamRows(Class<T> clazz, HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        this.getRowReader().streamRows(clazz, handlerRow);
+        return this.afterRead();
+    }
+
+    @Override
+    public ExcelSheetImport streamRows(HandlerRowC handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        return this.streamRows((Class<Object>) this.defaultClass, (HandlerRowC<Object>) handlerRow);
+    }
+
+    @Override
+    public ExcelSheetImport readColumns(ColumnarData columnarData) throws ExcelException {
+        this.getRowReader().readColumns(columnarData);
+        return this.afterRead();
+    }
+
+    @Override
+    public <T> ImportValidateResult<T> validateRows(Class<T> clazz) throws ExcelException, InstantiationException, IllegalAccessException {
+        ImportValidateResult<T> result = this.getRowReader().validateRows(clazz);
+        this.afterRead();
+        return result;
+    }
+
+    @Override
+    public ImportValidateResult validateRows() throws ExcelException, InstantiationException, IllegalAccessException {
+        return this.validateRows(this.defaultClass);
+    }
+
+    @Override
+    public <T> ImportValidateResult<T> validateRows(Class<T> clazz, HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        ImportValidateResult<T> result = this.getRowReader().validateRows(clazz, handlerRow);
+        this.afterRead();
+        return result;
+    }
+
+    @Override
+    public <T> ExcelSheetImport readRows(Class<T> clazz, int batchSize, HandlerRows<T> handlerRows) throws ExcelException, InstantiationException, IllegalAccessException {
+        this.getRowReader().readRows(clazz, batchSize, handlerRows);
+        return this.afterRead();
+    }
+
+    @Override
+    public ExcelSheetImport readRows(int batchSize, HandlerRows handlerRows) throws ExcelException, InstantiationException, IllegalAccessException {
+        return this.readRows((Class<Object>) this.defaultClass, batchSize, (HandlerRows<Object>) handlerRows);
+    }
+
+    @Override
+    public <T> ExcelSheetImport parallelReadRows(Class<T> clazz, Executor executor, HandlerRowB<T> handlerRow) throws ExcelException {
+        this.getRowReader().parallelReadRows(clazz, executor, handlerRow);
+        return this.afterRead();
+    }
+
+    @Override
+    public <T> ExcelSheetImport parallelStreamRows(Class<T> clazz, Executor executor, HandlerRowC<T> handlerRow) throws ExcelException {
+        this.getRowReader().parallelStreamRows(clazz, executor, handlerRow);
+        return this.afterRead();
     }
 
     @Override
@@ -470,4 +598,71 @@ public class XSSFExcelSheetImport extends XSSFExcelWorkBookImport implements Exc
         return (ArrayList<T>) this.loadDatasList;
     }
 
+    /**
+     * 行读取器
+     * 按行下标读取XSSFSheet,与SAX、CSV导入共用ExcelSheetImportAbstract的装载方式;
+     * 表头、游标与所属Sheet同步,读取的数据也放入所属Sheet的loadDatasList
+     */
+    protected static class RowReader extends ExcelSheetImportAbstract {
+
+        protected final XSSFExcelSheetImport owner;
+
+        protected RowReader(XSSFExcelSheetImport owner) {
+            this.owner = owner;
+            this.loadDatasList = owner.loadDatasList;
+        }
+
+        /**
+         * 同步所属Sheet的表头和游标,表头变化后重新按表头读取
+         */
+        protected void sync() {
+            if (this.dataTitleMergeCells != this.owner.dataTitleMergeCells) {
+                this.detectedTitles = null;
+                this.importColumnsSource = null;
+            }
+            this.titleMergeCells = this.owner.titleMergeCells;
+            this.dataTitleMergeCells = this.owner.dataTitleMergeCells;
+            this.rowCursor = this.owner.rowCursor;
+            this.colCursor = this.owner.colCursor;
+            this.defaultClass = this.owner.defaultClass;
+        }
+
+        protected int getRowCursor() {
+            return this.rowCursor;
+        }
+
+        @Override
+        protected void readSheetRows(RowReceiver receiver) throws ExcelException {
+            Iterator<Row> rows = this.owner.sheet.iterator();
+            int start = this.rowCursor;//开始读取的行号
+            XSSFLoader xssfLoader = new XSSFLoader();
+            while (rows.hasNext()) {
+                Row row = rows.next();
+                if (row.getRowNum() <= start) {//小于等于行游标的不读
+                    continue;
+                }
+                receiver.startRow(row.getRowNum());
+                Iterator<Cell> cells = row.iterator();
+                while (cells.hasNext()) {
+                    XSSFCell cell = (XSSFCell) cells.next();
+                    xssfLoader.setCell(cell);
+                    receiver.cell(cell.getColumnIndex(), xssfLoader.getValue());
+                }
+                if (!receiver.endRow()) {
+                    break;
+                }
+            }
+        }
+
+        @Override
+        public ExcelWorkBookImport getOwnerWorkBook() {
+            return this.owner.getOwnerWorkBook();
+        }
+
+        @Override
+        public int getPhysicalNumberOfRows() {
+            return this.owner.getPhysicalNumberOfRows();
+        }
+    }
+
 }
@@ -3,8 +3,13 @@ package com.avalon.holygrail.excel.bean;
 import com.avalon.holygrail.excel.model.XSSFExcelParserAbstract;
 import com.avalon.holygrail.excel.norm.ExcelSheetImport;
 import com.avalon.holygrail.excel.norm.ExcelWorkBookImport;
+import org.apache.poi.openxml4j.exceptions.InvalidFormatException;
+import org.apache.poi.openxml4j.exceptions.InvalidOperationException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.openxml4j.opc.PackageAccess;
 import org.apache.poi.xssf.usermodel.XSSFWorkbook;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
@@ -17,6 +22,8 @@ public class XSSFExcelWorkBookImport extends XSSFExcelParserAbstract implements
 
     protected XSSFWorkbook xssfWorkbook;
 
+    protected OPCPackage opcPackage;//从文件打开的压缩包
+
     protected ArrayList<XSSFExcelSheetImport> sheets = new ArrayList<>();
 
     public XSSFExcelWorkBookImport() {
@@ -40,11 +47,33 @@ public class XSSFExcelWorkBookImport extends XSSFExcelParserAbstract implements
 
     @Override
     public ExcelWorkBookImport parseFile(InputStream inputStream) throws IOException {
+        this.dispose();
         this.xssfWorkbook = new XSSFWorkbook(inputStream);
         this.initSheets();
         return this;
     }
 
+    /**
+     * 按文件随机读取压缩包,不把整个文件复制到内存
+     */
+    @Override
+    public ExcelWorkBookImport parseFile(File file) throws IOException {
+        this.dispose();
+        try {
+            this.opcPackage = OPCPackage.open(file.getPath(), PackageAccess.READ);
+        } catch (InvalidFormatException | InvalidOperationException e) {
+            throw new IOException("无法解析Excel文件:" + file.getPath(), e);
+        }
+        try {
+            this.xssfWorkbook = new XSSFWorkbook(this.opcPackage);
+        } catch (IOException | RuntimeException e) {
+            this.dispose();
+            throw e;
+        }
+        this.initSheets();
+        return this;
+    }
+
     @Override
     public ExcelSheetImport getSheet(int index) {
         return this.sheets.get(index);
@@ -55,4 +84,16 @@ public class XSSFExcelWorkBookImport extends XSSFExcelParserAbstract implements
         return this.sheets.size();
     }
 
+    /**
+     * 关闭从文件打开的压缩包
+     */
+    @Override
+    public void dispose() {
+        this.sheets.clear();
+        if (this.opcPackage != null) {
+            this.opcPackage.revert();
+            this.opcPackage = null;
+        }
+    }
+
 }
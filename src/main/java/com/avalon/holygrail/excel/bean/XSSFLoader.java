@@ -53,7 +53,11 @@ public class XSSFLoader implements CellOption, CellStyle {
 
     @Override
     public Object getValue() throws ExcelException {
-        switch (cell.getCellType()) {
+        int cellType = cell.getCellType();
+        if (cellType == Cell.CELL_TYPE_FORMULA) {//公式取缓存的计算结果
+            cellType = cell.getCachedFormulaResultType();
+        }
+        switch (cellType) {
             case Cell.CELL_TYPE_STRING:
                 return cell.getStringCellValue();
             case Cell.CELL_TYPE_NUMERIC:
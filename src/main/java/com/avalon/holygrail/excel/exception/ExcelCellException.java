@@ -0,0 +1,30 @@
+package com.avalon.holygrail.excel.exception;
+
+import com.avalon.holygrail.excel.bean.ExcelCellError;
+
+/**
+ * Excel单元格异常
+ * 导入时单元格值无法装载到数据对象
+ */
+public class ExcelCellException extends ImportException {
+
+    protected ExcelCellError excelCellError;
+
+    public ExcelCellException(ExcelCellError excelCellError) {
+        this.excelCellError = excelCellError;
+    }
+
+    public ExcelCellException(String message, ExcelCellError excelCellError) {
+        super(message);
+        this.excelCellError = excelCellError;
+    }
+
+    public ExcelCellException(String message, Throwable cause, ExcelCellError excelCellError) {
+        super(message, cause);
+        this.excelCellError = excelCellError;
+    }
+
+    public ExcelCellError getExcelCellError() {
+        return excelCellError;
+    }
+}
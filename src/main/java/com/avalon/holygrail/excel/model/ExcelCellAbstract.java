@@ -4,6 +4,8 @@ import com.avalon.holygrail.excel.norm.CellOption;
 import com.avalon.holygrail.excel.norm.CellStyle;
 import com.avalon.holygrail.excel.norm.Font;
 
+import java.util.Objects;
+
 /**
  * Excel Cell属性
  * Created by 白超 on 2018/1/17.
@@ -68,6 +70,11 @@ public abstract class ExcelCellAbstract implements CellOption, CellStyle, Font {
      */
     protected boolean writeEmpty = true;
 
+    /**
+     * 导入校验规则
+     */
+    protected ExcelValidateRule validate;
+
     public ExcelCellAbstract() {
     }
 
@@ -242,6 +249,67 @@ public abstract class ExcelCellAbstract implements CellOption, CellStyle, Font {
         this.setBorderBottom(values[3]);
     }
 
+    /**
+     * 复制全部属性和样式
+     *
+     * @param source 来源
+     */
+    protected void copyFrom(ExcelCellAbstract source) {
+        this.type = source.type;
+        this.options = source.options;
+        this.value = source.value;
+        this.field = source.field;
+        this.width = source.width;
+        this.rowSpan = source.rowSpan;
+        this.colSpan = source.colSpan;
+        this.HAlign = source.HAlign;
+        this.VAlign = source.VAlign;
+        this.borderLeft = source.borderLeft;
+        this.borderTop = source.borderTop;
+        this.borderRight = source.borderRight;
+        this.borderBottom = source.borderBottom;
+        this.writeEmpty = source.writeEmpty;
+        this.validate = source.validate;
+        this.fontColor = source.fontColor;
+        this.strikeout = source.strikeout;
+        this.italic = source.italic;
+        this.fontSize = source.fontSize;
+        this.fontName = source.fontName;
+        this.boldWeight = source.boldWeight;
+        this.underLine = source.underLine;
+    }
+
+    /**
+     * 样式和字体是否与目标完全相同
+     *
+     * @param target 目标
+     */
+    public boolean isSameStyle(ExcelCellAbstract target) {
+        return Objects.equals(this.HAlign, target.HAlign)
+                && Objects.equals(this.VAlign, target.VAlign)
+                && Objects.equals(this.borderLeft, target.borderLeft)
+                && Objects.equals(this.borderTop, target.borderTop)
+                && Objects.equals(this.borderRight, target.borderRight)
+                && Objects.equals(this.borderBottom, target.borderBottom)
+                && this.fontColor == target.fontColor
+                && this.strikeout == target.strikeout
+                && this.italic == target.italic
+                && this.fontSize == target.fontSize
+                && Objects.equals(this.fontName, target.fontName)
+                && this.boldWeight == target.boldWeight
+                && this.underLine == target.underLine;
+    }
+
+    @Override
+    public ExcelValidateRule getValidate() {
+        return validate;
+    }
+
+    @Override
+    public void setValidate(ExcelValidateRule validate) {
+        this.validate = validate;
+    }
+
     public boolean isWriteEmpty() {
         return writeEmpty;
     }
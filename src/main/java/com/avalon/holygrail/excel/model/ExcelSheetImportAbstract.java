@@ -0,0 +1,1007 @@
+package com.avalon.holygrail.excel.model;
+
+import com.avalon.holygrail.excel.bean.CellConverterRegistry;
+import com.avalon.holygrail.excel.bean.ColumnarData;
+import com.avalon.holygrail.excel.bean.ExcelCellError;
+import com.avalon.holygrail.excel.bean.ImportValidateResult;
+import com.avalon.holygrail.excel.bean.XSSFExcelTitle;
+import com.avalon.holygrail.excel.bean.XSSFMergeCell;
+import com.avalon.holygrail.excel.exception.ExcelCellException;
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.exception.ImportException;
+import com.avalon.holygrail.excel.norm.CellConverter;
+import com.avalon.holygrail.excel.norm.CellOption;
+import com.avalon.holygrail.excel.norm.ExcelSheetImport;
+import com.avalon.holygrail.excel.norm.MergeCell;
+import com.avalon.holygrail.excel.norm.RowValidator;
+import com.avalon.holygrail.excel.norm.Sheet;
+import com.avalon.holygrail.util.ClassUtil;
+import com.esotericsoftware.reflectasm.MethodAccess;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+
+/**
+ * 导入Sheet
+ * 处理表头、游标以及将单元格值装载到数据对象,具体的行读取由子类按行推送
+ */
+public abstract class ExcelSheetImportAbstract extends XSSFExcelParserAbstract implements ExcelSheetImport {
+
+    protected List<MergeCell> titleMergeCells;//表头合并单元格信息
+
+    protected LinkedList<MergeCell> dataTitleMergeCells = new LinkedList<>();//与数据相关的表头信息
+
+    protected int rowCursor = -1;//行游标,记录读取起始行号
+
+    protected int colCursor = -1;//列游标,记录读取起始列号
+
+    protected Class<?> defaultClass = ArrayList.class;//默认数据容器
+
+    protected Class<?> accessClass;//access对应的数据类型
+
+    protected MethodAccess access;//对象的ASM,用于高效调用反射
+
+    protected ImportColumn[] importColumns = new ImportColumn[0];//列下标 => 导入列,没有对应表头为null
+
+    protected List<MergeCell> importColumnsSource;//importColumns对应的数据表头
+
+    protected Class<?> importColumnsClass;//importColumns对应的数据类型
+
+    protected String[] columnNames = new String[0];//列下标 => 列名,没有对应表头的列装载Map时使用
+
+    protected CellConverterRegistry converterRegistry = new CellConverterRegistry();//单元格值转换器
+
+    protected int[] requiredColumns = new int[0];//必填列下标,行结束时检查缺失的单元格
+
+    protected List<RowValidator<Object>> rowValidators = new ArrayList<>();//行校验
+
+    protected MergeCell[] detectedTitles;//自动识别表头后 列下标 => 数据表头,未识别时为null
+
+    protected ArrayList<ArrayList<?>> loadDatasList = new ArrayList<>();//每次读取的数据集合,按照读取次数顺序放入
+
+    /**
+     * 行接收器,子类读取行时依次推送行和单元格
+     */
+    protected interface RowReceiver {
+
+        /**
+         * 开始一行
+         *
+         * @param rowIndex 行下标
+         */
+        void startRow(int rowIndex) throws ExcelException;
+
+        /**
+         * 单元格值
+         *
+         * @param columnIndex 列下标
+         * @param value       单元格值
+         */
+        void cell(int columnIndex, Object value) throws ExcelException;
+
+        /**
+         * 结束一行
+         *
+         * @return 是否继续读取下一行
+         */
+        boolean endRow() throws ExcelException;
+    }
+
+    /**
+     * 读取行游标之后的所有行,按顺序推送给接收器,接收器endRow返回false时停止读取
+     *
+     * @param receiver 行接收器
+     */
+    protected abstract void readSheetRows(RowReceiver receiver) throws ExcelException;
+
+    /**
+     * 读取到一条数据
+     */
+    @FunctionalInterface
+    protected interface HandlerRecord<T> {
+
+        /**
+         * @param record  数据
+         * @param records 本次读取的数据集合,不保留数据时为null
+         * @param rowNum  行号
+         * @param index   数据下标
+         * @return 是否继续读取
+         */
+        boolean apply(T record, ArrayList<T> records, int rowNum, int index);
+    }
+
+    /**
+     * 获取列对应的数据表头
+     *
+     * @param columnIndex 列下标
+     * @return 数据表头, 不存在返回null
+     */
+    protected MergeCell getDataTitle(int columnIndex) {
+        if (this.detectedTitles != null) {
+            return columnIndex < this.detectedTitles.length ? this.detectedTitles[columnIndex] : null;
+        }
+        return this.searchMergeCell(this.dataTitleMergeCells, columnIndex);
+    }
+
+    /**
+     * 数据表头占用的列数
+     */
+    protected int getDataTitleColumnSize() {
+        if (this.detectedTitles != null) {
+            return this.detectedTitles.length;
+        }
+        int size = 0;
+        for (MergeCell mergeCell : this.dataTitleMergeCells) {
+            size = Math.max(size, mergeCell.getEndColNum());
+        }
+        return size;
+    }
+
+    /**
+     * 表头文本标准化,忽略空白、全角半角、大小写以及必填标记*
+     *
+     * @param title 表头文本
+     */
+    protected static String normalizeTitle(Object title) {
+        if (title == null) {
+            return "";
+        }
+        String text = Normalizer.normalize(title.toString(), Normalizer.Form.NFKC);
+        StringBuilder sb = new StringBuilder(text.length());
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (!Character.isWhitespace(c) && !Character.isSpaceChar(c) && c != '*') {
+                sb.append(Character.toLowerCase(c));
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * 读取所有行,读取的数据保存到loadDatasList
+     *
+     * @param clazz         数据类型
+     * @param handlerRecord 读取到一条数据,返回false不继续读取
+     */
+    protected <T> void loadRows(Class<T> clazz, HandlerRecord<T> handlerRecord) throws ExcelException, InstantiationException, IllegalAccessException {
+        this.loadRows(clazz, true, handlerRecord);
+    }
+
+    /**
+     * 读取所有行
+     *
+     * @param clazz         数据类型
+     * @param retain        是否保留读取的数据,不保留时每行数据交给handlerRecord后不再引用
+     * @param handlerRecord 读取到一条数据,返回false不继续读取
+     */
+    protected <T> void loadRows(Class<T> clazz, boolean retain, HandlerRecord<T> handlerRecord) throws ExcelException, InstantiationException, IllegalAccessException {
+        this.loadRows(clazz, retain, null, handlerRecord);
+    }
+
+    /**
+     * 读取所有行
+     *
+     * @param clazz         数据类型
+     * @param retain        是否保留读取的数据,不保留时每行数据交给handlerRecord后不再引用
+     * @param result        校验结果,不为null时校验失败的行记录到结果中并继续读取,为null时抛出ExcelCellException
+     * @param handlerRecord 读取到一条校验通过的数据,返回false不继续读取
+     */
+    protected <T> void loadRows(Class<T> clazz, boolean retain, ImportValidateResult<T> result, HandlerRecord<T> handlerRecord) throws ExcelException, InstantiationException, IllegalAccessException {
+        ArrayList<T> records = retain ? new ArrayList<>() : null;
+        int containerType = this.prepareContainer(clazz);
+        RowReceiver receiver = new RowReceiver() {
+
+            T record;
+
+            int rowIndex;
+
+            int index;
+
+            List<ExcelCellError> rowErrors;
+
+            boolean[] present = newPresentColumns();
+
+            @Override
+            public void startRow(int rowIndex) throws ExcelException {
+                //设置行游标
+                setRowCursor(idx -> rowIndex);
+                this.rowIndex = rowIndex;
+                this.record = newRecord(clazz);
+                this.rowErrors = null;
+                if (this.present != null) {
+                    Arrays.fill(this.present, false);
+                }
+            }
+
+            @Override
+            public void cell(int columnIndex, Object value) throws ExcelException {
+                this.rowErrors = loadCell(this.record, containerType, this.rowIndex, columnIndex, value, this.present, this.rowErrors);
+            }
+
+            @Override
+            public boolean endRow() throws ExcelException {
+                T record = this.record;
+                this.record = null;
+                List<ExcelCellError> rowErrors = validateRow(record, this.rowIndex, this.present, this.rowErrors);
+                if (result != null) {
+                    result.setTotal(result.getTotal() + 1);
+                }
+                if (rowErrors != null) {
+                    if (result == null) {
+                        throw cellException(rowErrors.get(0), null);
+                    }
+                    result.reject(rowErrors);
+                    return true;
+                }
+                if (retain) {
+                    records.add(record);
+                }
+                return handlerRecord.apply(record, records, this.rowIndex + 1, this.index++);
+            }
+        };
+        this.readSheetRows(receiver);
+        if (retain) {
+            this.loadDatasList.add(records);
+        }
+    }
+
+    /**
+     * 并行读取所有行
+     * 当前线程读取行,行数据按块交给executor转换为数据对象,转换结果按行顺序在当前线程交给handlerRecord
+     *
+     * @param clazz         数据类型
+     * @param executor      转换数据对象的线程池
+     * @param parallelism   并行数,同时转换中的块数不超过并行数的2倍
+     * @param retain        是否保留读取的数据
+     * @param handlerRecord 读取到一条数据,返回false不继续读取
+     */
+    protected <T> void loadRowsParallel(Class<T> clazz, Executor executor, int parallelism, boolean retain, HandlerRecord<T> handlerRecord) throws ExcelException {
+        ArrayList<T> records = retain ? new ArrayList<>() : null;
+        //在当前线程编译导入列,工作线程只读
+        int containerType = this.prepareContainer(clazz);
+        ParallelRowLoader<T> loader = new ParallelRowLoader<>(this, clazz, containerType, executor, Math.max(1, parallelism) * 2, records, handlerRecord);
+        try {
+            this.readSheetRows(loader);
+            loader.finish();
+        } finally {
+            loader.cancel();
+        }
+        if (retain) {
+            this.loadDatasList.add(records);
+        }
+    }
+
+    /**
+     * 准备装载数据的容器
+     *
+     * @param clazz 数据类型
+     * @return 容器类型 0:Map 1:集合 2:对象
+     */
+    protected int prepareContainer(Class<?> clazz) {
+        int containerType = Map.class.isAssignableFrom(clazz) ? 0 : Collection.class.isAssignableFrom(clazz) ? 1 : 2;
+        if (containerType == 2 && clazz != this.accessClass) {
+            this.access = MethodAccess.get(clazz);
+            this.accessClass = clazz;
+        }
+        this.compileImportColumns(clazz, containerType);
+        return containerType;
+    }
+
+    /**
+     * 创建记录行中出现的列的数组,没有必填列时返回null
+     */
+    protected boolean[] newPresentColumns() {
+        return this.requiredColumns.length == 0 ? null : new boolean[this.importColumns.length];
+    }
+
+    /**
+     * 校验并装载单元格值,校验失败或无法转换时记录错误
+     *
+     * @param record        数据对象
+     * @param containerType 容器类型
+     * @param rowIndex      行下标
+     * @param columnIndex   列下标
+     * @param value         单元格值
+     * @param present       记录行中出现的列,没有必填列时为null
+     * @param rowErrors     当前行错误,没有错误为null
+     * @return 当前行错误
+     */
+    protected <T> List<ExcelCellError> loadCell(T record, int containerType, int rowIndex, int columnIndex, Object value,
+                                                boolean[] present, List<ExcelCellError> rowErrors) throws ExcelException {
+        if (columnIndex < this.colCursor) {//小于列游标不读
+            return rowErrors;
+        }
+        ImportColumn importColumn = this.getImportColumn(columnIndex);
+        if (importColumn != null) {
+            if (present != null) {
+                present[columnIndex] = true;
+            }
+            if (importColumn.getValidate() != null) {
+                String message = importColumn.getValidate().validate(value);
+                if (message != null) {
+                    return addError(rowErrors, new ExcelCellError(rowIndex, columnIndex, (CellOption) importColumn.getTitle(), value, message));
+                }
+            }
+        }
+        try {
+            this.loadValue(record, containerType, rowIndex, columnIndex, value);
+        } catch (ExcelCellException e) {
+            return addError(rowErrors, e.getExcelCellError());
+        }
+        return rowErrors;
+    }
+
+    /**
+     * 行结束时校验缺失的必填列,单元格都通过时执行行校验
+     *
+     * @param record    数据对象
+     * @param rowIndex  行下标
+     * @param present   记录行中出现的列,没有必填列时为null
+     * @param rowErrors 当前行错误,没有错误为null
+     * @return 当前行错误
+     */
+    protected <T> List<ExcelCellError> validateRow(T record, int rowIndex, boolean[] present, List<ExcelCellError> rowErrors) {
+        if (present != null) {
+            for (int columnIndex : this.requiredColumns) {
+                if (!present[columnIndex] && columnIndex >= this.colCursor) {
+                    ImportColumn importColumn = this.importColumns[columnIndex];
+                    rowErrors = addError(rowErrors, new ExcelCellError(rowIndex, columnIndex, (CellOption) importColumn.getTitle(), "", importColumn.getValidate().validate("")));
+                }
+            }
+        }
+        if (rowErrors != null || record == null) {//列式读取没有数据对象,不执行行校验
+            return rowErrors;
+        }
+        for (RowValidator<Object> rowValidator : this.rowValidators) {
+            String message = rowValidator.validate(record, rowIndex + 1);
+            if (message != null) {
+                rowErrors = addError(rowErrors, new ExcelCellError(rowIndex, -1, null, null, message));
+            }
+        }
+        return rowErrors;
+    }
+
+    protected static List<ExcelCellError> addError(List<ExcelCellError> rowErrors, ExcelCellError error) {
+        if (rowErrors == null) {
+            rowErrors = new ArrayList<>(2);
+        }
+        rowErrors.add(error);
+        return rowErrors;
+    }
+
+    /**
+     * 单元格错误转换为异常
+     *
+     * @param error 单元格错误
+     * @param cause 原因
+     */
+    protected static ExcelCellException cellException(ExcelCellError error, Throwable cause) {
+        String message = "第" + (error.getRow() + 1) + "行"
+                + (error.getCol() < 0 ? "" : Sheet.getColumnName(error.getCol() + 1) + "列")
+                + ":" + error.getMessage();
+        return new ExcelCellException(message, cause, error);
+    }
+
+    /**
+     * 按列下标编译导入列,表头和数据类型不变时不重复编译
+     *
+     * @param clazz         数据类型
+     * @param containerType 容器类型
+     */
+    protected void compileImportColumns(Class<?> clazz, int containerType) {
+        if (this.importColumnsSource == this.dataTitleMergeCells && this.importColumnsClass == clazz) {
+            return;
+        }
+        int size = this.getDataTitleColumnSize();
+        ImportColumn[] importColumns = new ImportColumn[size];
+        int[] requiredColumns = new int[size];
+        int requiredSize = 0;
+        Map<MergeCell, ImportColumn> compiled = new IdentityHashMap<>();
+        for (int i = 0; i < size; i++) {
+            XSSFMergeCell tMergeCell = (XSSFMergeCell) this.getDataTitle(i);
+            if (tMergeCell == null) {
+                continue;
+            }
+            ImportColumn importColumn = compiled.get(tMergeCell);
+            if (importColumn == null) {
+                importColumn = this.compileImportColumn(tMergeCell, containerType);
+                compiled.put(tMergeCell, importColumn);
+            }
+            importColumns[i] = importColumn;
+            if (importColumn.getValidate() != null && importColumn.getValidate().isRequired()) {
+                requiredColumns[requiredSize++] = i;
+            }
+        }
+        this.importColumns = importColumns;
+        this.requiredColumns = Arrays.copyOf(requiredColumns, requiredSize);
+        this.columnNames = new String[size + 64];
+        this.importColumnsSource = this.dataTitleMergeCells;
+        this.importColumnsClass = clazz;
+    }
+
+    /**
+     * 编译导入列,对象容器按setter参数类型解析转换器
+     *
+     * @param title         数据表头
+     * @param containerType 容器类型
+     */
+    protected ImportColumn compileImportColumn(XSSFMergeCell title, int containerType) {
+        String field = title.getField();
+        int setterIndex = containerType == 2 ? this.getSetterIndex(field) : -1;
+        if (setterIndex < 0) {
+            return new ImportColumn(title, field, -1, null, false, title.getValidate());
+        }
+        Class<?> parameterType = this.access.getParameterTypes()[setterIndex][0];
+        return new ImportColumn(title, field, setterIndex, this.converterRegistry.resolve(parameterType), parameterType.isPrimitive(), title.getValidate());
+    }
+
+    /**
+     * 获取属性setter在MethodAccess中的下标
+     *
+     * @param field 属性
+     * @return 没有setter返回-1
+     */
+    protected int getSetterIndex(String field) {
+        if (field == null) {
+            return -1;
+        }
+        try {
+            return this.access.getIndex(ClassUtil.getSetterMethodName(field), 1);
+        } catch (IllegalArgumentException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 获取列对应的导入列
+     *
+     * @param columnIndex 列下标
+     * @return 没有对应表头返回null
+     */
+    protected ImportColumn getImportColumn(int columnIndex) {
+        ImportColumn[] importColumns = this.importColumns;
+        return columnIndex < importColumns.length ? importColumns[columnIndex] : null;
+    }
+
+    /**
+     * 创建数据对象
+     *
+     * @param clazz 数据类型
+     */
+    protected <T> T newRecord(Class<T> clazz) throws ImportException {
+        try {
+            return clazz.newInstance();
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new ImportException("无法创建数据对象:" + clazz.getName(), e);
+        }
+    }
+
+    /**
+     * 装载单元格值
+     *
+     * @param record        数据对象
+     * @param containerType 容器类型
+     * @param rowIndex      行下标
+     * @param columnIndex   列下标
+     * @param value         单元格值
+     */
+    protected <T> void loadValue(T record, int containerType, int rowIndex, int columnIndex, Object value) throws ExcelException {
+        switch (containerType) {
+            case 0://Map集合
+                loadMapValue((Map<String, Object>) record, rowIndex, columnIndex, value);
+                break;
+            case 1://表示使用集合去装载数据,此时不记录field
+                ((Collection<Object>) record).add(value);
+                break;
+            default://对象
+                loadObjectValue(record, rowIndex, columnIndex, value);
+        }
+    }
+
+    /**
+     * 获取线程池的并行数
+     *
+     * @param executor 线程池
+     */
+    protected static int getParallelism(Executor executor) {
+        if (executor instanceof ForkJoinPool) {
+            return ((ForkJoinPool) executor).getParallelism();
+        }
+        if (executor instanceof ThreadPoolExecutor) {
+            return ((ThreadPoolExecutor) executor).getMaximumPoolSize();
+        }
+        return Runtime.getRuntime().availableProcessors();
+    }
+
+    /**
+     * 装载Map
+     *
+     * @param container   容器
+     * @param rowIndex    行下标
+     * @param columnIndex 列下标
+     * @param value       单元格值
+     */
+    protected void loadMapValue(Map<String, Object> container, int rowIndex, int columnIndex, Object value) {
+        ImportColumn importColumn = this.getImportColumn(columnIndex);
+        if (importColumn != null) {
+            container.put(importColumn.getField(), value);
+            return;
+        }
+        String[] columnNames = this.columnNames;
+        String columnName = columnIndex < columnNames.length ? columnNames[columnIndex] : null;
+        if (columnName == null) {
+            columnName = Sheet.getColumnName(columnIndex + 1);
+            if (columnIndex < columnNames.length) {
+                columnNames[columnIndex] = columnName;
+            }
+        }
+        container.put(columnName + (rowIndex + 1), value);
+    }
+
+    /**
+     * 装载对象
+     * 单元格值经导入列的转换器转换后注入,无法转换时抛出ExcelCellException
+     *
+     * @param target      数据对象
+     * @param rowIndex    行下标
+     * @param columnIndex 列下标
+     * @param value       单元格值
+     */
+    protected <T> void loadObjectValue(T target, int rowIndex, int columnIndex, Object value) throws ExcelException {
+        ImportColumn importColumn = this.getImportColumn(columnIndex);
+        if (importColumn == null || importColumn.getSetterIndex() < 0) {
+            return;
+        }
+        Object converted;
+        try {
+            converted = importColumn.getConverter().convert(value);
+        } catch (IllegalArgumentException e) {
+            throw cellException(new ExcelCellError(rowIndex, columnIndex, (CellOption) importColumn.getTitle(), value, e.getMessage()), e);
+        }
+        if (converted == null && importColumn.isPrimitive()) {//基本类型不注入空值
+            return;
+        }
+        this.access.invoke(target, importColumn.getSetterIndex(), converted);
+    }
+
+    /**
+     * 解析表头
+     *
+     * @param titles 表头合并单元格信息
+     */
+    protected void parseExportTitles(Collection<MergeCell> titles) throws ExcelException {
+        int maxRowNum = this.rowCursor + 1;
+        for (MergeCell title : titles) {
+            if (title.getEndRowNum() > maxRowNum) {
+                maxRowNum = title.getEndRowNum();
+            }
+        }
+        //记录行号
+        int finalMaxRowIndex = maxRowNum - 1;
+        setRowCursor(idx -> finalMaxRowIndex);
+    }
+
+    /**
+     * 解析表头
+     *
+     * @param titles  表头合并单元格信息
+     * @param rowSpan 占用行数
+     */
+    protected void parseExportTitles(Collection<MergeCell> titles, int rowSpan) throws ExcelException {
+        int maxRowNum = Integer.MIN_VALUE;
+        int minRowNum = Integer.MAX_VALUE;
+        for (MergeCell title : titles) {
+            if (title.getEndRowNum() > maxRowNum) {
+                maxRowNum = title.getEndRowNum();
+            }
+            if (title.getStartRowNum() < minRowNum) {
+                minRowNum = title.getStartRowNum();
+            }
+        }
+        //记录行号
+        int finalMaxRowIndex = maxRowNum - 1;
+        int index = minRowNum - 1 + rowSpan - 1;
+        setRowCursor(idx -> finalMaxRowIndex >= index ? finalMaxRowIndex : index);
+    }
+
+    @Override
+    public <T> ExcelSheetImport registerConverter(Class<T> type, CellConverter<? extends T> converter) {
+        this.converterRegistry.register(type, converter);
+        //重新编译导入列
+        this.importColumnsSource = null;
+        return this;
+    }
+
+    @Override
+    public <T> ExcelSheetImport addRowValidator(RowValidator<T> rowValidator) {
+        this.rowValidators.add((RowValidator<Object>) rowValidator);
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport setRowCursor(Function<Integer, Integer> handler) {
+        this.rowCursor = handler.apply(this.rowCursor);
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport setColCursor(Function<Integer, Integer> handler) {
+        this.colCursor = handler.apply(this.colCursor);
+        return this;
+    }
+
+    @Override
+    public <T> ExcelSheetImport parseTitlesJson(String titlesJson, Class<T> clazz) throws ExcelException {
+        return setTitles(this.getTitleLayout(titlesJson), clazz);
+    }
+
+    @Override
+    public <T> ExcelSheetImport parseTitlesJson(InputStream inputStream, Class<T> clazz) throws IOException, ExcelException {
+        return setTitles(this.getTitleLayout(this.readTitlesJson(inputStream)), clazz);
+    }
+
+    @Override
+    public <T> ExcelSheetImport parseTitlesJson(File file, Class<T> clazz) throws IOException, ExcelException {
+        return setTitles(this.getTitleLayout(file), clazz);
+    }
+
+    @Override
+    public <T> ExcelSheetImport setTitles(ExcelTitleCellAbstract[][] excelTitles, Class<T> clazz) throws ExcelException {
+        if (!(excelTitles instanceof XSSFExcelTitle[][])) {
+            throw new ImportException(this.getClass().getSimpleName() + " setTitles excelTitles类型应该为XSSFExcelTitle[][]");
+        }
+        return setTitles(this.compileTitleLayout(excelTitles), clazz);
+    }
+
+    @Override
+    public <T> ExcelSheetImport setTitles(TitleLayout titleLayout, Class<T> clazz) throws ExcelException {
+        this.titleMergeCells = titleLayout.buildTitleMergeCells(this);
+        this.detectedTitles = null;
+        this.dataTitleMergeCells = titleLayout.getDataTitleMergeCells(this.titleMergeCells);
+        this.parseExportTitles(this.dataTitleMergeCells);
+        this.defaultClass = clazz;
+        return this;
+    }
+
+    public <T> ExcelSheetImport setTitles(int rowSpan, ExcelTitleCellAbstract[][] excelTitles, Class<T> clazz) throws ExcelException {
+        if (!(excelTitles instanceof XSSFExcelTitle[][])) {
+            throw new ImportException(this.getClass().getSimpleName() + " setTitles excelTitles类型应该为XSSFExcelTitle[][]");
+        }
+        TitleLayout titleLayout = this.compileTitleLayout(excelTitles);
+        this.titleMergeCells = titleLayout.buildTitleMergeCells(this);
+        this.detectedTitles = null;
+        this.dataTitleMergeCells = titleLayout.getDataTitleMergeCells(this.titleMergeCells);
+        this.parseExportTitles(this.dataTitleMergeCells, rowSpan);
+        this.defaultClass = clazz;
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport detectTitles(int scanRows) throws ExcelException {
+        if (this.dataTitleMergeCells.isEmpty()) {
+            throw new ImportException("自动识别表头前需要先设置表头");
+        }
+        //标准化表头文本 => 数据表头,同名表头按从左到右的顺序匹配
+        Map<String, List<MergeCell>> titleIndex = new HashMap<>();
+        int titleSize = 0;
+        for (MergeCell mergeCell : this.dataTitleMergeCells) {
+            String label;
+            try {
+                label = normalizeTitle(((CellOption) mergeCell).getValue());
+            } catch (ExcelException e) {
+                continue;
+            }
+            if (!label.isEmpty()) {
+                titleIndex.computeIfAbsent(label, k -> new ArrayList<>(1)).add(mergeCell);
+                titleSize++;
+            }
+        }
+        int allTitles = titleSize;
+        int[] best = {-1, 0};//表头行下标,匹配数
+        ArrayList<MergeCell[]> bestTitles = new ArrayList<>(1);
+        bestTitles.add(null);
+        int rowCursor = this.rowCursor;
+        this.rowCursor = -1;
+        try {
+            this.readSheetRows(new RowReceiver() {
+
+                int rowIndex;
+
+                int scanned;
+
+                MergeCell[] titles = new MergeCell[16];
+
+                int matched;
+
+                Map<String, Integer> used = new HashMap<>();
+
+                @Override
+                public void startRow(int rowIndex) {
+                    this.rowIndex = rowIndex;
+                    this.titles = new MergeCell[this.titles.length];
+                    this.matched = 0;
+                    this.used.clear();
+                }
+
+                @Override
+                public void cell(int columnIndex, Object value) {
+                    if (!(value instanceof String)) {
+                        return;
+                    }
+                    String label = normalizeTitle(value);
+                    List<MergeCell> candidates = titleIndex.get(label);
+                    if (candidates == null) {
+                        return;
+                    }
+                    int usedCount = this.used.getOrDefault(label, 0);
+                    if (usedCount >= candidates.size()) {
+                        return;
+                    }
+                    this.used.put(label, usedCount + 1);
+                    if (columnIndex >= this.titles.length) {
+                        this.titles = Arrays.copyOf(this.titles, Math.max(columnIndex + 1, this.titles.length * 2));
+                    }
+                    this.titles[columnIndex] = candidates.get(usedCount);
+                    this.matched++;
+                }
+
+                @Override
+                public boolean endRow() {
+                    if (this.matched > best[1]) {
+                        best[0] = this.rowIndex;
+                        best[1] = this.matched;
+                        bestTitles.set(0, this.titles);
+                    }
+                    return ++this.scanned < scanRows && best[1] < allTitles;//全部匹配时不再扫描
+                }
+            });
+        } finally {
+            this.rowCursor = rowCursor;
+        }
+        if (best[0] < 0) {
+            throw new ImportException("前" + scanRows + "行中没有找到表头");
+        }
+        MergeCell[] titles = bestTitles.get(0);
+        int size = titles.length;
+        while (size > 0 && titles[size - 1] == null) {
+            size--;
+        }
+        titles = Arrays.copyOf(titles, size);
+        //必填的表头必须存在
+        Set<MergeCell> matchedTitles = Collections.newSetFromMap(new IdentityHashMap<>());
+        matchedTitles.addAll(Arrays.asList(titles));
+        for (MergeCell mergeCell : this.dataTitleMergeCells) {
+            ExcelValidateRule validate = ((CellOption) mergeCell).getValidate();
+            if (validate != null && validate.isRequired() && !matchedTitles.contains(mergeCell)) {
+                throw new ImportException("没有找到必填的表头:" + ((XSSFMergeCell) mergeCell).getValue());
+            }
+        }
+        this.detectedTitles = titles;
+        this.importColumnsSource = null;
+        int headerRowIndex = best[0];
+        this.setRowCursor(idx -> headerRowIndex);
+        return this;
+    }
+
+    @Override
+    public <T> ExcelSheetImport setColumnFields(List<String> fields, Class<T> clazz) throws ExcelException {
+        XSSFExcelTitle[][] excelTitles = new XSSFExcelTitle[1][fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            excelTitles[0][i] = new XSSFExcelTitle(fields.get(i));
+        }
+        return setTitles(excelTitles, clazz);
+    }
+
+    @Override
+    public <T> ExcelSheetImport setColumnFields(int rowSpan, List<String> fields, Class<T> clazz) throws ExcelException {
+        XSSFExcelTitle[][] excelTitles = new XSSFExcelTitle[1][fields.size()];
+        for (int i = 0; i < fields.size(); i++) {
+            excelTitles[0][i] = new XSSFExcelTitle(fields.get(i));
+        }
+        return setTitles(rowSpan, excelTitles, clazz);
+    }
+
+    @Override
+    public ExcelSheetImport setColumnFields(String... fields) throws ExcelException {
+        return setColumnFields(Arrays.asList(fields), HashMap.class);
+    }
+
+    @Override
+    public ExcelSheetImport setColumnFields(int rowSpan, String... fields) throws ExcelException {
+        return setColumnFields(rowSpan, Arrays.asList(fields), HashMap.class);
+    }
+
+    @Override
+    public <T> ExcelSheetImport readRows(Class<T> clazz) throws ExcelException, InstantiationException, IllegalAccessException {
+        this.loadRows(clazz, (record, records, rowNum, index) -> true);
+        return this;
+    }
+
+    @Override
+    public <T> ExcelSheetImport readRows(Class<T> clazz, HandlerRowA<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        this.loadRows(clazz, (record, records, rowNum, index) -> {
+            handlerRow.accept(record, records, rowNum, index);
+            return true;
+        });
+        return this;
+    }
+
+    @Override
+    public <T> ExcelSheetImport readRows(Class<T> clazz, HandlerRowB<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        this.loadRows(clazz, handlerRow::apply);
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport readRows() throws ExcelException, IllegalAccessException, InstantiationException {
+        return this.readRows(this.defaultClass);
+    }
+
+    @Override
+    public ExcelSheetImport readRows(HandlerRowA handlerRow) throws ExcelException, IllegalAccessException, InstantiationException {
+        return this.readRows((Class<Object>) this.defaultClass, (HandlerRowA<Object>) handlerRow);
+    }
+
+    @Override
+    public ExcelSheetImport readRows(HandlerRowB handlerRow) throws ExcelException, IllegalAccessException, InstantiationException {
+        return this.readRows((Class<Object>) this.defaultClass, (HandlerRowB<Object>) handlerRow);
+    }
+
+    @Override
+    public <T> ExcelSheetImport streamRows(Class<T> clazz, HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        this.loadRows(clazz, false, (record, records, rowNum, index) -> handlerRow.apply(record, rowNum, index));
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport streamRows(HandlerRowC handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        return this.streamRows((Class<Object>) this.defaultClass, (HandlerRowC<Object>) handlerRow);
+    }
+
+    @Override
+    public ExcelSheetImport readColumns(ColumnarData columnarData) throws ExcelException {
+        this.prepareContainer(HashMap.class);
+        //列下标 => 列,没有声明的属性不读取
+        ColumnarData.Column[] columns = new ColumnarData.Column[this.importColumns.length];
+        for (int i = 0; i < columns.length; i++) {
+            ImportColumn importColumn = this.importColumns[i];
+            columns[i] = importColumn == null ? null : columnarData.getColumn(importColumn.getField());
+        }
+        this.readSheetRows(new RowReceiver() {
+
+            int rowIndex;
+
+            int row;
+
+            List<ExcelCellError> rowErrors;
+
+            boolean[] present = newPresentColumns();
+
+            @Override
+            public void startRow(int rowIndex) {
+                //设置行游标
+                setRowCursor(idx -> rowIndex);
+                this.rowIndex = rowIndex;
+                this.row = columnarData.addRow();
+                this.rowErrors = null;
+                if (this.present != null) {
+                    Arrays.fill(this.present, false);
+                }
+            }
+
+            @Override
+            public void cell(int columnIndex, Object value) {
+                if (columnIndex < colCursor || columnIndex >= columns.length || columns[columnIndex] == null) {
+                    return;
+                }
+                ImportColumn importColumn = importColumns[columnIndex];
+                if (this.present != null) {
+                    this.present[columnIndex] = true;
+                }
+                String message = importColumn.getValidate() == null ? null : importColumn.getValidate().validate(value);
+                if (message == null) {
+                    try {
+                        columns[columnIndex].set(this.row, value);
+                        return;
+                    } catch (IllegalArgumentException e) {
+                        message = e.getMessage();
+                    }
+                }
+                this.rowErrors = addError(this.rowErrors, new ExcelCellError(this.rowIndex, columnIndex, (CellOption) importColumn.getTitle(), value, message));
+            }
+
+            @Override
+            public boolean endRow() throws ExcelException {
+                List<ExcelCellError> rowErrors = validateRow(null, this.rowIndex, this.present, this.rowErrors);
+                if (rowErrors != null) {
+                    throw cellException(rowErrors.get(0), null);
+                }
+                return true;
+            }
+        });
+        return this;
+    }
+
+    @Override
+    public <T> ImportValidateResult<T> validateRows(Class<T> clazz) throws ExcelException, InstantiationException, IllegalAccessException {
+        ImportValidateResult<T> result = new ImportValidateResult<>(new ArrayList<>());
+        this.loadRows(clazz, false, result, (record, records, rowNum, index) -> result.getRecords().add(record));
+        this.loadDatasList.add(result.getRecords());
+        return result;
+    }
+
+    @Override
+    public ImportValidateResult validateRows() throws ExcelException, InstantiationException, IllegalAccessException {
+        return this.validateRows(this.defaultClass);
+    }
+
+    @Override
+    public <T> ImportValidateResult<T> validateRows(Class<T> clazz, HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException {
+        ImportValidateResult<T> result = new ImportValidateResult<>();
+        this.loadRows(clazz, false, result, (record, records, rowNum, index) -> handlerRow.apply(record, rowNum, index));
+        return result;
+    }
+
+    @Override
+    public <T> ExcelSheetImport readRows(Class<T> clazz, int batchSize, HandlerRows<T> handlerRows) throws ExcelException, InstantiationException, IllegalAccessException {
+        if (batchSize <= 0) {
+            throw new ImportException("batchSize必须大于0");
+        }
+        ArrayList<ArrayList<T>> batch = new ArrayList<>(1);//当前批次
+        batch.add(new ArrayList<>(batchSize));
+        int[] batchIndex = {0};
+        this.loadRows(clazz, false, (record, records, rowNum, index) -> {
+            ArrayList<T> current = batch.get(0);
+            current.add(record);
+            if (current.size() >= batchSize) {
+                batch.set(0, new ArrayList<>(batchSize));
+                handlerRows.accept(current, batchIndex[0]++);
+            }
+            return true;
+        });
+        if (!batch.get(0).isEmpty()) {
+            handlerRows.accept(batch.get(0), batchIndex[0]);
+        }
+        return this;
+    }
+
+    @Override
+    public ExcelSheetImport readRows(int batchSize, HandlerRows handlerRows) throws ExcelException, InstantiationException, IllegalAccessException {
+        return this.readRows((Class<Object>) this.defaultClass, batchSize, (HandlerRows<Object>) handlerRows);
+    }
+
+    @Override
+    public <T> ExcelSheetImport parallelReadRows(Class<T> clazz, Executor executor, HandlerRowB<T> handlerRow) throws ExcelException {
+        this.loadRowsParallel(clazz, executor, getParallelism(executor), true, handlerRow::apply);
+        return this;
+    }
+
+    @Override
+    public <T> ExcelSheetImport parallelStreamRows(Class<T> clazz, Executor executor, HandlerRowC<T> handlerRow) throws ExcelException {
+        this.loadRowsParallel(clazz, executor, getParallelism(executor), false, (record, records, rowNum, index) -> handlerRow.apply(record, rowNum, index));
+        return this;
+    }
+
+    @Override
+    public <T> ArrayList<T> getReadData() {
+        return (ArrayList<T>) this.loadDatasList.get(this.loadDatasList.size() - 1);
+    }
+
+    @Override
+    public <T> ArrayList<T> getReadData(int index) {
+        return (ArrayList<T>) this.loadDatasList.get(index);
+    }
+
+    @Override
+    public <T> ArrayList<T> getAllReadData() {
+        return (ArrayList<T>) this.loadDatasList;
+    }
+
+}
@@ -0,0 +1,153 @@
+package com.avalon.holygrail.excel.model;
+
+import com.avalon.holygrail.excel.bean.CellConverterRegistry;
+
+import java.util.regex.Pattern;
+
+/**
+ * 导入校验规则
+ * 在表头json中通过validate属性配置,例如{title:'年龄',field:'age',validate:{required:true,min:0,max:150}};
+ * 校验单元格原始值,空值只校验required
+ */
+public class ExcelValidateRule {
+
+    /**
+     * 是否必填
+     */
+    protected boolean required;
+    /**
+     * 最小值
+     */
+    protected Double min;
+    /**
+     * 最大值
+     */
+    protected Double max;
+    /**
+     * 最小长度
+     */
+    protected Integer minLength;
+    /**
+     * 最大长度
+     */
+    protected Integer maxLength;
+    /**
+     * 正则表达式,需要完整匹配
+     */
+    protected String pattern;
+    /**
+     * 校验失败提示,为空时使用默认提示
+     */
+    protected String message;
+
+    protected Pattern compiledPattern;
+
+    public ExcelValidateRule() {
+    }
+
+    public ExcelValidateRule(boolean required) {
+        this.required = required;
+    }
+
+    /**
+     * 校验单元格值
+     *
+     * @param value 单元格值
+     * @return 校验失败提示, 通过返回null
+     */
+    public String validate(Object value) {
+        String text = CellConverterRegistry.toText(value);
+        if (text.isEmpty()) {
+            return this.required ? this.fail("不能为空") : null;
+        }
+        if (this.min != null || this.max != null) {
+            double number;
+            if (value instanceof Double) {
+                number = (Double) value;
+            } else {
+                try {
+                    number = Double.parseDouble(text);
+                } catch (NumberFormatException e) {
+                    return this.fail("必须为数值");
+                }
+            }
+            if (this.min != null && number < this.min) {
+                return this.fail("不能小于" + CellConverterRegistry.toText(this.min));
+            }
+            if (this.max != null && number > this.max) {
+                return this.fail("不能大于" + CellConverterRegistry.toText(this.max));
+            }
+        }
+        if (this.minLength != null && text.length() < this.minLength) {
+            return this.fail("长度不能小于" + this.minLength);
+        }
+        if (this.maxLength != null && text.length() > this.maxLength) {
+            return this.fail("长度不能大于" + this.maxLength);
+        }
+        if (this.compiledPattern != null && !this.compiledPattern.matcher(text).matches()) {
+            return this.fail("格式不正确");
+        }
+        return null;
+    }
+
+    protected String fail(String message) {
+        return this.message == null || this.message.isEmpty() ? message : this.message;
+    }
+
+    public boolean isRequired() {
+        return required;
+    }
+
+    public void setRequired(boolean required) {
+        this.required = required;
+    }
+
+    public Double getMin() {
+        return min;
+    }
+
+    public void setMin(Double min) {
+        this.min = min;
+    }
+
+    public Double getMax() {
+        return max;
+    }
+
+    public void setMax(Double max) {
+        this.max = max;
+    }
+
+    public Integer getMinLength() {
+        return minLength;
+    }
+
+    public void setMinLength(Integer minLength) {
+        this.minLength = minLength;
+    }
+
+    public Integer getMaxLength() {
+        return maxLength;
+    }
+
+    public void setMaxLength(Integer maxLength) {
+        this.maxLength = maxLength;
+    }
+
+    public String getPattern() {
+        return pattern;
+    }
+
+    public void setPattern(String pattern) {
+        this.pattern = pattern;
+        this.compiledPattern = pattern == null || pattern.isEmpty() ? null : Pattern.compile(pattern);
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,56 @@
+package com.avalon.holygrail.excel.model;
+
+import com.avalon.holygrail.excel.norm.CellConverter;
+import com.avalon.holygrail.excel.norm.MergeCell;
+
+/**
+ * 导入列
+ * 设置表头后按列下标编译,读取单元格时直接按列下标取得对应的数据属性、setter、转换器和校验规则
+ */
+public class ImportColumn {
+
+    protected final MergeCell title;//数据表头
+
+    protected final String field;//数据属性
+
+    protected final int setterIndex;//setter在MethodAccess中的下标,没有setter为-1
+
+    protected final CellConverter<?> converter;//单元格值转换器,没有setter为null
+
+    protected final boolean primitive;//setter参数是否为基本类型,基本类型不注入空值
+
+    protected final ExcelValidateRule validate;//校验规则,没有为null
+
+    public ImportColumn(MergeCell title, String field, int setterIndex, CellConverter<?> converter, boolean primitive, ExcelValidateRule validate) {
+        this.title = title;
+        this.field = field;
+        this.setterIndex = setterIndex;
+        this.converter = converter;
+        this.primitive = primitive;
+        this.validate = validate;
+    }
+
+    public MergeCell getTitle() {
+        return title;
+    }
+
+    public String getField() {
+        return field;
+    }
+
+    public int getSetterIndex() {
+        return setterIndex;
+    }
+
+    public CellConverter<?> getConverter() {
+        return converter;
+    }
+
+    public boolean isPrimitive() {
+        return primitive;
+    }
+
+    public ExcelValidateRule getValidate() {
+        return validate;
+    }
+}
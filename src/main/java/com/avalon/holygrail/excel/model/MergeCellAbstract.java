@@ -29,6 +29,18 @@ public abstract class MergeCellAbstract extends ExcelCellAbstract implements Mer
         this.startColNum = startColNum;
     }
 
+    /**
+     * 按原型重置全部属性和样式,用于复用同一个单元格对象
+     *
+     * @param prototype   原型
+     * @param startRowNum 开始行号
+     */
+    public void reset(MergeCellAbstract prototype, int startRowNum) {
+        this.copyFrom(prototype);
+        this.startRowNum = startRowNum;
+        this.startColNum = prototype.startColNum;
+    }
+
     @Override
     public void setHAlign(H_AlignType hAlignType) {
         this.setHAlign(hAlignType.name());
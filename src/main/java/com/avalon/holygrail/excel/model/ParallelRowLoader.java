@@ -0,0 +1,243 @@
+package com.avalon.holygrail.excel.model;
+
+import com.avalon.holygrail.excel.bean.ExcelCellError;
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.exception.ImportException;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 并行行装载器
+ * 读取线程将行数据按块缓存,每块交给线程池转换为数据对象,再按块的顺序交给处理器;
+ * 等待中的块如果还没有被线程池执行则由读取线程直接执行,线程池被占满或拒绝执行时不会死锁也不会失败
+ */
+class ParallelRowLoader<T> implements ExcelSheetImportAbstract.RowReceiver {
+
+    /**
+     * 每块行数
+     */
+    static final int CHUNK_ROWS = 256;
+
+    protected final ExcelSheetImportAbstract sheet;
+
+    protected final Class<T> clazz;
+
+    protected final int containerType;
+
+    protected final Executor executor;
+
+    protected final int maxPending;//同时转换中的最大块数
+
+    protected final ArrayList<T> records;//保留的数据,不保留时为null
+
+    protected final ExcelSheetImportAbstract.HandlerRecord<T> handlerRecord;
+
+    protected final ArrayDeque<Chunk> pending = new ArrayDeque<>();//按顺序等待交付的块
+
+    protected Chunk chunk;//正在读取的块
+
+    protected int index;//已交付的数据数量
+
+    protected boolean stopped;//处理器要求停止读取
+
+    ParallelRowLoader(ExcelSheetImportAbstract sheet, Class<T> clazz, int containerType, Executor executor, int maxPending,
+                      ArrayList<T> records, ExcelSheetImportAbstract.HandlerRecord<T> handlerRecord) {
+        this.sheet = sheet;
+        this.clazz = clazz;
+        this.containerType = containerType;
+        this.executor = executor;
+        this.maxPending = maxPending;
+        this.records = records;
+        this.handlerRecord = handlerRecord;
+    }
+
+    @Override
+    public void startRow(int rowIndex) {
+        if (this.chunk == null) {
+            this.chunk = new Chunk();
+        }
+        this.chunk.startRow(rowIndex);
+    }
+
+    @Override
+    public void cell(int columnIndex, Object value) {
+        this.chunk.cell(columnIndex, value);
+    }
+
+    @Override
+    public boolean endRow() throws ExcelException {
+        this.chunk.endRow();
+        if (this.chunk.size == CHUNK_ROWS) {
+            this.submit();
+        }
+        return !this.stopped;
+    }
+
+    /**
+     * 提交当前块,等待中的块过多时先交付最早的块
+     */
+    protected void submit() throws ExcelException {
+        Chunk chunk = this.chunk;
+        this.chunk = null;
+        this.pending.add(chunk);
+        try {
+            this.executor.execute(chunk);
+        } catch (RejectedExecutionException e) {
+            //线程池已满,交付时由读取线程执行
+        }
+        while (this.pending.size() > this.maxPending && !this.stopped) {
+            this.deliver(this.pending.poll());
+        }
+    }
+
+    /**
+     * 读取结束,交付剩余的块
+     */
+    protected void finish() throws ExcelException {
+        if (this.chunk != null && this.chunk.size > 0 && !this.stopped) {
+            this.pending.add(this.chunk);
+            this.chunk = null;
+        }
+        while (!this.pending.isEmpty() && !this.stopped) {
+            this.deliver(this.pending.poll());
+        }
+    }
+
+    /**
+     * 取消没有交付的块
+     */
+    protected void cancel() {
+        for (Chunk chunk : this.pending) {
+            chunk.claimed.set(true);
+        }
+        this.pending.clear();
+        this.chunk = null;
+    }
+
+    /**
+     * 按行顺序交付块中的数据
+     */
+    protected void deliver(Chunk chunk) throws ExcelException {
+        Object[] results = chunk.await();
+        for (int i = 0; i < chunk.size; i++) {
+            T record = (T) results[i];
+            results[i] = null;
+            int rowIndex = chunk.rowIndexes[i];
+            if (chunk.rowErrors != null && chunk.rowErrors[i] != null) {
+                throw ExcelSheetImportAbstract.cellException(chunk.rowErrors[i].get(0), null);
+            }
+            //设置行游标
+            this.sheet.setRowCursor(idx -> rowIndex);
+            if (this.records != null) {
+                this.records.add(record);
+            }
+            if (!this.handlerRecord.apply(record, this.records, rowIndex + 1, this.index++)) {
+                this.stopped = true;
+                return;
+            }
+        }
+    }
+
+    /**
+     * 行数据块
+     */
+    protected class Chunk implements Runnable {
+
+        protected final int[] rowIndexes = new int[CHUNK_ROWS];//行下标
+
+        protected final int[] rowEnds = new int[CHUNK_ROWS];//每行最后一个单元格之后的位置
+
+        protected int size;//行数
+
+        protected int[] columns = new int[CHUNK_ROWS * 8];//单元格列下标
+
+        protected Object[] values = new Object[CHUNK_ROWS * 8];//单元格值
+
+        protected int cellSize;//单元格数
+
+        protected List<ExcelCellError>[] rowErrors;//每行的校验错误,没有错误为null
+
+        protected final AtomicBoolean claimed = new AtomicBoolean();//是否已经被执行
+
+        protected final CompletableFuture<Object[]> result = new CompletableFuture<>();
+
+        protected void startRow(int rowIndex) {
+            this.rowIndexes[this.size] = rowIndex;
+        }
+
+        protected void cell(int columnIndex, Object value) {
+            if (this.cellSize == this.columns.length) {
+                this.columns = Arrays.copyOf(this.columns, this.cellSize * 2);
+                this.values = Arrays.copyOf(this.values, this.cellSize * 2);
+            }
+            this.columns[this.cellSize] = columnIndex;
+            this.values[this.cellSize++] = value;
+        }
+
+        protected void endRow() {
+            this.rowEnds[this.size++] = this.cellSize;
+        }
+
+        @Override
+        public void run() {
+            if (!this.claimed.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                Object[] results = new Object[this.size];
+                boolean[] present = sheet.newPresentColumns();
+                int cell = 0;
+                for (int i = 0; i < this.size; i++) {
+                    T record = sheet.newRecord(clazz);
+                    int rowIndex = this.rowIndexes[i];
+                    List<ExcelCellError> rowErrors = null;
+                    if (present != null) {
+                        Arrays.fill(present, false);
+                    }
+                    for (; cell < this.rowEnds[i]; cell++) {
+                        rowErrors = sheet.loadCell(record, containerType, rowIndex, this.columns[cell], this.values[cell], present, rowErrors);
+                    }
+                    rowErrors = sheet.validateRow(record, rowIndex, present, rowErrors);
+                    if (rowErrors != null) {
+                        if (this.rowErrors == null) {
+                            this.rowErrors = new List[this.size];
+                        }
+                        this.rowErrors[i] = rowErrors;
+                    }
+                    results[i] = record;
+                }
+                this.values = null;
+                this.result.complete(results);
+            } catch (Throwable e) {
+                this.result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * 等待转换结果,还没有被执行时在当前线程执行
+         */
+        protected Object[] await() throws ExcelException {
+            this.run();
+            try {
+                return this.result.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new ImportException("读取已中断", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof ExcelException) {
+                    throw (ExcelException) cause;
+                }
+                throw new ImportException(cause.getMessage(), cause);
+            }
+        }
+    }
+}
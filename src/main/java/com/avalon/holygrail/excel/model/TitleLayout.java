@@ -0,0 +1,94 @@
+package com.avalon.holygrail.excel.model;
+
+import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.norm.ExcelParser;
+import com.avalon.holygrail.excel.norm.MergeCell;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 表头布局
+ * 保存表头解析、位置分配和数据表头搜寻的结果,创建后不再修改,可以在线程间共享;
+ * 每个Sheet通过buildTitleMergeCells按布局创建自己的表头合并单元格,不需要重新解析json和分配位置
+ */
+public final class TitleLayout {
+
+    private final ExcelTitleCellAbstract[] titles;//按解析顺序排列的表头,只读取属性和样式
+
+    private final int[] seats;//每个表头依次为开始行号、结束行、开始列号、结束列,与buildTitleMergeCell的参数一致
+
+    private final int[] dataTitleIndexes;//数据表头在titles中的下标,按开始列号排序
+
+    public TitleLayout(ExcelParser parser, ExcelTitleCellAbstract[][] excelTitles) throws ExcelException {
+        ArrayList<ExcelTitleCellAbstract> titles = new ArrayList<>();
+        ArrayList<int[]> seats = new ArrayList<>();
+        parser.allocateTitleSeats(excelTitles, excelTitles.length * 2, 10, (excelTitle, startRow, endRow, startCol, endCol) -> {
+            titles.add(excelTitle);
+            seats.add(new int[]{startRow, endRow, startCol, endCol});
+        });
+        this.titles = titles.toArray(new ExcelTitleCellAbstract[titles.size()]);
+        this.seats = new int[this.titles.length * 4];
+        for (int i = 0; i < this.titles.length; i++) {
+            System.arraycopy(seats.get(i), 0, this.seats, i * 4, 4);
+        }
+        //按布局创建一次合并单元格用于搜寻数据表头
+        ArrayList<MergeCell> mergeCells = this.buildTitleMergeCells(parser);
+        Map<MergeCell, Integer> indexes = new IdentityHashMap<>();
+        for (int i = 0; i < mergeCells.size(); i++) {
+            indexes.put(mergeCells.get(i), i);
+        }
+        LinkedList<MergeCell> dataTitles = parser.searchDataTitleMergeCells(mergeCells);
+        this.dataTitleIndexes = new int[dataTitles.size()];
+        int i = 0;
+        for (MergeCell dataTitle : dataTitles) {
+            this.dataTitleIndexes[i++] = indexes.get(dataTitle);
+        }
+    }
+
+    /**
+     * 按布局创建表头合并单元格
+     *
+     * @param parser 解析器,决定合并单元格的类型
+     * @return 按解析顺序排列的表头合并单元格
+     */
+    public ArrayList<MergeCell> buildTitleMergeCells(ExcelParser parser) throws ExcelException {
+        ArrayList<MergeCell> mergeCells = new ArrayList<>(this.titles.length);
+        for (int i = 0; i < this.titles.length; i++) {
+            int seat = i * 4;
+            mergeCells.add(parser.buildTitleMergeCell(this.titles[i], this.seats[seat], this.seats[seat + 1], this.seats[seat + 2], this.seats[seat + 3]));
+        }
+        return mergeCells;
+    }
+
+    /**
+     * 从buildTitleMergeCells创建的表头中取出数据表头
+     *
+     * @param titleMergeCells 按布局创建的表头合并单元格
+     * @return 按开始列号排列的数据表头
+     */
+    public LinkedList<MergeCell> getDataTitleMergeCells(List<MergeCell> titleMergeCells) {
+        LinkedList<MergeCell> dataTitles = new LinkedList<>();
+        for (int index : this.dataTitleIndexes) {
+            dataTitles.add(titleMergeCells.get(index));
+        }
+        return dataTitles;
+    }
+
+    /**
+     * 表头数量
+     */
+    public int getTitleSize() {
+        return this.titles.length;
+    }
+
+    /**
+     * 数据表头数量
+     */
+    public int getDataTitleSize() {
+        return this.dataTitleIndexes.length;
+    }
+}
@@ -0,0 +1,18 @@
+package com.avalon.holygrail.excel.norm;
+
+/**
+ * 单元格值转换器
+ * 导入时将单元格值转换为属性类型,按属性类型在编译导入列时解析一次
+ */
+@FunctionalInterface
+public interface CellConverter<T> {
+
+    /**
+     * 转换单元格值
+     *
+     * @param value 单元格值:字符串、数值为Double、布尔为Boolean、错误为错误码Byte、无值为""
+     * @return 转换后的值, 返回null表示空值, 基本类型属性不注入
+     * @throws IllegalArgumentException 无法转换
+     */
+    T convert(Object value);
+}
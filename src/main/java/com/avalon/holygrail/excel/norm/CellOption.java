@@ -1,6 +1,7 @@
 package com.avalon.holygrail.excel.norm;
 
 import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.model.ExcelValidateRule;
 
 /**
  * 单元格属性
@@ -146,6 +147,19 @@ public interface CellOption {
      */
     void setWriteEmpty(boolean writeEmpty);
 
+    /**
+     * 获取导入校验规则
+     */
+    default ExcelValidateRule getValidate() {
+        return null;
+    }
+
+    /**
+     * 设置导入校验规则
+     */
+    default void setValidate(ExcelValidateRule validate) {
+    }
+
     /**
      * 拷贝属性(无视null)
      *
@@ -177,5 +191,9 @@ public interface CellOption {
             target.setColSpan(colSpan);
         }
         target.setWriteEmpty(isWriteEmpty());
+        ExcelValidateRule validate = getValidate();
+        if (validate != null) {
+            target.setValidate(validate);
+        }
     }
 }
@@ -5,7 +5,8 @@ import com.avalon.holygrail.excel.exception.ExcelTitleException;
 import com.avalon.holygrail.excel.model.ExcelCellAbstract;
 import com.avalon.holygrail.excel.bean.ExcelCellError;
 import com.avalon.holygrail.excel.model.ExcelTitleCellAbstract;
-import com.avalon.holygrail.util.SortUtil;
+import com.avalon.holygrail.excel.bean.TitleLayoutCache;
+import com.avalon.holygrail.excel.model.TitleLayout;
 
 import java.io.*;
 import java.util.*;
@@ -37,47 +38,69 @@ public interface ExcelParser {
 
     /**
      * 搜寻影响数据的表头合并单元格数据
-     * 因为表头可能有各种方式合并的情况,该方法用于找到最下面一排也就是和数据对应的合并单元格
+     * 因为表头可能有各种方式合并的情况,该方法用于找到最下面一排也就是和数据对应的合并单元格;
+     * 先记录每列最下面的表头开始行号,表头所占的列中没有更靠下的表头时即为数据表头,再按开始列号稳定排序
      * @param titles 表头合并单元格
      * @return 数据表头
      */
     default LinkedList<MergeCell> searchDataTitleMergeCells(List<MergeCell> titles) {
-        MergeCell source;
-        MergeCell target;
-        LinkedList<MergeCell> targetMergeCell = new LinkedList<>();
-        //先把所有源放入目标
-        targetMergeCell.addAll(titles);
-        //遍历源,用源的每一个元素去和目标进行比对位置
-        for (int i = 0; i < titles.size(); i++) {
-            source = titles.get(i);
-            for (int j = 0; j < targetMergeCell.size(); ) {
-                target = targetMergeCell.get(j);
-                //比对位置
-                //如果当前源在目标下面,且二者列有交集,则当前目标不符合条件,要删除
-                if (source.getStartRowNum() > target.getEndRowNum() && !(source.getStartColNum() > target.getEndColNum() || source.getEndColNum() < target.getStartColNum())) {
-                    //执行删除,删除后后一个元素前移,不用增加j
-                    targetMergeCell.remove(j);
-                } else {
-                    //不删除的时候在进行下一个元素
-                    j++;
+        int maxColNum = 0;
+        for (MergeCell title : titles) {
+            maxColNum = Math.max(maxColNum, title.getEndColNum());
+        }
+        //每列最下面的表头开始行号
+        int[] bottomStartRowNums = new int[maxColNum + 1];
+        Arrays.fill(bottomStartRowNums, Integer.MIN_VALUE);
+        for (MergeCell title : titles) {
+            for (int col = Math.max(0, title.getStartColNum()); col <= title.getEndColNum(); col++) {
+                bottomStartRowNums[col] = Math.max(bottomStartRowNums[col], title.getStartRowNum());
+            }
+        }
+        ArrayList<MergeCell> dataTitles = new ArrayList<>();
+        for (MergeCell title : titles) {
+            boolean bottom = true;
+            for (int col = Math.max(0, title.getStartColNum()); col <= title.getEndColNum(); col++) {
+                //当前表头下面还有与之列有交集的表头
+                if (bottomStartRowNums[col] > title.getEndRowNum()) {
+                    bottom = false;
+                    break;
                 }
-
+            }
+            if (bottom) {
+                dataTitles.add(title);
             }
         }
         //排序
-        SortUtil.bubbleSort(targetMergeCell, (left, right) -> left.getStartColNum() > right.getStartColNum());
-        return targetMergeCell;
+        dataTitles.sort(Comparator.comparingInt(MergeCell::getStartColNum));
+        return new LinkedList<>(dataTitles);
     }
 
     /**
-     * 处理表头
-     * @param titles           表头对象二维数组
-     * @param defaultSeatRow   记录位置信息初始化默认行数
-     * @param defaultSeatCol   记录位置信息初始化默认列数
-     * @param handlerMergeCell 处理单元格合并对象回调函数
+     * 表头位置处理
+     */
+    @FunctionalInterface
+    interface TitleSeatHandler {
+
+        /**
+         * 接收表头分配的位置,参数与buildTitleMergeCell一致
+         * @param excelTitle 表头
+         * @param startRow   占用开始行号
+         * @param endRow     占用结束行
+         * @param startCol   占用开始列号
+         * @param endCol     占用结束列
+         */
+        void accept(ExcelTitleCellAbstract excelTitle, int startRow, int endRow, int startCol, int endCol) throws ExcelException;
+    }
+
+    /**
+     * 按表头的行列合并为每个表头分配位置
+     * @param titles         表头对象二维数组
+     * @param defaultSeatRow 记录位置信息初始化默认行数
+     * @param defaultSeatCol 记录位置信息初始化默认列数
+     * @param handlerSeat    处理表头位置回调函数
      * @throws ExcelTitleException
      */
-    default void handlerExcelTitles(ExcelTitleCellAbstract[][] titles, int defaultSeatRow, int defaultSeatCol, Consumer<MergeCell> handlerMergeCell) throws ExcelException {
+    default void allocateTitleSeats(ExcelTitleCellAbstract[][] titles, int defaultSeatRow, int defaultSeatCol, TitleSeatHandler handlerSeat) throws ExcelException {
         ExcelTitleCellAbstract[] excelTitles;
         ExcelTitleCellAbstract excelTitle;
         int endRow;//结束行
@@ -98,11 +121,24 @@ public interface ExcelParser {
                         seat[k][l] = SeatStatus.YES.value;
                     }
                 }
-                handlerMergeCell.accept(this.buildTitleMergeCell(excelTitle, cursor[0] + 1, endRow, cursor[1] + 1, endCol));
+                handlerSeat.accept(excelTitle, cursor[0] + 1, endRow, cursor[1] + 1, endCol);
             }
         }
     }
 
+    /**
+     * 处理表头
+     * @param titles           表头对象二维数组
+     * @param defaultSeatRow   记录位置信息初始化默认行数
+     * @param defaultSeatCol   记录位置信息初始化默认列数
+     * @param handlerMergeCell 处理单元格合并对象回调函数
+     * @throws ExcelTitleException
+     */
+    default void handlerExcelTitles(ExcelTitleCellAbstract[][] titles, int defaultSeatRow, int defaultSeatCol, Consumer<MergeCell> handlerMergeCell) throws ExcelException {
+        allocateTitleSeats(titles, defaultSeatRow, defaultSeatCol, (excelTitle, startRow, endRow, startCol, endCol) ->
+                handlerMergeCell.accept(this.buildTitleMergeCell(excelTitle, startRow, endRow, startCol, endCol)));
+    }
+
     /**
      * 解析json数据
      * @param inputStream json数据输入流
@@ -110,6 +146,16 @@ public interface ExcelParser {
      * @throws IOException
      */
     default ExcelCellAbstract[][] parseCellsJson(InputStream inputStream) throws IOException {
+        return parseCellsJson(readTitlesJson(inputStream));
+    }
+
+    /**
+     * 读取json数据,读取后关闭输入流
+     * @param inputStream json数据输入流
+     * @return json字符串
+     * @throws IOException
+     */
+    default String readTitlesJson(InputStream inputStream) throws IOException {
         InputStreamReader reader = null;
         BufferedReader br = null;
         StringBuilder sb = new StringBuilder();
@@ -137,7 +183,7 @@ public interface ExcelParser {
                 e.printStackTrace();
             }
         }
-        return parseCellsJson(sb.toString());
+        return sb.toString();
     }
 
     /**
@@ -150,6 +196,48 @@ public interface ExcelParser {
         return this.parseCellsJson(new FileInputStream(file));
     }
 
+    /**
+     * 编译表头布局,不使用缓存
+     * @param titles 表头对象二维数组
+     * @return 表头布局
+     * @throws ExcelTitleException
+     */
+    default TitleLayout compileTitleLayout(ExcelTitleCellAbstract[][] titles) throws ExcelException {
+        return new TitleLayout(this, titles);
+    }
+
+    /**
+     * 获取表头json对应的表头布局,按json内容缓存
+     * @param titlesJson 表头json
+     * @return 表头布局
+     * @throws ExcelTitleException
+     */
+    default TitleLayout getTitleLayout(String titlesJson) throws ExcelException {
+        TitleLayout titleLayout = TitleLayoutCache.DEFAULT.get(titlesJson);
+        if (titleLayout == null) {
+            titleLayout = this.compileTitleLayout((ExcelTitleCellAbstract[][]) this.parseCellsJson(titlesJson));
+            TitleLayoutCache.DEFAULT.put(titlesJson, titleLayout);
+        }
+        return titleLayout;
+    }
+
+    /**
+     * 获取表头json文件对应的表头布局,按文件路径、修改时间和大小缓存
+     * @param file json数据文件
+     * @return 表头布局
+     * @throws IOException
+     * @throws ExcelTitleException
+     */
+    default TitleLayout getTitleLayout(File file) throws IOException, ExcelException {
+        Object key = TitleLayoutCache.fileKey(file);
+        TitleLayout titleLayout = TitleLayoutCache.DEFAULT.get(key);
+        if (titleLayout == null) {
+            titleLayout = this.getTitleLayout(this.readTitlesJson(new FileInputStream(file)));
+            TitleLayoutCache.DEFAULT.put(key, titleLayout);
+        }
+        return titleLayout;
+    }
+
     /**
      * 处理表头
      * 初始化位置信息默认行数为titles长度2倍,列数默认为10
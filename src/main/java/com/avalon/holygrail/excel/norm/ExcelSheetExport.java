@@ -1,8 +1,10 @@
 package com.avalon.holygrail.excel.norm;
 
+import com.avalon.holygrail.excel.bean.ExcelAggregate;
 import com.avalon.holygrail.excel.bean.SXSSFExcelSheetExport;
 import com.avalon.holygrail.excel.exception.ExcelException;
 import com.avalon.holygrail.excel.model.ExcelTitleCellAbstract;
+import com.avalon.holygrail.excel.model.TitleLayout;
 
 import java.io.File;
 import java.io.IOException;
@@ -36,12 +38,18 @@ public interface ExcelSheetExport extends SheetExportHandler {
     @Override
     ExcelSheetExport setTitles(ExcelTitleCellAbstract[][] titles, boolean exportTitles) throws ExcelException;
 
+    @Override
+    ExcelSheetExport setTitles(TitleLayout titleLayout, boolean exportTitles) throws ExcelException;
+
     @Override
     ExcelSheetExport setColumnFields(List<String> fields) throws ExcelException;
 
     @Override
     ExcelSheetExport insertPicture(InputStream inputStream, ExcelWorkBook.PictureType pictureType, int dx1, int dy1, int dx2, int dy2, int col1, int row1, int col2, int row2) throws IOException;
 
+    @Override
+    ExcelSheetExport insertPicture(byte[] data, ExcelWorkBook.PictureType pictureType, int dx1, int dy1, int dx2, int dy2, int col1, int row1, int col2, int row2) throws IOException;
+
     @Override
     default ExcelSheetExport setColumnFields(String... fields) throws ExcelException {
         return setColumnFields(Arrays.asList(fields));
@@ -67,6 +75,11 @@ public interface ExcelSheetExport extends SheetExportHandler {
         return setTitles(titles, true);
     }
 
+    @Override
+    default ExcelSheetExport setTitles(TitleLayout titleLayout) throws ExcelException {
+        return setTitles(titleLayout, true);
+    }
+
     /**
      * 导入数据
      * @param records 数据集合
@@ -84,6 +97,41 @@ public interface ExcelSheetExport extends SheetExportHandler {
      */
     <T> ExcelSheetExport importData(Collection<T> records, SXSSFExcelSheetExport.FormatterCell<T> formatter) throws ExcelException;
 
+    /**
+     * 设置列汇总,需要在设置表头之后调用
+     * 之后写入的数据逐行累计,Sheet结束时在数据之后写入汇总行
+     * @param aggregates 汇总定义
+     * @return 当前对象
+     */
+    ExcelSheetExport setAggregates(List<ExcelAggregate> aggregates) throws ExcelException;
+
+    /**
+     * 设置列汇总,需要在设置表头之后调用
+     * @param aggregates 汇总定义
+     * @return 当前对象
+     */
+    default ExcelSheetExport setAggregates(ExcelAggregate... aggregates) throws ExcelException {
+        return setAggregates(Arrays.asList(aggregates));
+    }
+
+    /**
+     * 设置自动列宽,之后写入的单元格按内容估算显示宽度,Sheet结束时按每列最大宽度设置列宽(不小于表头设置的宽度)
+     * 在设置表头之前开启时表头也参与计算
+     * @param autoColumnWidth 是否自动列宽
+     * @return 当前对象
+     */
+    default ExcelSheetExport setAutoColumnWidth(boolean autoColumnWidth) {
+        return setAutoColumnWidth(autoColumnWidth, 80);
+    }
+
+    /**
+     * 设置自动列宽
+     * @param autoColumnWidth 是否自动列宽
+     * @param maxWidth        列宽上限,单位字符(最大255)
+     * @return 当前对象
+     */
+    ExcelSheetExport setAutoColumnWidth(boolean autoColumnWidth, int maxWidth);
+
     /**
      * 导出Excel
      * @param outFile 目标文件
@@ -1,7 +1,9 @@
 package com.avalon.holygrail.excel.norm;
 
+import com.avalon.holygrail.excel.bean.ColumnarData;
 import com.avalon.holygrail.excel.exception.ExcelException;
 import com.avalon.holygrail.excel.model.ExcelTitleCellAbstract;
+import com.avalon.holygrail.excel.model.TitleLayout;
 
 import java.io.File;
 import java.io.IOException;
@@ -9,6 +11,7 @@ import java.io.InputStream;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 /**
@@ -33,6 +36,12 @@ public interface ExcelSheetImport extends SheetImportHandler {
         return this.setColCursor(colCursor -> handler.apply(colCursor + 1) - 1);
     }
 
+    @Override
+    <T> ExcelSheetImport registerConverter(Class<T> type, CellConverter<? extends T> converter);
+
+    @Override
+    <T> ExcelSheetImport addRowValidator(RowValidator<T> rowValidator);
+
     @Override
     <T> ExcelSheetImport parseTitlesJson(String titlesJson, Class<T> clazz) throws ExcelException;
 
@@ -45,12 +54,21 @@ public interface ExcelSheetImport extends SheetImportHandler {
     @Override
     <T> ExcelSheetImport setTitles(ExcelTitleCellAbstract[][] titles, Class<T> clazz) throws ExcelException;
 
+    @Override
+    <T> ExcelSheetImport setTitles(TitleLayout titleLayout, Class<T> clazz) throws ExcelException;
+
     @Override
     <T> ExcelSheetImport setColumnFields(List<String> fields, Class<T> clazz) throws ExcelException;
 
     @Override
     <T> ExcelSheetImport setColumnFields(int rowSpan, List<String> fields, Class<T> clazz) throws ExcelException;
 
+    @Override
+    ExcelSheetImport detectTitles(int scanRows) throws ExcelException;
+
+    @Override
+    ExcelSheetImport readColumns(ColumnarData columnarData) throws ExcelException;
+
     @Override
     default ExcelSheetImport setColumnFields(String... fields) throws ExcelException {
         return setColumnFields(Arrays.asList(fields), HashMap.class);
@@ -78,4 +96,22 @@ public interface ExcelSheetImport extends SheetImportHandler {
 
     @Override
     <T> ExcelSheetImport readRows(HandlerRowB<T> handlerRow) throws ExcelException, IllegalAccessException, InstantiationException;
+
+    @Override
+    <T> ExcelSheetImport streamRows(Class<T> clazz, HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    @Override
+    <T> ExcelSheetImport streamRows(HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    @Override
+    <T> ExcelSheetImport readRows(Class<T> clazz, int batchSize, HandlerRows<T> handlerRows) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    @Override
+    <T> ExcelSheetImport readRows(int batchSize, HandlerRows<T> handlerRows) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    @Override
+    <T> ExcelSheetImport parallelReadRows(Class<T> clazz, Executor executor, HandlerRowB<T> handlerRow) throws ExcelException;
+
+    @Override
+    <T> ExcelSheetImport parallelStreamRows(Class<T> clazz, Executor executor, HandlerRowC<T> handlerRow) throws ExcelException;
 }
@@ -39,5 +39,39 @@ public interface ExcelWorkBook {
             this.suffix = suffix;
             this.value = value;
         }
+
+        /**
+         * 根据文件头识别图片类型
+         * @param data 图片数据
+         * @return 图片类型, 无法识别返回null
+         */
+        public static PictureType detect(byte[] data) {
+            if (startsWith(data, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+                return PNG;
+            }
+            if (startsWith(data, 0, 0xFF, 0xD8, 0xFF)) {
+                return JPEG;
+            }
+            if (startsWith(data, 0, 0x01, 0x00, 0x00, 0x00) && startsWith(data, 40, ' ', 'E', 'M', 'F')) {
+                return EMF;
+            }
+            //可放置的WMF,或者没有可放置头的内存/磁盘WMF
+            if (startsWith(data, 0, 0xD7, 0xCD, 0xC6, 0x9A) || startsWith(data, 0, 0x01, 0x00, 0x09, 0x00) || startsWith(data, 0, 0x02, 0x00, 0x09, 0x00)) {
+                return WMF;
+            }
+            return null;
+        }
+
+        private static boolean startsWith(byte[] data, int offset, int... magic) {
+            if (data.length < offset + magic.length) {
+                return false;
+            }
+            for (int i = 0; i < magic.length; i++) {
+                if ((data[offset + i] & 0xFF) != magic[i]) {
+                    return false;
+                }
+            }
+            return true;
+        }
     }
 }
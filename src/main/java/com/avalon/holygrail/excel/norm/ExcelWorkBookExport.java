@@ -45,6 +45,22 @@ public interface ExcelWorkBookExport extends ExcelWorkBook {
         return rs;
     }
 
+    /**
+     * 获取已经写入的数据总数,可以在其他线程中读取,用于查看导出进度
+     * @return 已经写入的数据总数
+     */
+    int getWrittenDataSize();
+
+    /**
+     * 取消导出,正在写入数据的线程会在写入下一条数据时抛出ExportException
+     */
+    void cancel();
+
+    /**
+     * 是否已经取消导出
+     */
+    boolean isCancelled();
+
     @FunctionalInterface
     interface FormatterSheetName {
         /**
@@ -174,6 +190,19 @@ public interface ExcelWorkBookExport extends ExcelWorkBook {
         export(new File(outPath));
     }
 
+    /**
+     * 导出Excel到输出流,不会关闭输出流
+     * @param outputStream 输出流
+     * @throws IOException
+     */
+    void export(OutputStream outputStream) throws IOException;
+
+    /**
+     * 删除导出过程中产生的临时文件
+     */
+    default void dispose() {
+    }
+
     /**
      * js模板文件路径
      */
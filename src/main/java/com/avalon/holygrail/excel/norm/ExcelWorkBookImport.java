@@ -1,11 +1,16 @@
 package com.avalon.holygrail.excel.norm;
 
 import com.avalon.holygrail.excel.exception.ExcelException;
+import com.avalon.holygrail.excel.exception.ImportException;
 
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
 
 /**
  * Excel导入工作簿
@@ -47,6 +52,30 @@ public interface ExcelWorkBookImport extends ExcelWorkBook {
         return this.parseFile(new File(path));
     }
 
+    /**
+     * 在线程池中解析文件,调用线程不等待解析完成
+     * 上传文件应先写入临时文件再调用,请求线程可以在解析完成前返回
+     *
+     * @param file     文件
+     * @param executor 线程池
+     * @return 解析完成的工作簿, 失败时异常为IOException
+     */
+    default CompletableFuture<ExcelWorkBookImport> parseFileAsync(File file, Executor executor) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return this.parseFile(file);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        }, executor);
+    }
+
+    /**
+     * 释放解析占用的文件和临时文件
+     */
+    default void dispose() {
+    }
+
     @FunctionalInterface
     interface HandlerSheetA {
         /**
@@ -107,4 +136,53 @@ public interface ExcelWorkBookImport extends ExcelWorkBook {
         }
         return this;
     }
+
+    /**
+     * 并行读取Sheet,每个Sheet交给executor执行,全部读取完成后返回
+     * 任意Sheet读取失败时抛出第一个异常
+     *
+     * @param executor     线程池
+     * @param handlerSheet 操作读取的Sheet,在线程池中调用
+     * @return
+     */
+    default ExcelWorkBookImport readSheets(Executor executor, HandlerSheetA handlerSheet) throws IOException, ExcelException, IllegalAccessException, InstantiationException {
+        int totalSheetSize = this.getSheetSize();
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[totalSheetSize];
+        for (int i = 0; i < totalSheetSize; i++) {
+            ExcelSheetImport sheet = this.getSheet(i);
+            int index = i;
+            futures[i] = CompletableFuture.runAsync(() -> {
+                try {
+                    handlerSheet.accept(sheet, index);
+                } catch (Exception e) {
+                    throw new CompletionException(e);
+                }
+            }, executor);
+        }
+        try {
+            CompletableFuture.allOf(futures).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ImportException("读取已中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() instanceof CompletionException && e.getCause().getCause() != null ? e.getCause().getCause() : e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof ExcelException) {
+                throw (ExcelException) cause;
+            }
+            if (cause instanceof IllegalAccessException) {
+                throw (IllegalAccessException) cause;
+            }
+            if (cause instanceof InstantiationException) {
+                throw (InstantiationException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new ImportException(cause.getMessage(), cause);
+        }
+        return this;
+    }
 }
@@ -0,0 +1,18 @@
+package com.avalon.holygrail.excel.norm;
+
+/**
+ * 导入行校验
+ * 单元格校验和类型转换通过后对整行数据校验,用于跨列规则
+ */
+@FunctionalInterface
+public interface RowValidator<T> {
+
+    /**
+     * 校验一行数据
+     *
+     * @param record 数据
+     * @param rowNum 行号
+     * @return 校验失败提示, 通过返回null
+     */
+    String validate(T record, int rowNum);
+}
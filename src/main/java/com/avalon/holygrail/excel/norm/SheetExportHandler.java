@@ -2,6 +2,7 @@ package com.avalon.holygrail.excel.norm;
 
 import com.avalon.holygrail.excel.exception.ExcelException;
 import com.avalon.holygrail.excel.model.ExcelTitleCellAbstract;
+import com.avalon.holygrail.excel.model.TitleLayout;
 
 import java.io.File;
 import java.io.FileInputStream;
@@ -64,6 +65,14 @@ public interface SheetExportHandler extends Sheet {
      */
     ExcelSheetExport setTitles(ExcelTitleCellAbstract[][] titles, boolean exportTitles) throws ExcelException;
 
+    /**
+     * 按编译好的表头布局设置表头
+     * @param titleLayout 表头布局
+     * @param exportTitles 是否导出表头
+     * @return 准备导出
+     */
+    ExcelSheetExport setTitles(TitleLayout titleLayout, boolean exportTitles) throws ExcelException;
+
     /**
      * 设置列属性
      * @param fields 属性
@@ -94,6 +103,22 @@ public interface SheetExportHandler extends Sheet {
      */
     ExcelSheetExport insertPicture(InputStream inputStream, ExcelWorkBook.PictureType pictureType, int dx1, int dy1, int dx2, int dy2, int col1, int row1, int col2, int row2) throws IOException;
 
+    /**
+     * 插入图片,png、jpeg等能识别文件头的图片原样写入,内容相同的图片在工作簿中只保存一份
+     * @param data 图片数据
+     * @param pictureType 图片类型,无法识别文件头时按此类型保存
+     * @param dx1 起始单元格的x偏移量
+     * @param dy1 起始单元格的y偏移量
+     * @param dx2 终止单元格的x偏移量
+     * @param dy2 终止单元格的y偏移量
+     * @param col1 起始单元格列序号,从0开始计算
+     * @param row1 起始单元格行序号,从0开始计算
+     * @param col2 终止单元格列序号,从0开始计算
+     * @param row2 终止单元格行序号,从0开始计算
+     * @throws IOException
+     */
+    ExcelSheetExport insertPicture(byte[] data, ExcelWorkBook.PictureType pictureType, int dx1, int dy1, int dx2, int dy2, int col1, int row1, int col2, int row2) throws IOException;
+
     /**
      * 设置列对应的数据属性
      * @param fields 属性
@@ -139,6 +164,15 @@ public interface SheetExportHandler extends Sheet {
         return setTitles(titles, true);
     }
 
+    /**
+     * 按编译好的表头布局设置表头
+     * @param titleLayout 表头布局
+     * @return 准备导出
+     */
+    default ExcelSheetExport setTitles(TitleLayout titleLayout) throws ExcelException {
+        return setTitles(titleLayout, true);
+    }
+
     /**
      * 插入图片
      * @param file 图片文件
@@ -1,12 +1,16 @@
 package com.avalon.holygrail.excel.norm;
 
+import com.avalon.holygrail.excel.bean.ColumnarData;
+import com.avalon.holygrail.excel.bean.ImportValidateResult;
 import com.avalon.holygrail.excel.exception.ExcelException;
 import com.avalon.holygrail.excel.model.ExcelTitleCellAbstract;
+import com.avalon.holygrail.excel.model.TitleLayout;
 
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.*;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 
 /**
@@ -58,6 +62,38 @@ public interface SheetImportHandler extends Sheet {
         boolean apply(T record, ArrayList<T> records, int rowNum, int index);
     }
 
+    /**
+     * 操作行,不保留已读取的数据
+     */
+    @FunctionalInterface
+    interface HandlerRowC<T> {
+
+        /**
+         * 接收行
+         *
+         * @param record 当前行数据对象
+         * @param rowNum 行号
+         * @param index  当前行数据的下标
+         * @return 是否继续读取下一行
+         */
+        boolean apply(T record, int rowNum, int index);
+    }
+
+    /**
+     * 批量操作行,不保留已读取的数据
+     */
+    @FunctionalInterface
+    interface HandlerRows<T> {
+
+        /**
+         * 接收一批行
+         *
+         * @param records 当前批次的数据,每批为新的集合
+         * @param index   批次下标
+         */
+        void accept(ArrayList<T> records, int index);
+    }
+
     @Override
     SheetImportHandler setRowCursor(Function<Integer, Integer> handler);
 
@@ -74,6 +110,21 @@ public interface SheetImportHandler extends Sheet {
         return this.setColCursor(colCursor -> handler.apply(colCursor + 1) - 1);
     }
 
+    /**
+     * 注册单元格值转换器,按setter参数类型匹配,覆盖默认转换器
+     *
+     * @param type      属性类型
+     * @param converter 转换器,无法转换时抛出IllegalArgumentException
+     */
+    <T> SheetImportHandler registerConverter(Class<T> type, CellConverter<? extends T> converter);
+
+    /**
+     * 添加行校验,单元格校验和类型转换都通过后执行,并行读取时在线程池中执行
+     *
+     * @param rowValidator 行校验
+     */
+    <T> SheetImportHandler addRowValidator(RowValidator<T> rowValidator);
+
     /**
      * 解析表头json数据
      *
@@ -110,6 +161,15 @@ public interface SheetImportHandler extends Sheet {
      */
     <T> SheetImportHandler setTitles(ExcelTitleCellAbstract[][] titles, Class<T> clazz) throws ExcelException;
 
+    /**
+     * 按编译好的表头布局设置表头
+     *
+     * @param titleLayout 表头布局
+     * @param clazz       数据容器
+     * @return 准备导入
+     */
+    <T> SheetImportHandler setTitles(TitleLayout titleLayout, Class<T> clazz) throws ExcelException;
+
     /**
      * 设置列对应的数据属性
      *
@@ -129,6 +189,16 @@ public interface SheetImportHandler extends Sheet {
      */
     <T> SheetImportHandler setColumnFields(int rowSpan, List<String> fields, Class<T> clazz) throws ExcelException;
 
+    /**
+     * 自动识别表头
+     * 在前scanRows行中按表头文本(忽略空白、全角半角、大小写)匹配已设置的数据表头,匹配最多的行作为表头行,
+     * 按匹配结果建立列与数据属性的对应关系,列顺序可以不同,可以有多余的列,行游标设置为表头行
+     *
+     * @param scanRows 扫描行数
+     * @return 准备导入
+     */
+    SheetImportHandler detectTitles(int scanRows) throws ExcelException;
+
     /**
      * 设置列值
      * 注意,使用该方法读取数据,设置的field应该与对应数据的列号相同
@@ -251,6 +321,102 @@ public interface SheetImportHandler extends Sheet {
      */
     <T> SheetImportHandler readRows(HandlerRowB<T> handlerRow) throws ExcelException, IllegalAccessException, InstantiationException;
 
+    /**
+     * 流式读取数据,读取的数据不会保存,getReadData获取不到
+     *
+     * @param clazz      数据类型
+     * @param handlerRow 操作当前行数据,返回false不继续读取下一行
+     * @param <T>
+     * @return 当前对象
+     */
+    <T> SheetImportHandler streamRows(Class<T> clazz, HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    /**
+     * 流式读取数据(使用默认数据类型或者表头设置的数据类型),读取的数据不会保存
+     *
+     * @param handlerRow 操作当前行数据,返回false不继续读取下一行
+     * @return 当前对象
+     */
+    <T> SheetImportHandler streamRows(HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    /**
+     * 按列读取数据,单元格值直接写入columnarData中与表头属性同名的列,不创建行数据对象;
+     * 没有声明的属性不读取,读取的数据不会保存
+     *
+     * @param columnarData 列式数据
+     * @return 当前对象
+     */
+    SheetImportHandler readColumns(ColumnarData columnarData) throws ExcelException;
+
+    /**
+     * 校验并读取数据,校验失败的行不会中断读取,错误记录到校验结果中,校验通过的数据保存到校验结果和getReadData
+     *
+     * @param clazz 数据类型
+     * @param <T>
+     * @return 校验结果
+     */
+    <T> ImportValidateResult<T> validateRows(Class<T> clazz) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    /**
+     * 校验并读取数据(使用默认数据类型或者表头设置的数据类型)
+     *
+     * @return 校验结果
+     */
+    ImportValidateResult validateRows() throws ExcelException, InstantiationException, IllegalAccessException;
+
+    /**
+     * 校验并流式读取数据,只有校验通过的数据交给handlerRow,读取的数据不会保存
+     *
+     * @param clazz      数据类型
+     * @param handlerRow 操作校验通过的数据,返回false不继续读取下一行
+     * @param <T>
+     * @return 校验结果, 不包含数据
+     */
+    <T> ImportValidateResult<T> validateRows(Class<T> clazz, HandlerRowC<T> handlerRow) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    /**
+     * 分批读取数据,每读取batchSize行调用一次,最后不足batchSize的行也会调用一次,读取的数据不会保存
+     *
+     * @param clazz       数据类型
+     * @param batchSize   每批行数
+     * @param handlerRows 操作当前批次数据
+     * @param <T>
+     * @return 当前对象
+     */
+    <T> SheetImportHandler readRows(Class<T> clazz, int batchSize, HandlerRows<T> handlerRows) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    /**
+     * 分批读取数据(使用默认数据类型或者表头设置的数据类型),读取的数据不会保存
+     *
+     * @param batchSize   每批行数
+     * @param handlerRows 操作当前批次数据
+     * @return 当前对象
+     */
+    <T> SheetImportHandler readRows(int batchSize, HandlerRows<T> handlerRows) throws ExcelException, InstantiationException, IllegalAccessException;
+
+    /**
+     * 并行读取数据
+     * 当前线程读取行,行数据转换为数据对象交给executor并行执行,handlerRow仍在当前线程按行顺序调用
+     *
+     * @param clazz      数据类型
+     * @param executor   转换数据对象的线程池
+     * @param handlerRow 操作当前行数据,返回false不继续读取下一行
+     * @param <T>
+     * @return 当前对象
+     */
+    <T> SheetImportHandler parallelReadRows(Class<T> clazz, Executor executor, HandlerRowB<T> handlerRow) throws ExcelException;
+
+    /**
+     * 并行流式读取数据,读取的数据不会保存
+     *
+     * @param clazz      数据类型
+     * @param executor   转换数据对象的线程池
+     * @param handlerRow 操作当前行数据,返回false不继续读取下一行
+     * @param <T>
+     * @return 当前对象
+     */
+    <T> SheetImportHandler parallelStreamRows(Class<T> clazz, Executor executor, HandlerRowC<T> handlerRow) throws ExcelException;
+
     /**
      * 获取读到的数据
      *
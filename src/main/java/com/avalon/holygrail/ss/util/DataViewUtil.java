@@ -1,5 +1,6 @@
 package com.avalon.holygrail.ss.util;
 
+import com.avalon.holygrail.excel.bean.ImportValidateResult;
 import com.avalon.holygrail.ss.norm.Limit;
 import com.avalon.holygrail.ss.view.*;
 
@@ -133,11 +134,36 @@ public class DataViewUtil {
         return new UploadResultView(ResultUtil.createSuccess("success"), result[0], result[1], result[2], result[3], result[4], filePath);
     }
 
+    /**
+     * @param result         参数顺序: 文件真实名称、文件后缀、文件保存名、文件保存全名、文件完成保存路径(不包含项目路径)
+     * @param filePath       文件路径
+     * @param validateResult 导入校验结果
+     */
+    public static UploadResultView getUploadResultView(String[] result, String filePath, ImportValidateResult<?> validateResult) {
+        ValidateResultView validateView = getValidateView(validateResult);
+        UploadResultView view = new UploadResultView(validateView.getResultInfo(), result[0], result[1], result[2], result[3], result[4], filePath);
+        view.setValidateResult(validateView);
+        return view;
+    }
+
     //--------------------------------构建ValidateView视图-------------------------------------//
     public static ValidateResultView getValidateViewSuccess(boolean success) {
         return new ValidateResultView(ResultUtil.createSuccess("success"), success);
     }
 
+    /**
+     * 导入校验结果视图,全部通过为success,否则为fail
+     *
+     * @param result 导入校验结果
+     */
+    public static ValidateResultView getValidateView(ImportValidateResult<?> result) {
+        if (result.isSuccess()) {
+            return new ValidateResultView(ResultUtil.createSuccess("success"), true, result.getTotal(), 0, result.getErrors());
+        }
+        String message = "共" + result.getTotal() + "行,校验失败" + result.getRejected() + "行";
+        return new ValidateResultView(ResultUtil.createFail(message), false, result.getTotal(), result.getRejected(), result.getErrors());
+    }
+
     //-------------------------------------构建模型视图------------------------------------------//
     public static ModelView getModelViewSuccess(String message, Object record) {
         return new ModelView(ResultUtil.createSuccess(message), record);
@@ -19,6 +19,8 @@ public class UploadResultView extends MessageView {
 
     protected String filePath;
 
+    protected ValidateResultView validateResult;//导入校验结果
+
     public UploadResultView(ResultInfo resultInfo) {
         super(resultInfo);
     }
@@ -80,4 +82,12 @@ public class UploadResultView extends MessageView {
     public void setFilePath(String filePath) {
         this.filePath = filePath;
     }
+
+    public ValidateResultView getValidateResult() {
+        return validateResult;
+    }
+
+    public void setValidateResult(ValidateResultView validateResult) {
+        this.validateResult = validateResult;
+    }
 }
@@ -1,7 +1,10 @@
 package com.avalon.holygrail.ss.view;
 
+import com.avalon.holygrail.excel.bean.ExcelCellError;
 import com.avalon.holygrail.ss.norm.ResultInfo;
 
+import java.util.List;
+
 /**
  * 验证结果视图
  */
@@ -9,6 +12,12 @@ public class ValidateResultView extends MessageView {
 
     protected boolean success;
 
+    protected int total;//校验的行数
+
+    protected int rejected;//校验失败的行数
+
+    protected List<ExcelCellError> errors;//单元格错误
+
     public ValidateResultView(boolean success) {
         this.success = success;
     }
@@ -18,6 +27,14 @@ public class ValidateResultView extends MessageView {
         this.success = success;
     }
 
+    public ValidateResultView(ResultInfo resultInfo, boolean success, int total, int rejected, List<ExcelCellError> errors) {
+        super(resultInfo);
+        this.success = success;
+        this.total = total;
+        this.rejected = rejected;
+        this.errors = errors;
+    }
+
     public boolean isSuccess() {
         return success;
     }
@@ -25,4 +42,28 @@ public class ValidateResultView extends MessageView {
     public void setSuccess(boolean success) {
         this.success = success;
     }
+
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int total) {
+        this.total = total;
+    }
+
+    public int getRejected() {
+        return rejected;
+    }
+
+    public void setRejected(int rejected) {
+        this.rejected = rejected;
+    }
+
+    public List<ExcelCellError> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<ExcelCellError> errors) {
+        this.errors = errors;
+    }
 }
@@ -1,9 +1,18 @@
 package com.avalon.holygrail.util;
 
+import com.avalon.holygrail.excel.bean.CSVExcelWorkBookExport;
 import com.avalon.holygrail.excel.bean.SXSSFExcelWorkBookExport;
 import com.avalon.holygrail.excel.norm.ExcelWorkBookExport;
 import org.apache.poi.xssf.streaming.SXSSFWorkbook;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLEncoder;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
 /**
  * 导出
  * Created by 白超 on 2018/1/17.
@@ -33,4 +42,109 @@ public interface Export {
         return new SXSSFExcelWorkBookExport(workbook);
     }
 
+    /**
+     * 构建CSV导出工作簿(UTF-8)
+     */
+    static ExcelWorkBookExport buildCSVExportExcelWorkBook() {
+        return new CSVExcelWorkBookExport();
+    }
+
+    /**
+     * 构建CSV导出工作簿
+     * @param charset 字符集
+     */
+    static ExcelWorkBookExport buildCSVExportExcelWorkBook(Charset charset) {
+        return new CSVExcelWorkBookExport(CSVExcelWorkBookExport.CSV_DELIMITER, charset);
+    }
+
+    /**
+     * 构建直接写入输出流的CSV导出工作簿,不使用临时文件
+     * @param outputStream 输出流,导出后由调用方关闭
+     * @param charset 字符集
+     */
+    static ExcelWorkBookExport buildCSVExportExcelWorkBook(OutputStream outputStream, Charset charset) {
+        return new CSVExcelWorkBookExport(outputStream, CSVExcelWorkBookExport.CSV_DELIMITER, charset);
+    }
+
+    /**
+     * 构建TSV导出工作簿(UTF-8)
+     */
+    static ExcelWorkBookExport buildTSVExportExcelWorkBook() {
+        return buildTSVExportExcelWorkBook(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 构建TSV导出工作簿
+     * @param charset 字符集
+     */
+    static ExcelWorkBookExport buildTSVExportExcelWorkBook(Charset charset) {
+        return new CSVExcelWorkBookExport(CSVExcelWorkBookExport.TSV_DELIMITER, charset);
+    }
+
+    /**
+     * 构建直接写入输出流的TSV导出工作簿,不使用临时文件
+     * @param outputStream 输出流,导出后由调用方关闭
+     * @param charset 字符集
+     */
+    static ExcelWorkBookExport buildTSVExportExcelWorkBook(OutputStream outputStream, Charset charset) {
+        return new CSVExcelWorkBookExport(outputStream, CSVExcelWorkBookExport.TSV_DELIMITER, charset);
+    }
+
+    /**
+     * 直接写入响应时的缓冲区大小
+     */
+    int RESPONSE_BUFFER_SIZE = 1 << 16;
+
+    /**
+     * 将工作簿直接写入响应,不经过导出文件
+     * 不设置Content-Length,由容器分块传输;无论成功、失败还是客户端中断,结束后都会释放工作簿的临时文件
+     * @param workBook 导出工作簿
+     * @param fileName 下载文件名称(不包含后缀)
+     * @param suffix   文件后缀
+     * @param response 响应
+     * @throws IOException 写入失败或客户端中断
+     */
+    static void exportResponse(ExcelWorkBookExport workBook, String fileName, String suffix, HttpServletResponse response) throws IOException {
+        try {
+            //写入数据之前设置响应头
+            String name = fileName + "." + suffix;
+            response.setContentType(getContentType(suffix));
+            response.setHeader("Content-Disposition", "attachment;fileName=" + new String(name.getBytes(StandardCharsets.UTF_8), StandardCharsets.ISO_8859_1)
+                    + ";fileName*=UTF-8''" + URLEncoder.encode(name, "UTF-8").replace("+", "%20"));
+            response.setBufferSize(RESPONSE_BUFFER_SIZE);
+            OutputStream os = new BufferedOutputStream(response.getOutputStream(), RESPONSE_BUFFER_SIZE);
+            try {
+                workBook.export(os);
+                os.flush();
+            } catch (IOException | RuntimeException e) {
+                //还没有写出数据时清除响应头,交给异常处理返回错误信息
+                if (!response.isCommitted()) {
+                    response.reset();
+                }
+                throw e;
+            }
+        } finally {
+            workBook.dispose();
+        }
+    }
+
+    /**
+     * 根据文件后缀获取响应类型
+     * @param suffix 文件后缀
+     */
+    static String getContentType(String suffix) {
+        switch (suffix.toLowerCase()) {
+            case "xlsx":
+                return "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet";
+            case "csv":
+                return "text/csv";
+            case "tsv":
+                return "text/tab-separated-values";
+            case "zip":
+                return "application/zip";
+            default:
+                return "application/octet-stream";
+        }
+    }
+
 }
@@ -1,7 +1,24 @@
 package com.avalon.holygrail.util;
 
+import com.avalon.holygrail.excel.bean.CSVExcelWorkBookExport;
+import com.avalon.holygrail.excel.bean.CSVExcelWorkBookImport;
+import com.avalon.holygrail.excel.bean.SAXExcelWorkBookImport;
 import com.avalon.holygrail.excel.bean.XSSFExcelWorkBookImport;
 import com.avalon.holygrail.excel.norm.ExcelWorkBookImport;
+import org.apache.commons.io.FilenameUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * 导入
@@ -15,4 +32,111 @@ public interface Import {
     static ExcelWorkBookImport buildXSSFImportExcelWorkBook() {
         return new XSSFExcelWorkBookImport();
     }
+
+    /**
+     * 构建基于XSSFReader流式解析的Excel导入工作簿,适用于大文件
+     */
+    static ExcelWorkBookImport buildSAXImportExcelWorkBook() {
+        return new SAXExcelWorkBookImport();
+    }
+
+    /**
+     * 构建CSV导入工作簿(UTF-8)
+     */
+    static ExcelWorkBookImport buildCSVImportExcelWorkBook() {
+        return new CSVExcelWorkBookImport();
+    }
+
+    /**
+     * 构建CSV导入工作簿
+     * @param charset 字符集
+     */
+    static ExcelWorkBookImport buildCSVImportExcelWorkBook(Charset charset) {
+        return new CSVExcelWorkBookImport(CSVExcelWorkBookExport.CSV_DELIMITER, charset);
+    }
+
+    /**
+     * 构建TSV导入工作簿(UTF-8)
+     */
+    static ExcelWorkBookImport buildTSVImportExcelWorkBook() {
+        return buildTSVImportExcelWorkBook(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 构建TSV导入工作簿
+     * @param charset 字符集
+     */
+    static ExcelWorkBookImport buildTSVImportExcelWorkBook(Charset charset) {
+        return new CSVExcelWorkBookImport(CSVExcelWorkBookExport.TSV_DELIMITER, charset);
+    }
+
+    /**
+     * 将上传文件通过文件通道写入临时文件
+     * 上传文件在请求结束后会被清理,需要在请求线程中调用;之后可以在其它线程中按文件解析
+     *
+     * @param file 上传文件
+     * @return 临时文件, 后缀与上传文件一致, 由调用方删除
+     * @throws IOException
+     */
+    static File transferToTempFile(MultipartFile file) throws IOException {
+        String extension = FilenameUtils.getExtension(file.getOriginalFilename());
+        File tempFile = File.createTempFile("upload", StringUtil.isEmpty(extension) ? null : FilenameUtils.EXTENSION_SEPARATOR + extension);
+        try (ReadableByteChannel in = Channels.newChannel(file.getInputStream());
+             FileChannel out = FileChannel.open(tempFile.toPath(), StandardOpenOption.WRITE)) {
+            long position = 0;
+            for (long count; (count = out.transferFrom(in, position, 1024 * 1024)) > 0; ) {
+                position += count;
+            }
+        } catch (IOException e) {
+            tempFile.delete();
+            throw e;
+        }
+        return tempFile;
+    }
+
+    @FunctionalInterface
+    interface HandlerWorkBook<R> {
+
+        /**
+         * 读取解析完成的工作簿
+         *
+         * @param workBook 工作簿
+         * @return 读取结果
+         */
+        R apply(ExcelWorkBookImport workBook) throws Exception;
+    }
+
+    /**
+     * 导入上传文件
+     * 在调用线程中通过文件通道将上传文件写入临时文件,之后在线程池中按文件打开并读取,调用线程不等待解析;
+     * 读取结束后释放工作簿并删除临时文件
+     *
+     * @param workBook 导入工作簿
+     * @param file     上传文件
+     * @param executor 线程池
+     * @param handler  读取工作簿,在线程池中调用
+     * @return 读取结果
+     * @throws IOException 写入临时文件失败
+     */
+    static <R> CompletableFuture<R> importUpload(ExcelWorkBookImport workBook, MultipartFile file, Executor executor, HandlerWorkBook<R> handler) throws IOException {
+        File tempFile = transferToTempFile(file);
+        CompletableFuture<ExcelWorkBookImport> parsed;
+        try {
+            parsed = workBook.parseFileAsync(tempFile, executor);
+        } catch (RuntimeException e) {
+            tempFile.delete();
+            throw e;
+        }
+        //解析可能在回调注册前就已完成,显式指定线程池,读取和释放都不在调用线程中执行
+        return parsed.thenApplyAsync(parsedWorkBook -> {
+            try {
+                return handler.apply(parsedWorkBook);
+            } catch (Exception e) {
+                throw new CompletionException(e);
+            }
+        }, executor).whenCompleteAsync((result, e) -> {
+            workBook.dispose();
+            tempFile.delete();
+        }, executor);
+    }
 }